@@ -25,6 +25,7 @@ dependencies {
     implementation("ej.api:edc:1.3.5")
     implementation("ej.api:microui:3.4.0")
     implementation("ej.api:drawing:1.0.4")
+    implementation("ej.api:fs:2.1.1")
     implementation("ej.api:microvg:1.4.0")
 
     implementation("ej.library.ui:mwt:3.5.0")
@@ -47,6 +48,21 @@ dependencies {
     microejVeePort("com.nxp.vee.mimxrt1170:evk_platform:2.0.0")
 }
 
+testing {
+    suites {
+        val test by getting(JvmTestSuite::class) {
+            microej.useMicroejTestEngine(this)
+
+            dependencies {
+                implementation(project())
+                implementation("ej.api:edc:1.3.5")
+                implementation("ej.library.test:junit:1.7.1")
+                implementation("org.junit.platform:junit-platform-launcher:1.8.2")
+            }
+        }
+    }
+}
+
 tasks {
     javadoc {
         options.encoding = "UTF-8"
@@ -6,6 +6,7 @@
  */
 package com.microej.demo.smart_thermostat;
 
+import com.microej.demo.smart_thermostat.model.SensorArchiveRecorder;
 import com.microej.demo.smart_thermostat.model.SmartThermostatModel;
 import com.microej.demo.smart_thermostat.model.ValueProvider;
 
@@ -33,5 +34,8 @@ public class Main {
 
 		// Initialize value provider
 		ValueProvider.start(SmartThermostatModel.getInstance());
+
+		// Initialize sensors archive
+		SensorArchiveRecorder.start(SmartThermostatModel.getInstance());
 	}
 }
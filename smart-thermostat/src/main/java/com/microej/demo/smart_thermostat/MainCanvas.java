@@ -6,11 +6,24 @@
  */
 package com.microej.demo.smart_thermostat;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microej.demo.smart_thermostat.common.Activatable;
 import com.microej.demo.smart_thermostat.common.AnimationValue;
 import com.microej.demo.smart_thermostat.common.Context;
+import com.microej.demo.smart_thermostat.common.FrameClock;
+import com.microej.demo.smart_thermostat.common.Page;
 import com.microej.demo.smart_thermostat.style.ClassSelectors;
+import com.microej.demo.smart_thermostat.style.Images;
 import com.microej.demo.smart_thermostat.widget.*;
+import ej.annotation.Nullable;
+import ej.bon.Constants;
+import ej.bon.Util;
+import ej.microui.display.BufferedImage;
 import ej.microui.display.Display;
+import ej.microui.display.GraphicsContext;
+import ej.mwt.Widget;
 import ej.widget.container.Canvas;
 
 import static com.microej.demo.smart_thermostat.NavigationDesktop.scale;
@@ -18,9 +31,21 @@ import static com.microej.demo.smart_thermostat.common.Context.State.TRANSITION_
 
 /**
  * Main canvas container for all application widgets.
+ * <p>
+ * The widgets of all the pages are mounted once and stay children of the canvas. A page only declares which widgets
+ * are visible and in which order they are stacked: the other children are neither rendered nor hit by the pointer.
+ * Switching pages does not show nor hide the widgets, so their resources stay loaded. Instead, the widgets
+ * implementing {@link Activatable} are activated when their page is displayed and deactivated when it is left.
+ * </p>
  */
 public class MainCanvas extends Canvas {
 
+	/**
+	 * Name of the constant selecting the {@link SnapshotTransition} instead of the {@link Transition} for the
+	 * navigation between the pages.
+	 */
+	public static final String SNAPSHOT_TRANSITION_CONSTANT = "transition.snapshot.enable"; //$NON-NLS-1$
+
 	/** Secondary bubble left x position from left. */
 	public static final int SECONDARY_BUBBLE_LEFT_X = scale(49);
 	/** Secondary bubble left x position from right. */
@@ -53,13 +78,21 @@ public class MainCanvas extends Canvas {
 
 	private static final int PARALLAX_BOTTOM_OFFSET = scale(460);
 
+	private static final Logger LOGGER = Logger.getLogger(MainCanvas.class.getName());
+
+	// initial capacity of the widgets of a page, grown when a page shows more widgets
+	private static final int PAGE_WIDGETS_CAPACITY = 16;
+
 	private final BubbleLabels insideBubbleLabels;
 	private final BubbleLabels outsideBubbleLabels;
 
 	private final SkyColor skyColor;
+	private final HomeBackground homeBackground;
 	private final DateWidget dateWidget;
 	private final Parallax parallax;
 	private final Transition transition;
+	private final SnapshotTransition snapshotTransition;
+	private boolean snapshotTransitionShown;
 	private final Overlay overlay;
 
 	private final int displayWidth;
@@ -68,6 +101,13 @@ public class MainCanvas extends Canvas {
 	private final BubbleWidget bubbleWidget;
 	private final TempThresholdPopup tempThresholdPopup;
 
+	private Widget[] snapshotWidgets;
+	private Widget[] pageWidgets;
+	private int pageWidgetsCount;
+	private Widget[] previousPageWidgets;
+	private int previousPageWidgetsCount;
+	private int mountedWidgetsCount;
+
 	/**
 	 * Creates the main canvas.
 	 *
@@ -87,6 +127,7 @@ public class MainCanvas extends Canvas {
 			}
 		});
 		this.transition = new Transition(ui.getTransitionProgress(), this.parallax);
+		this.snapshotTransition = new SnapshotTransition(ui.getTransitionProgress());
 		this.overlay = new Overlay(new AnimationValue() {
 			@Override
 			public int getValue() {
@@ -95,6 +136,7 @@ public class MainCanvas extends Canvas {
 		});
 
 		this.skyColor = new SkyColor();
+		this.homeBackground = new HomeBackground();
 		this.bubbleWidget = new BubbleWidget();
 		this.dateWidget = new DateWidget();
 
@@ -104,71 +146,280 @@ public class MainCanvas extends Canvas {
 		this.outsideBubbleLabels.addClassSelector(ClassSelectors.OUTSIDE_PAGE_LABELS);
 
 		this.tempThresholdPopup = new TempThresholdPopup();
+
+		this.pageWidgets = new Widget[PAGE_WIDGETS_CAPACITY];
+		this.previousPageWidgets = new Widget[PAGE_WIDGETS_CAPACITY];
+		this.snapshotWidgets = new Widget[PAGE_WIDGETS_CAPACITY];
+		if (hasSnapshotTransitions()) {
+			// mounted with the pages, displayed only during the navigation
+			addChild(this.snapshotTransition, 0, 0, this.displayWidth, this.displayHeight);
+		}
+	}
+
+	/**
+	 * Gets whether the navigation animates snapshots of the pages, see {@link #SNAPSHOT_TRANSITION_CONSTANT}.
+	 *
+	 * @return {@code true} if the {@link SnapshotTransition} is used, {@code false} otherwise.
+	 */
+	public static boolean hasSnapshotTransitions() {
+		return Constants.getBoolean(SNAPSHOT_TRANSITION_CONSTANT);
+	}
+
+	/**
+	 * Displays the given page.
+	 * <p>
+	 * The widgets of the page which are not mounted yet are added to the canvas. The widgets of the previous page which
+	 * are not part of the new one are deactivated, then the new widgets are activated.
+	 * </p>
+	 *
+	 * @param page
+	 *            the page to display.
+	 */
+	public void showPage(Page page) {
+		beginPage();
+		page.build(this);
+		endPage();
+	}
+
+	/**
+	 * Shows a widget on the page being built, over the widgets already shown.
+	 * <p>
+	 * The widget is mounted with the given bounds the first time it is shown, the bounds of a mounted widget are not
+	 * changed.
+	 * </p>
+	 *
+	 * @param widget
+	 *            the widget to show.
+	 * @param x
+	 *            the x coordinate of the widget.
+	 * @param y
+	 *            the y coordinate of the widget.
+	 * @param width
+	 *            the width of the widget.
+	 * @param height
+	 *            the height of the widget.
+	 */
+	public void showChild(Widget widget, int x, int y, int width, int height) {
+		if (widget.getParent() != this) {
+			addChild(widget, x, y, width, height);
+			this.mountedWidgetsCount++;
+		}
+		Widget[] widgets = this.pageWidgets;
+		int count = this.pageWidgetsCount;
+		if (!contains(widgets, count, widget)) {
+			if (count == widgets.length) {
+				Widget[] newWidgets = new Widget[count + 1];
+				System.arraycopy(widgets, 0, newWidgets, 0, count);
+				widgets = newWidgets;
+				this.pageWidgets = widgets;
+			}
+			widgets[count] = widget;
+			this.pageWidgetsCount = count + 1;
+		}
+	}
+
+	private void beginPage() {
+		Widget[] previous = this.previousPageWidgets;
+		this.previousPageWidgets = this.pageWidgets;
+		this.previousPageWidgetsCount = this.pageWidgetsCount;
+		this.pageWidgets = previous;
+		this.pageWidgetsCount = 0;
+		this.mountedWidgetsCount = 0;
+	}
+
+	private void endPage() {
+		long startTime = Util.platformTimeMillis();
+		int imageLoads = Images.getLoadsCount();
+
+		Widget[] previous = this.previousPageWidgets;
+		int previousCount = this.previousPageWidgetsCount;
+		Widget[] current = this.pageWidgets;
+		int currentCount = this.pageWidgetsCount;
+		boolean shown = isShown();
+		if (shown) {
+			for (int i = 0; i < previousCount; i++) {
+				Widget widget = previous[i];
+				if (!contains(current, currentCount, widget)) {
+					deactivate(widget);
+				}
+			}
+			for (int i = 0; i < currentCount; i++) {
+				Widget widget = current[i];
+				if (!contains(previous, previousCount, widget)) {
+					activate(widget);
+				}
+			}
+		}
+		for (int i = 0; i < previousCount; i++) {
+			previous[i] = null;
+		}
+		this.previousPageWidgetsCount = 0;
+
+		if (this.mountedWidgetsCount > 0) {
+			requestLayOut();
+		} else {
+			requestRender();
+		}
+
+		if (shown && LOGGER.isLoggable(Level.FINE)) {
+			LOGGER.fine("page switched in " + (Util.platformTimeMillis() - startTime) + " ms, " //$NON-NLS-1$ //$NON-NLS-2$
+					+ this.mountedWidgetsCount + " widgets mounted, " + (Images.getLoadsCount() - imageLoads) //$NON-NLS-1$
+					+ " images loaded"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	protected void onShown() {
+		super.onShown();
+		for (int i = 0; i < this.pageWidgetsCount; i++) {
+			activate(this.pageWidgets[i]);
+		}
+	}
+
+	@Override
+	protected void onHidden() {
+		for (int i = 0; i < this.pageWidgetsCount; i++) {
+			deactivate(this.pageWidgets[i]);
+		}
+		super.onHidden();
+	}
+
+	@Override
+	protected void renderContent(GraphicsContext g, int contentWidth, int contentHeight) {
+		// only the widgets of the page are rendered, in the order they have been shown
+		int clipX = g.getClipX();
+		int clipY = g.getClipY();
+		int clipWidth = g.getClipWidth();
+		int clipHeight = g.getClipHeight();
+		for (int i = 0; i < this.pageWidgetsCount; i++) {
+			Widget widget = this.pageWidgets[i];
+			int x = widget.getX();
+			int y = widget.getY();
+			if (clipX < x + widget.getWidth() && x < clipX + clipWidth && clipY < y + widget.getHeight()
+					&& y < clipY + clipHeight) {
+				renderChild(widget, g);
+			}
+		}
+	}
+
+	@Override
+	public @Nullable Widget getWidgetAt(int x, int y) {
+		if (!contains(x, y)) {
+			return null;
+		}
+		// the canvas has no outline: its content starts at its position
+		int childX = x - getX();
+		int childY = y - getY();
+		for (int i = this.pageWidgetsCount - 1; i >= 0; i--) {
+			Widget widget = this.pageWidgets[i].getWidgetAt(childX, childY);
+			if (widget != null) {
+				return widget;
+			}
+		}
+		return isEnabled() ? this : null;
+	}
+
+	private static void activate(Widget widget) {
+		if (widget instanceof Activatable) {
+			((Activatable) widget).onActivated();
+		}
+	}
+
+	private static void deactivate(Widget widget) {
+		if (widget instanceof Activatable) {
+			((Activatable) widget).onDeactivated();
+		}
+	}
+
+	private static boolean contains(Widget[] widgets, int count, Widget widget) {
+		for (int i = 0; i < count; i++) {
+			if (widgets[i] == widget) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
-	 * Adds the overlay widget {@link Overlay} to the main canvas.
+	 * Shows the overlay widget {@link Overlay} on the page being built.
 	 */
-	public void addOverlay() {
-		addChild(this.overlay, 0, 0, this.overlay.getWidth(), this.overlay.getHeight());
+	public void showOverlay() {
+		showChild(this.overlay, 0, 0, this.overlay.getWidth(), this.overlay.getHeight());
 	}
 
 	/**
-	 * Adds the parallax widget {@link Parallax} to the main canvas.
+	 * Shows the parallax widget {@link Parallax} on the page being built.
 	 */
-	public void addParallax() {
-		addChild(this.parallax, 0, this.displayHeight - PARALLAX_BOTTOM_OFFSET, this.parallax.getWidth(),
+	public void showParallax() {
+		showChild(this.parallax, 0, this.displayHeight - PARALLAX_BOTTOM_OFFSET, this.parallax.getWidth(),
 				this.parallax.getHeight());
 	}
 
 	/**
-	 * Adds the transition widget {@link Transition} to the main canvas.
+	 * Shows the transition widget {@link Transition} on the page being built.
 	 */
-	public void addTransitionWidget() {
-		addChild(this.transition, 0, 0, this.displayWidth, this.displayHeight);
+	public void showTransitionWidget() {
+		showChild(this.transition, 0, 0, this.displayWidth, this.displayHeight);
 	}
 
 	/**
-	 * Adds the bubble widget {@link BubbleWidget} to the main canvas.
+	 * Shows the bubble widget {@link BubbleWidget} on the page being built.
 	 */
-	public void addBubbleWidget() {
-		addChild(this.bubbleWidget, BUBBLE_X, BUBBLE_Y, this.bubbleWidget.getWidth(), this.bubbleWidget.getHeight());
+	public void showBubbleWidget() {
+		showChild(this.bubbleWidget, BUBBLE_X, BUBBLE_Y, this.bubbleWidget.getWidth(), this.bubbleWidget.getHeight());
 	}
 
 	/**
-	 * Adds the sky color widget {@link SkyColor} to the main canvas.
+	 * Shows the sky color widget {@link SkyColor} on the page being built.
 	 */
-	public void addSkyColor() {
-		addChild(this.skyColor, 0, 0, this.skyColor.getWidth(), this.skyColor.getHeight());
+	public void showSkyColor() {
+		showChild(this.skyColor, 0, 0, this.skyColor.getWidth(), this.skyColor.getHeight());
 	}
 
 	/**
-	 * Adds the inside bubble labels {@link BubbleLabels} to the main canvas.
+	 * Shows the composited home background {@link HomeBackground} on the page being built.
 	 */
-	public void addInsideBubbleLabels() {
-		addChild(this.insideBubbleLabels, INSIDE_LABELS_X, INSIDE_LABELS_Y_OFFSET, INSIDE_LABELS_WIDTH, LABELS_HEIGHT);
+	public void showHomeBackground() {
+		showChild(this.homeBackground, 0, 0, this.homeBackground.getWidth(), this.homeBackground.getHeight());
 	}
 
 	/**
-	 * Adds the outside bubble labels {@link BubbleLabels} to the main canvas.
+	 * Shows the given widget over the parallax on the page being built.
+	 *
+	 * @param widget
+	 *            the widget to show.
 	 */
-	public void addOutsideBubbleLabels() {
-		addChild(this.outsideBubbleLabels, OUTSIDE_LABELS_X, INSIDE_LABELS_Y_OFFSET, OUTSIDE_LABELS_WIDTH,
+	public void showOverParallax(Widget widget) {
+		showChild(widget, 0, this.displayHeight - PARALLAX_BOTTOM_OFFSET, this.displayWidth, PARALLAX_BOTTOM_OFFSET);
+	}
+
+	/**
+	 * Shows the inside bubble labels {@link BubbleLabels} on the page being built.
+	 */
+	public void showInsideBubbleLabels() {
+		showChild(this.insideBubbleLabels, INSIDE_LABELS_X, INSIDE_LABELS_Y_OFFSET, INSIDE_LABELS_WIDTH, LABELS_HEIGHT);
+	}
+
+	/**
+	 * Shows the outside bubble labels {@link BubbleLabels} on the page being built.
+	 */
+	public void showOutsideBubbleLabels() {
+		showChild(this.outsideBubbleLabels, OUTSIDE_LABELS_X, INSIDE_LABELS_Y_OFFSET, OUTSIDE_LABELS_WIDTH,
 				LABELS_HEIGHT);
 	}
 
 	/**
-	 * Adds the date widget {@link DateWidget} to the main canvas.
+	 * Shows the date widget {@link DateWidget} on the page being built.
 	 */
-	public void addDateWidget() {
-		addChild(this.dateWidget, this.displayHalfWidth, DATE_MARGIN_TOP, this.displayHalfWidth, DATE_HEIGHT);
+	public void showDateWidget() {
+		showChild(this.dateWidget, this.displayHalfWidth, DATE_MARGIN_TOP, this.displayHalfWidth, DATE_HEIGHT);
 	}
 
 	/**
-	 * Adds the threshold popup widget {@link TempThresholdPopup} to the main canvas.
+	 * Shows the threshold popup widget {@link TempThresholdPopup} on the page being built.
 	 */
-	public void addThresholdPopup() {
-		addChild(this.tempThresholdPopup, TEMP_THRESHOLD_MARGIN_LEFT, TEMP_THRESHOLD_MARGIN_TOP, this.displayHalfWidth,
+	public void showThresholdPopup() {
+		showChild(this.tempThresholdPopup, TEMP_THRESHOLD_MARGIN_LEFT, TEMP_THRESHOLD_MARGIN_TOP, this.displayHalfWidth,
 				TEMP_THRESHOLD_HEIGHT);
 	}
 
@@ -176,25 +427,139 @@ public class MainCanvas extends Canvas {
 	 * Builds the transition between home-inside and home-outside.
 	 */
 	public void buildTransition() {
-		removeAllChildren();
+		this.snapshotTransitionShown = false;
+		beginPage();
+		showTransitionWidgets();
+		endPage();
+	}
 
-		addTransitionWidget();
-		addOverlay();
+	private void showTransitionWidgets() {
+		showTransitionWidget();
+		showOverlay();
 
 		if (Context.INSTANCE.getCurrentState().equals(TRANSITION_OUTSIDE)) {
-			addOutsideBubbleLabels();
+			showOutsideBubbleLabels();
+		} else {
+			showInsideBubbleLabels();
+		}
+	}
+
+	/**
+	 * Builds the transition between home-inside and home-outside animating the given snapshots, see
+	 * {@link SnapshotTransition}. The snapshots are closed at the end of the transition.
+	 *
+	 * @param homeSnapshot
+	 *            the snapshot of the home page.
+	 * @param pageSnapshot
+	 *            the snapshot of the inside or outside page.
+	 */
+	public void buildSnapshotTransition(BufferedImage homeSnapshot, BufferedImage pageSnapshot) {
+		this.snapshotTransition.setSnapshots(homeSnapshot, pageSnapshot);
+		this.snapshotTransitionShown = true;
+		beginPage();
+		showChild(this.snapshotTransition, 0, 0, this.displayWidth, this.displayHeight);
+		endPage();
+	}
+
+	/**
+	 * Requests a new render of the transition for the current frame.
+	 */
+	public void renderTransition() {
+		if (this.snapshotTransitionShown) {
+			this.snapshotTransition.requestRender();
 		} else {
-			addInsideBubbleLabels();
+			requestLayOut();
+		}
+	}
+
+	/**
+	 * Logs the statistics of the overlay keyframes, at the {@code FINE} level.
+	 */
+	public void logOverlayStatistics() {
+		this.overlay.logKeyframeStatistics();
+	}
+
+	/**
+	 * Closes the snapshots of the transition, once it is finished.
+	 */
+	public void releaseSnapshots() {
+		this.snapshotTransition.releaseSnapshots();
+	}
+
+	/**
+	 * Renders the displayed page in the given image.
+	 *
+	 * @param image
+	 *            the image of the size of the display to render in.
+	 */
+	public void renderSnapshot(BufferedImage image) {
+		renderSnapshot(image.getGraphicsContext());
+	}
+
+	/**
+	 * Renders the given page in the given image, without displaying it.
+	 * <p>
+	 * The widgets of the page are not activated: they are rendered in the state they were left.
+	 * </p>
+	 *
+	 * @param page
+	 *            the page to render.
+	 * @param image
+	 *            the image of the size of the display to render in.
+	 */
+	public void renderSnapshot(Page page, BufferedImage image) {
+		Widget[] widgets = swapPageWidgets(this.snapshotWidgets);
+		int count = this.pageWidgetsCount;
+		this.pageWidgetsCount = 0;
+		page.build(this);
+		renderSnapshot(image.getGraphicsContext());
+		restorePageWidgets(widgets, count);
+	}
+
+	/**
+	 * Renders the transition between home-inside and home-outside in the given image, without displaying it.
+	 *
+	 * @param image
+	 *            the image of the size of the display to render in.
+	 */
+	public void renderTransitionSnapshot(BufferedImage image) {
+		Widget[] widgets = swapPageWidgets(this.snapshotWidgets);
+		int count = this.pageWidgetsCount;
+		this.pageWidgetsCount = 0;
+		showTransitionWidgets();
+		renderSnapshot(image.getGraphicsContext());
+		restorePageWidgets(widgets, count);
+	}
+
+	private void renderSnapshot(GraphicsContext g) {
+		g.resetTranslation();
+		g.resetClip();
+		render(g);
+	}
+
+	private Widget[] swapPageWidgets(Widget[] widgets) {
+		Widget[] previous = this.pageWidgets;
+		this.pageWidgets = widgets;
+		return previous;
+	}
+
+	private void restorePageWidgets(Widget[] widgets, int count) {
+		Widget[] snapshotWidgets = this.pageWidgets;
+		for (int i = 0; i < this.pageWidgetsCount; i++) {
+			snapshotWidgets[i] = null;
 		}
+		// the snapshot widgets may have been grown
+		this.snapshotWidgets = snapshotWidgets;
+		this.pageWidgets = widgets;
+		this.pageWidgetsCount = count;
 	}
 
 	/**
-	 * Requests a new render of the screen and ticks the {@link BubbleWidget} and {@link TempThresholdPopup}.
+	 * Requests a new render of the {@link Parallax} for the current frame. The {@link BubbleWidget} and the
+	 * {@link TempThresholdPopup} are animated by the {@link FrameClock} on their own.
 	 */
 	public void renderMainCanvas() {
-		this.bubbleWidget.tick();
-		this.tempThresholdPopup.tick();
-		super.requestRender();
+		FrameClock.INSTANCE.requestRender(this.parallax);
 	}
 
 	/**
@@ -202,6 +567,7 @@ public class MainCanvas extends Canvas {
 	 */
 	public void onParallaxFinished() {
 		this.tempThresholdPopup.parallaxRunning(false); // Stop it so the bubble updating goes alone.
+		this.bubbleWidget.parallaxRunning(false);
 		updateBubbleLabels();
 	}
 
@@ -210,6 +576,7 @@ public class MainCanvas extends Canvas {
 	 */
 	public void onParallaxStarted() {
 		this.tempThresholdPopup.parallaxRunning(true);
+		this.bubbleWidget.parallaxRunning(true);
 	}
 
 	/**
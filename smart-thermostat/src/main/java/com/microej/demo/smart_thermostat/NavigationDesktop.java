@@ -8,6 +8,7 @@ package com.microej.demo.smart_thermostat;
 
 import com.microej.demo.smart_thermostat.common.Context;
 import com.microej.demo.smart_thermostat.common.ActionListener;
+import com.microej.demo.smart_thermostat.style.DirtyRegionRenderPolicy;
 import com.microej.demo.smart_thermostat.style.FullScreenRenderPolicy;
 
 import ej.bon.Constants;
@@ -32,6 +33,11 @@ public class NavigationDesktop extends Desktop {
 
 	public static final float SCALE = 1.5f;
 
+	/**
+	 * Name of the constant selecting the {@link DirtyRegionRenderPolicy} instead of the {@link FullScreenRenderPolicy}.
+	 */
+	public static final String DIRTY_REGION_RENDER_POLICY_CONSTANT = "renderpolicy.dirtyregion.enable"; //$NON-NLS-1$
+
 	public static final float TOUCH_HEIGHT_MULTIPLIER = 0.15f;
 
 	private final Rectangle insideClickArea;
@@ -60,6 +66,9 @@ public class NavigationDesktop extends Desktop {
 
 	@Override
 	protected RenderPolicy createRenderPolicy() {
+		if (Constants.getBoolean(DIRTY_REGION_RENDER_POLICY_CONSTANT)) {
+			return new DirtyRegionRenderPolicy(this);
+		}
 		return new FullScreenRenderPolicy(this);
 	}
 
@@ -68,6 +77,9 @@ public class NavigationDesktop extends Desktop {
 		ActionListener action = this.actionListener;
 		Context context = Context.INSTANCE;
 		Context.State state = context.getCurrentState();
+		if (isTouch(event)) {
+			action.onUserInput();
+		}
 		if (!context.inTransition() && isTouch(event)) {
 			Pointer p = getTouchPointer(event);
 			if (state.equals(Context.State.HOME)) {
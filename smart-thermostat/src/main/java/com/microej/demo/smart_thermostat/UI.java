@@ -9,6 +9,8 @@ package com.microej.demo.smart_thermostat;
 import static com.microej.demo.smart_thermostat.NavigationDesktop.scale;
 import static com.microej.demo.smart_thermostat.common.Context.State.*;
 
+import java.util.logging.Logger;
+
 import com.microej.demo.smart_thermostat.common.*;
 import com.microej.demo.smart_thermostat.page.HomePage;
 import com.microej.demo.smart_thermostat.page.InsidePage;
@@ -16,20 +18,22 @@ import com.microej.demo.smart_thermostat.page.OutsidePage;
 import com.microej.demo.smart_thermostat.style.Images;
 import com.microej.demo.smart_thermostat.style.StylesheetBuilder;
 
+import ej.annotation.Nullable;
+import ej.microui.MicroUIException;
+import ej.microui.display.BufferedImage;
 import ej.microui.display.Display;
 import ej.microui.display.ResourceImage;
 import ej.motion.Motion;
 import ej.motion.linear.LinearFunction;
-import ej.motion.sine.SineEaseInOutFunction;
-import ej.widget.motion.MotionAnimation;
 import ej.widget.motion.MotionAnimationListener;
 
 /**
  * UI defines the entry point of the UI.
  */
-public class UI implements ActionListener {
+public class UI implements ActionListener, IdleListener {
+
+	private static final Logger LOGGER = Logger.getLogger(UI.class.getName());
 
-	private static final double HUNDRED = 100d;
 	private static final long TRANSITION_ANIMATION_DURATION = 700;
 	private static final int PARALLAX_ANIMATION_DURATION = 10000;
 	private static final int MOTION_RANGE = scale(40);
@@ -50,12 +54,15 @@ public class UI implements ActionListener {
 	private final MainCanvas mainCanvas;
 
 	private int parallaxAnimationValue;
-	private MotionAnimation motionAnimation;
+	private FrameMotion motionAnimation;
 
 	private int overlayElapsed;
 	private final int halfWidth;
 
 	private final Progress transitionProgress;
+	private final IdleGovernor idleGovernor;
+	private boolean parallaxFrozen;
+	private boolean parallaxRunning;
 
 	/**
 	 * Creates the UI.
@@ -79,17 +86,24 @@ public class UI implements ActionListener {
 		this.outsidePage = new OutsidePage();
 
 		this.desktop = new NavigationDesktop(this);
+		FrameClock.INSTANCE.setAnimator(this.desktop.getAnimator());
 
 		this.desktop.setWidget(this.mainCanvas);
 		this.desktop.setStylesheet(StylesheetBuilder.build());
 
+		// mount the widgets of all the pages before showing the desktop, the navigation then only switches them
+		buildPage(this.insidePage);
+		buildPage(this.outsidePage);
 		buildPage(this.homePage);
 		this.desktop.requestShow();
 		startParallaxMotion();
+
+		this.idleGovernor = new IdleGovernor(this.desktop, this);
+		this.idleGovernor.start();
 	}
 
 	private void buildPage(Page page) {
-		page.build(this.mainCanvas);
+		this.mainCanvas.showPage(page);
 	}
 
 	/**
@@ -106,8 +120,10 @@ public class UI implements ActionListener {
 			return false;
 		}
 		context.setState(TRANSITION_HOME);
-		this.mainCanvas.buildTransition();
-		animateOverlay(this.overlayElapsed, this.overlayElapsed - OVERLAY_RETURN);
+		int src = this.overlayElapsed;
+		int dst = src - OVERLAY_RETURN;
+		buildTransition(src, dst);
+		animateOverlay(src, dst);
 		return true;
 	}
 
@@ -125,8 +141,8 @@ public class UI implements ActionListener {
 			return false;
 		}
 		context.setState(TRANSITION_INSIDE);
-		this.mainCanvas.buildTransition();
 		this.transitionProgress.configure(0, this.halfWidth);
+		buildTransition(OVERLAY_HOME_TO_INSIDE, OVERLAY_INSIDE_END);
 		animateOverlay(OVERLAY_HOME_TO_INSIDE, OVERLAY_INSIDE_END);
 		return true;
 	}
@@ -145,12 +161,59 @@ public class UI implements ActionListener {
 			return false;
 		}
 		context.setState(TRANSITION_OUTSIDE);
-		this.mainCanvas.buildTransition();
 		this.transitionProgress.configure(-this.halfWidth, 0, Progress.Direction.BACKWARD);
+		buildTransition(OVERLAY_HOME_START, OVERLAY_OUTSIDE_END);
 		animateOverlay(OVERLAY_HOME_START, OVERLAY_OUTSIDE_END);
 		return true;
 	}
 
+	private void buildTransition(int src, int dst) {
+		MainCanvas mainCanvas = this.mainCanvas;
+		BufferedImage homeSnapshot = null;
+		BufferedImage pageSnapshot = null;
+		if (MainCanvas.hasSnapshotTransitions()) {
+			homeSnapshot = createSnapshot();
+			if (homeSnapshot != null) {
+				pageSnapshot = createSnapshot();
+				if (pageSnapshot == null) {
+					homeSnapshot.close();
+				}
+			}
+		}
+		if (homeSnapshot == null || pageSnapshot == null) {
+			mainCanvas.buildTransition();
+			FrameTimeRecorder.INSTANCE.start("transition"); //$NON-NLS-1$
+			return;
+		}
+
+		if (Context.INSTANCE.getCurrentState().equals(TRANSITION_HOME)) {
+			mainCanvas.renderSnapshot(pageSnapshot);
+			mainCanvas.renderSnapshot(this.homePage, homeSnapshot);
+		} else {
+			mainCanvas.renderSnapshot(homeSnapshot);
+			// the page is rendered as displayed at the end of the transition
+			int percent = this.transitionProgress.getPercent();
+			this.overlayElapsed = dst;
+			this.transitionProgress.setPercent(FixedPoint.fromInt(Progress.HUNDRED));
+			mainCanvas.renderTransitionSnapshot(pageSnapshot);
+			this.overlayElapsed = src;
+			this.transitionProgress.setPercent(percent);
+		}
+		mainCanvas.buildSnapshotTransition(homeSnapshot, pageSnapshot);
+		FrameTimeRecorder.INSTANCE.start("snapshot transition"); //$NON-NLS-1$
+	}
+
+	private static @Nullable BufferedImage createSnapshot() {
+		Display display = Display.getDisplay();
+		try {
+			return new BufferedImage(display.getWidth(), display.getHeight());
+		} catch (MicroUIException e) {
+			// the images heap is full: the widgets are animated instead
+			LOGGER.warning("cannot allocate the transition snapshot: " + e.getMessage()); //$NON-NLS-1$
+			return null;
+		}
+	}
+
 	private void animateOverlay(int src, int dst) {
 		final Progress motionProgress = new Progress();
 		if (src > dst) {
@@ -160,14 +223,22 @@ public class UI implements ActionListener {
 		}
 		stopAnimation();
 		Motion motion = new Motion(LinearFunction.INSTANCE, src, dst, TRANSITION_ANIMATION_DURATION);
-		this.motionAnimation = new MotionAnimation(this.desktop.getAnimator(), motion, new MotionAnimationListener() {
+		this.motionAnimation = new FrameMotion(motion, new MotionAnimationListener() {
 			@Override
 			public void tick(int value, boolean finished) {
 				UI.this.overlayElapsed = value;
 				motionProgress.setValue(value);
 				UI.this.transitionProgress.setPercent(motionProgress.getPercent());
-				UI.this.mainCanvas.requestLayOut();
+				if (finished || QualityGovernor.INSTANCE.isFrameRendered()) {
+					UI.this.mainCanvas.renderTransition();
+				}
 				if (finished) {
+					FrameTimeRecorder.INSTANCE.stop();
+					QualityGovernor.INSTANCE.reset();
+					UI.this.mainCanvas.releaseSnapshots();
+					LayerCache.getInstance().logStatistics();
+					ResourceCache.getInstance().logStatistics();
+					UI.this.mainCanvas.logOverlayStatistics();
 					Context context = Context.INSTANCE;
 					if (atHome()) {
 						context.setState(HOME);
@@ -199,10 +270,9 @@ public class UI implements ActionListener {
 			max = MOTION_RANGE;
 		}
 		int diff = Math.abs(min - max);
-		double currentPercentage = diff / (double) this.parallaxX * HUNDRED;
-		long duration = (long) (PARALLAX_ANIMATION_DURATION * currentPercentage / HUNDRED);
-		Motion motion = new Motion(SineEaseInOutFunction.INSTANCE, min, max, duration);
-		this.motionAnimation = new MotionAnimation(this.desktop.getAnimator(), motion, new MotionAnimationListener() {
+		long duration = (long) PARALLAX_ANIMATION_DURATION * diff / this.parallaxX;
+		Motion motion = new Motion(LookupTableFunction.SINE_EASE_IN_OUT, min, max, duration);
+		this.motionAnimation = new FrameMotion(motion, new MotionAnimationListener() {
 
 			@Override
 			public void tick(int value, boolean finished) {
@@ -215,6 +285,7 @@ public class UI implements ActionListener {
 			}
 		});
 		this.motionAnimation.start();
+		this.parallaxRunning = true;
 		this.mainCanvas.onParallaxStarted();
 	}
 
@@ -222,6 +293,28 @@ public class UI implements ActionListener {
 		if (this.motionAnimation != null) {
 			this.motionAnimation.stop();
 		}
+		this.parallaxRunning = false;
+	}
+
+	@Override
+	public void onUserInput() {
+		this.idleGovernor.onInput();
+	}
+
+	@Override
+	public void onIdleModeChanged(IdleGovernor.Mode mode) {
+		if (mode != IdleGovernor.Mode.ACTIVE) {
+			QualityGovernor.INSTANCE.reset();
+		}
+		if (mode == IdleGovernor.Mode.FROZEN) {
+			// the parallax restarts from its current position when the user comes back
+			stopAnimation();
+			this.mainCanvas.onParallaxFinished();
+			this.parallaxFrozen = true;
+		} else if (this.parallaxFrozen) {
+			this.parallaxFrozen = false;
+			startParallaxMotion();
+		}
 	}
 
 	/**
@@ -235,6 +328,11 @@ public class UI implements ActionListener {
 		return elapsed == OVERLAY_HOME_START || elapsed == OVERLAY_HOME_TO_INSIDE || elapsed == OVERLAY_HOME_TO_OUTSIDE;
 	}
 
+	@Override
+	public boolean isParallaxRunning() {
+		return this.parallaxRunning;
+	}
+
 	public int getParallaxAnimationValue() {
 		return this.parallaxAnimationValue;
 	}
@@ -23,6 +23,14 @@ public interface ActionListener {
 	 */
 	boolean atHome();
 
+	/**
+	 * Checks if the parallax of the Home page is animated. It is stopped during the transitions and when the animations
+	 * are frozen.
+	 *
+	 * @return {@code true}, if the parallax is animated.
+	 */
+	boolean isParallaxRunning();
+
 	/**
 	 * Navigate to the left which is called inside.
 	 * 
@@ -43,4 +51,9 @@ public interface ActionListener {
 	 * @return {@code true}, if action consumed
 	 */
 	boolean navigateHome();
+
+	/**
+	 * Notifies of a user input, before it is handled.
+	 */
+	void onUserInput();
 }
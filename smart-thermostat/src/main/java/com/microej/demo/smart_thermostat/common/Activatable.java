@@ -0,0 +1,31 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+/**
+ * Widget of a page which is notified when its page is displayed or left.
+ * <p>
+ * The widgets of the pages stay mounted in the main canvas: they are shown once and keep their resources (images,
+ * layers) while the user navigates. The activation replaces the show and hide of the widget for everything that
+ * depends on the displayed page, such as the animations and the model observers.
+ * </p>
+ */
+public interface Activatable {
+
+	/**
+	 * Called in the UI thread when the page of the widget is displayed.
+	 */
+	void onActivated();
+
+	/**
+	 * Called in the UI thread when the page of the widget is left.
+	 * <p>
+	 * The resources which are expensive to load must be kept, the widget may be activated again soon.
+	 * </p>
+	 */
+	void onDeactivated();
+}
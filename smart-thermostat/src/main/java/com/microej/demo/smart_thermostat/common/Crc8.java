@@ -0,0 +1,58 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+/**
+ * Computes the CRC-8 of bytes, with the polynomial 0x07 and the initial value 0.
+ * <p>
+ * The CRC is computed one byte at a time with a table of 256 bytes.
+ * </p>
+ */
+public class Crc8 {
+
+	private static final int POLYNOMIAL = 0x07;
+	private static final byte[] TABLE = createTable();
+
+	/**
+	 * Prevents instantiation.
+	 */
+	private Crc8() {
+		// Nothing to do.
+	}
+
+	/**
+	 * Computes the CRC-8 of bytes.
+	 *
+	 * @param buffer
+	 *            the buffer.
+	 * @param offset
+	 *            the offset of the first byte.
+	 * @param length
+	 *            the number of bytes.
+	 * @return the CRC, between 0 and 255.
+	 */
+	public static int compute(byte[] buffer, int offset, int length) {
+		byte[] table = TABLE;
+		int crc = 0;
+		for (int i = offset; i < offset + length; i++) {
+			crc = table[(crc ^ buffer[i]) & 0xFF] & 0xFF;
+		}
+		return crc;
+	}
+
+	private static byte[] createTable() {
+		byte[] table = new byte[256];
+		for (int i = 0; i < 256; i++) {
+			int crc = i;
+			for (int bit = 0; bit < 8; bit++) {
+				crc = (crc & 0x80) != 0 ? (crc << 1) ^ POLYNOMIAL : crc << 1;
+			}
+			table[i] = (byte) crc;
+		}
+		return table;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Counts the drawing operations of the home page background: the rectangles filled, the images and the vector images
+ * drawn.
+ * <p>
+ * The widgets count their operations when they draw, the render policies mark the end of each frame. Every
+ * {@value #LOG_PERIOD} frames, the average number of operations per frame is logged at the {@code FINE} level.
+ * </p>
+ */
+public class DrawCounter {
+
+	/** The unique instance of the counter. */
+	public static final DrawCounter INSTANCE = new DrawCounter();
+
+	private static final Logger LOGGER = Logger.getLogger(DrawCounter.class.getName());
+	private static final int LOG_PERIOD = 64;
+
+	private int fills;
+	private int images;
+	private int vectorImages;
+	private int frames;
+
+	private DrawCounter() {
+		// singleton
+	}
+
+	/**
+	 * Counts a filled rectangle.
+	 */
+	public void countFill() {
+		this.fills++;
+	}
+
+	/**
+	 * Counts a drawn image.
+	 */
+	public void countImage() {
+		this.images++;
+	}
+
+	/**
+	 * Counts a drawn vector image.
+	 */
+	public void countVectorImage() {
+		this.vectorImages++;
+	}
+
+	/**
+	 * Marks the end of a rendered frame.
+	 */
+	public void endFrame() {
+		if (++this.frames < LOG_PERIOD) {
+			return;
+		}
+		if (LOGGER.isLoggable(Level.FINE)) {
+			float frames = this.frames;
+			LOGGER.fine("per frame: " + this.fills / frames + " fills, " + this.images / frames + " images, " //$NON-NLS-1$ //$NON-NLS-2$
+					+ this.vectorImages / frames + " vector images"); //$NON-NLS-1$
+		}
+		this.fills = 0;
+		this.images = 0;
+		this.vectorImages = 0;
+		this.frames = 0;
+	}
+}
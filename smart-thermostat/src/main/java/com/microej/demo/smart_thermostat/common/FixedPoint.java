@@ -0,0 +1,165 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+/**
+ * Provides fixed-point arithmetic in the Q16.16 format: a value is stored in an {@code int} as the real value multiplied
+ * by {@link #ONE}.
+ * <p>
+ * The fixed-point values avoid the floating-point computations on the per-frame paths: {@code double} operations are
+ * emulated in software on the MCUs with a single-precision FPU, and the integer operations are exact.
+ * </p>
+ */
+public class FixedPoint {
+
+	/**
+	 * The number of bits of the fractional part.
+	 */
+	public static final int SHIFT = 16;
+	/**
+	 * The fixed-point value of 1.
+	 */
+	public static final int ONE = 1 << SHIFT;
+
+	/**
+	 * Prevents instantiation.
+	 */
+	private FixedPoint() {
+		// Nothing to do.
+	}
+
+	/**
+	 * Converts an integer to a fixed-point value.
+	 *
+	 * @param value
+	 *            the integer, between -32768 and 32767.
+	 * @return the fixed-point value.
+	 */
+	public static int fromInt(int value) {
+		return value << SHIFT;
+	}
+
+	/**
+	 * Converts a fixed-point value to an integer, rounding toward zero like a cast.
+	 *
+	 * @param fixed
+	 *            the fixed-point value.
+	 * @return the integer part of the value.
+	 */
+	public static int toInt(int fixed) {
+		return fixed / ONE;
+	}
+
+	/**
+	 * Converts a fixed-point value to the largest integer lower than or equal to it.
+	 *
+	 * @param fixed
+	 *            the fixed-point value.
+	 * @return the floor of the value.
+	 */
+	public static int floor(int fixed) {
+		return fixed >> SHIFT;
+	}
+
+	/**
+	 * Converts a fixed-point value to the closest integer, rounding the halves up.
+	 *
+	 * @param fixed
+	 *            the fixed-point value.
+	 * @return the rounded value.
+	 */
+	public static int round(int fixed) {
+		return (fixed + (ONE >> 1)) >> SHIFT;
+	}
+
+	/**
+	 * Converts a fixed-point value to a float, for the APIs that take floats.
+	 *
+	 * @param fixed
+	 *            the fixed-point value.
+	 * @return the float value.
+	 */
+	public static float toFloat(int fixed) {
+		return (float) fixed / ONE;
+	}
+
+	/**
+	 * Gets the fixed-point value of a ratio of integers.
+	 *
+	 * @param numerator
+	 *            the numerator.
+	 * @param denominator
+	 *            the denominator, not zero.
+	 * @return the fixed-point ratio, rounded toward zero.
+	 */
+	public static int ratio(int numerator, int denominator) {
+		return (int) (((long) numerator << SHIFT) / denominator);
+	}
+
+	/**
+	 * Multiplies two fixed-point values.
+	 *
+	 * @param a
+	 *            the first value.
+	 * @param b
+	 *            the second value.
+	 * @return the fixed-point product, rounded down.
+	 */
+	public static int mul(int a, int b) {
+		return (int) (((long) a * b) >> SHIFT);
+	}
+
+	/**
+	 * Multiplies two values and divides the product by a third one, without intermediate overflow or loss of precision.
+	 * <p>
+	 * When {@code a} and {@code c} have the same format (integer or fixed-point), the result has the format of
+	 * {@code b}.
+	 * </p>
+	 *
+	 * @param a
+	 *            the first factor.
+	 * @param b
+	 *            the second factor.
+	 * @param c
+	 *            the divisor, not zero.
+	 * @return {@code a * b / c}, rounded toward zero.
+	 */
+	public static int mulDiv(int a, int b, int c) {
+		return (int) ((long) a * b / c);
+	}
+
+	/**
+	 * Divides two integers and rounds the quotient to the closest integer, rounding the halves up (toward positive
+	 * infinity), like {@link Math#round(float)}.
+	 *
+	 * @param numerator
+	 *            the numerator.
+	 * @param denominator
+	 *            the denominator, positive.
+	 * @return the rounded quotient.
+	 */
+	public static int roundDiv(int numerator, int denominator) {
+		return floorDiv(2 * numerator + denominator, 2 * denominator);
+	}
+
+	/**
+	 * Divides two integers and rounds the quotient toward negative infinity.
+	 *
+	 * @param numerator
+	 *            the numerator.
+	 * @param denominator
+	 *            the denominator, positive.
+	 * @return the floor of the quotient.
+	 */
+	public static int floorDiv(int numerator, int denominator) {
+		int quotient = numerator / denominator;
+		if (numerator % denominator < 0) {
+			quotient--;
+		}
+		return quotient;
+	}
+}
@@ -0,0 +1,305 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import ej.annotation.Nullable;
+import ej.basictool.ArrayTools;
+import ej.bon.Timer;
+import ej.bon.TimerTask;
+import ej.bon.Util;
+import ej.microui.MicroUI;
+import ej.mwt.Widget;
+import ej.mwt.animation.Animation;
+import ej.mwt.animation.Animator;
+import ej.service.ServiceFactory;
+
+/**
+ * The frame clock drives all the animations of the application.
+ * <p>
+ * The clock is the only animation started on the animator of the desktop. On each frame, it ticks the animations
+ * subscribed to it with the same timestamp, then issues the render requests they made during the frame at once, so
+ * that the animations running together are rendered in a single pass. The clock stops itself when no animation is
+ * running.
+ * </p>
+ * <p>
+ * The frame rate can be lowered with {@link #setFramePeriod(long)}: the frames are then triggered by a timer instead of
+ * the animator. The clock can also be paused, the animations are then no longer ticked until it is resumed.
+ * </p>
+ * <p>
+ * The animations must request their renders with {@link #requestRender(Widget)} instead of
+ * {@link Widget#requestRender()}.
+ * </p>
+ */
+public final class FrameClock implements Animation {
+
+	/**
+	 * The frame clock of the application.
+	 */
+	public static final FrameClock INSTANCE = new FrameClock();
+
+	private @Nullable Animator animator;
+	private Animation[] animations;
+	private Widget[] renderRequests;
+	private int renderRequestsCount;
+	private boolean running;
+	private boolean ticking;
+	private boolean paused;
+	private long framePeriod;
+	private @Nullable TimerTask frameTask;
+	private boolean framePending;
+	private final Runnable frameRunnable;
+	private long frameTime;
+	private long framesCount;
+	private long busyTime;
+
+	/**
+	 * Avoid outside instantiation.
+	 */
+	private FrameClock() {
+		this.animations = new Animation[0];
+		this.renderRequests = new Widget[0];
+		this.frameRunnable = new Runnable() {
+			@Override
+			public void run() {
+				onTimerFrame();
+			}
+		};
+	}
+
+	/**
+	 * Sets the animator running the clock.
+	 *
+	 * @param animator
+	 *            the animator of the desktop.
+	 */
+	public void setAnimator(Animator animator) {
+		this.animator = animator;
+	}
+
+	/**
+	 * Starts an animation: it is ticked on each frame until it returns {@code false} or is stopped.
+	 * <p>
+	 * Starting an animation already running does nothing.
+	 *
+	 * @param animation
+	 *            the animation to start.
+	 */
+	public void start(Animation animation) {
+		if (!ArrayTools.contains(this.animations, animation)) {
+			this.animations = ArrayTools.add(this.animations, animation);
+		}
+		startFrames();
+	}
+
+	/**
+	 * Stops an animation.
+	 *
+	 * @param animation
+	 *            the animation to stop.
+	 */
+	public void stop(Animation animation) {
+		this.animations = ArrayTools.remove(this.animations, animation);
+	}
+
+	/**
+	 * Sets the minimum period between two frames.
+	 *
+	 * @param framePeriod
+	 *            the period in milliseconds, or 0 to tick on each frame of the animator (full rate).
+	 */
+	public void setFramePeriod(long framePeriod) {
+		if (framePeriod != this.framePeriod) {
+			stopFrames();
+			this.framePeriod = framePeriod;
+			startFrames();
+		}
+	}
+
+	/**
+	 * Pauses or resumes the clock. While the clock is paused, the animations are not ticked.
+	 *
+	 * @param paused
+	 *            {@code true} to pause the clock, {@code false} to resume it.
+	 */
+	public void setPaused(boolean paused) {
+		if (paused != this.paused) {
+			this.paused = paused;
+			if (paused) {
+				stopFrames();
+			} else {
+				startFrames();
+			}
+		}
+	}
+
+	/**
+	 * Requests a render of a widget for the current frame.
+	 * <p>
+	 * While the animations are ticked, the requests are collected and issued once all the animations have been ticked.
+	 * Outside of a frame, the render is requested immediately.
+	 *
+	 * @param widget
+	 *            the widget to render.
+	 */
+	public void requestRender(Widget widget) {
+		if (!this.ticking) {
+			widget.requestRender();
+			return;
+		}
+		Widget[] requests = this.renderRequests;
+		int count = this.renderRequestsCount;
+		for (int i = 0; i < count; i++) {
+			if (requests[i] == widget) {
+				return;
+			}
+		}
+		if (count == requests.length) {
+			Widget[] newRequests = new Widget[count + 1];
+			System.arraycopy(requests, 0, newRequests, 0, count);
+			requests = newRequests;
+			this.renderRequests = requests;
+		}
+		requests[count] = widget;
+		this.renderRequestsCount = count + 1;
+	}
+
+	/**
+	 * Gets the timestamp of the last frame.
+	 *
+	 * @return the time of the last frame, in milliseconds.
+	 */
+	public long getFrameTime() {
+		return this.frameTime;
+	}
+
+	/**
+	 * Gets the number of frames ticked by the clock.
+	 *
+	 * @return the number of frames.
+	 */
+	public long getFramesCount() {
+		return this.framesCount;
+	}
+
+	/**
+	 * Gets the cumulated time spent ticking the animations, in milliseconds.
+	 *
+	 * @return the busy time.
+	 */
+	public long getBusyTime() {
+		return this.busyTime;
+	}
+
+	private void startFrames() {
+		if (this.running || this.paused || this.animations.length == 0) {
+			return;
+		}
+		long framePeriod = this.framePeriod;
+		if (framePeriod == 0) {
+			Animator animator = this.animator;
+			if (animator != null) {
+				this.running = true;
+				animator.startAnimation(this);
+			}
+		} else {
+			this.running = true;
+			TimerTask task = new TimerTask() {
+				@Override
+				public void run() {
+					requestTimerFrame();
+				}
+			};
+			this.frameTask = task;
+			ServiceFactory.getService(Timer.class, Timer.class).schedule(task, framePeriod, framePeriod);
+		}
+	}
+
+	private void stopFrames() {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		TimerTask task = this.frameTask;
+		if (task != null) {
+			task.cancel();
+			this.frameTask = null;
+		} else {
+			Animator animator = this.animator;
+			if (animator != null) {
+				animator.stopAnimation(this);
+			}
+		}
+	}
+
+	private void requestTimerFrame() {
+		// a single frame waits in the UI thread queue, the late frames are skipped
+		synchronized (this.frameRunnable) {
+			if (this.framePending) {
+				return;
+			}
+			this.framePending = true;
+		}
+		try {
+			MicroUI.callSerially(this.frameRunnable);
+		} catch (RuntimeException e) {
+			// the event queue is full: the frame is requested again on the next period, without stopping the timer
+			synchronized (this.frameRunnable) {
+				this.framePending = false;
+			}
+		}
+	}
+
+	private void onTimerFrame() {
+		synchronized (this.frameRunnable) {
+			this.framePending = false;
+		}
+		if (this.running && this.frameTask != null) {
+			tick(Util.platformTimeMillis());
+		}
+	}
+
+	@Override
+	public boolean tick(long platformTimeMillis) {
+		long startTime = Util.platformTimeMillis();
+		this.frameTime = platformTimeMillis;
+		this.framesCount++;
+
+		// the animations started or stopped while ticking are taken into account on the next frame
+		Animation[] animations = this.animations;
+		this.ticking = true;
+		try {
+			for (Animation animation : animations) {
+				if (!animation.tick(platformTimeMillis)) {
+					stop(animation);
+				}
+			}
+		} finally {
+			this.ticking = false;
+		}
+
+		Widget[] requests = this.renderRequests;
+		int count = this.renderRequestsCount;
+		for (int i = 0; i < count; i++) {
+			requests[i].requestRender();
+			requests[i] = null;
+		}
+		this.renderRequestsCount = 0;
+		this.busyTime += Util.platformTimeMillis() - startTime;
+
+		if (this.animations.length == 0) {
+			// the timer is canceled, the animator removes the clock when it returns false
+			TimerTask task = this.frameTask;
+			if (task != null) {
+				task.cancel();
+				this.frameTask = null;
+			}
+			this.running = false;
+			return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import ej.bon.Util;
+import ej.motion.Motion;
+import ej.mwt.animation.Animation;
+import ej.widget.motion.MotionAnimationListener;
+
+/**
+ * Animates a {@link Motion} on the {@link FrameClock}.
+ * <p>
+ * On each frame, the listener is given the value of the motion at the time of the frame.
+ * </p>
+ */
+public class FrameMotion implements Animation {
+
+	private final Motion motion;
+	private final MotionAnimationListener listener;
+	private long startTime;
+
+	/**
+	 * Creates a frame motion.
+	 *
+	 * @param motion
+	 *            the motion to animate.
+	 * @param listener
+	 *            the listener notified of the values of the motion.
+	 */
+	public FrameMotion(Motion motion, MotionAnimationListener listener) {
+		this.motion = motion;
+		this.listener = listener;
+	}
+
+	/**
+	 * Starts the motion.
+	 */
+	public void start() {
+		this.startTime = Util.platformTimeMillis();
+		FrameClock.INSTANCE.start(this);
+	}
+
+	/**
+	 * Stops the motion.
+	 */
+	public void stop() {
+		FrameClock.INSTANCE.stop(this);
+	}
+
+	@Override
+	public boolean tick(long platformTimeMillis) {
+		Motion motion = this.motion;
+		long elapsedTime = platformTimeMillis - this.startTime;
+		boolean finished = elapsedTime >= motion.getDuration();
+		this.listener.tick(motion.getValue(elapsedTime), finished);
+		return !finished;
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ej.annotation.Nullable;
+
+/**
+ * Records the render time of the frames during a sequence, such as a page transition, and logs its minimum, 95th
+ * percentile and maximum at the end of the sequence.
+ * <p>
+ * The render policies report the duration of each rendered frame. The durations are only kept while a sequence is
+ * recorded, up to {@value #MAX_FRAMES} frames.
+ * </p>
+ */
+public class FrameTimeRecorder {
+
+	/** The unique instance of the recorder. */
+	public static final FrameTimeRecorder INSTANCE = new FrameTimeRecorder();
+
+	private static final Logger LOGGER = Logger.getLogger(FrameTimeRecorder.class.getName());
+
+	private static final int MAX_FRAMES = 128;
+	private static final int PERCENTILE = 95;
+	private static final int HUNDRED = 100;
+
+	private final long[] durations;
+	private int count;
+	private @Nullable String sequence;
+
+	private FrameTimeRecorder() {
+		this.durations = new long[MAX_FRAMES];
+	}
+
+	/**
+	 * Starts recording a sequence of frames. A sequence already recorded is dropped.
+	 *
+	 * @param sequence
+	 *            the name of the sequence, used in the log.
+	 */
+	public void start(String sequence) {
+		this.sequence = sequence;
+		this.count = 0;
+	}
+
+	/**
+	 * Reports the render time of a frame.
+	 *
+	 * @param duration
+	 *            the time spent rendering the frame, in milliseconds.
+	 */
+	public void record(long duration) {
+		int count = this.count;
+		if (this.sequence != null && count < MAX_FRAMES) {
+			this.durations[count] = duration;
+			this.count = count + 1;
+		}
+	}
+
+	/**
+	 * Stops recording the current sequence and logs its statistics, at the {@code INFO} level.
+	 */
+	public void stop() {
+		String sequence = this.sequence;
+		if (sequence == null) {
+			return;
+		}
+		this.sequence = null;
+
+		int count = this.count;
+		if (count == 0 || !LOGGER.isLoggable(Level.INFO)) {
+			return;
+		}
+		long[] durations = this.durations;
+		sort(durations, count);
+		// nearest rank percentile
+		int percentileIndex = (count * PERCENTILE + HUNDRED - 1) / HUNDRED - 1;
+		LOGGER.info(sequence + ": " + count + " frames, min " + durations[0] + " ms, p95 " //$NON-NLS-1$ //$NON-NLS-2$
+				+ durations[percentileIndex] + " ms, max " + durations[count - 1] + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static void sort(long[] values, int count) {
+		// few frames per sequence: insertion sort
+		for (int i = 1; i < count; i++) {
+			long value = values[i];
+			int j = i - 1;
+			while (j >= 0 && values[j] > value) {
+				values[j + 1] = values[j];
+				j--;
+			}
+			values[j + 1] = value;
+		}
+	}
+}
@@ -0,0 +1,272 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microej.demo.smart_thermostat.style.DirtyRegionRenderPolicy;
+
+import ej.annotation.Nullable;
+import ej.bon.Constants;
+import ej.bon.Timer;
+import ej.bon.TimerTask;
+import ej.bon.Util;
+import ej.microui.MicroUI;
+import ej.mwt.Desktop;
+import ej.mwt.render.RenderPolicy;
+import ej.service.ServiceFactory;
+
+/**
+ * Lowers the frame rate of the animations when the user does not interact with the home page.
+ * <p>
+ * After {@value #THROTTLE_DELAY_CONSTANT} milliseconds without pointer input, the {@link FrameClock} ticks at most once
+ * every {@value #THROTTLE_PERIOD_CONSTANT} milliseconds. After {@value #FREEZE_DELAY_CONSTANT} milliseconds, the clock
+ * is paused: only the renders requested by the data changes are done. The next input restores the full rate. A delay
+ * of 0 disables its step.
+ * </p>
+ * <p>
+ * The number of rendered frames and the time spent animating and rendering are counted for each mode, and logged at the
+ * {@code INFO} level on each mode change.
+ * </p>
+ */
+public class IdleGovernor {
+
+	/**
+	 * The mode of the governor.
+	 */
+	public enum Mode {
+		/**
+		 * The animations run at full rate.
+		 */
+		ACTIVE,
+		/**
+		 * The animations run at a lower rate.
+		 */
+		THROTTLED,
+		/**
+		 * The animations are paused.
+		 */
+		FROZEN
+	}
+
+	/** Name of the constant enabling the governor. */
+	public static final String ENABLE_CONSTANT = "idle.enable"; //$NON-NLS-1$
+	/** Name of the constant defining the delay without input before lowering the frame rate, in milliseconds. */
+	public static final String THROTTLE_DELAY_CONSTANT = "idle.throttle.delay"; //$NON-NLS-1$
+	/** Name of the constant defining the period between two frames at the lower frame rate, in milliseconds. */
+	public static final String THROTTLE_PERIOD_CONSTANT = "idle.throttle.period"; //$NON-NLS-1$
+	/** Name of the constant defining the delay without input before pausing the animations, in milliseconds. */
+	public static final String FREEZE_DELAY_CONSTANT = "idle.freeze.delay"; //$NON-NLS-1$
+
+	private static final Logger LOGGER = Logger.getLogger(IdleGovernor.class.getName());
+	private static final long CHECK_PERIOD = 1000;
+
+	private final Desktop desktop;
+	private final IdleListener listener;
+	private final long throttleDelay;
+	private final long throttlePeriod;
+	private final long freezeDelay;
+
+	private long lastInputTime;
+	private Mode mode;
+	private @Nullable TimerTask checkTask;
+	private final Runnable checkRunnable;
+
+	// statistics, indexed by mode ordinal
+	private final long[] frames;
+	private final long[] busyTimes;
+	private final long[] durations;
+	private long modeStartTime;
+	private long modeStartFrames;
+	private long modeStartBusyTime;
+
+	/**
+	 * Creates an idle governor configured by the constants.
+	 *
+	 * @param desktop
+	 *            the desktop, whose render policy gives the rendered frames.
+	 * @param listener
+	 *            the listener notified of the mode changes.
+	 */
+	public IdleGovernor(Desktop desktop, IdleListener listener) {
+		this.desktop = desktop;
+		this.listener = listener;
+		this.throttleDelay = Constants.getLong(THROTTLE_DELAY_CONSTANT);
+		this.throttlePeriod = Constants.getLong(THROTTLE_PERIOD_CONSTANT);
+		this.freezeDelay = Constants.getLong(FREEZE_DELAY_CONSTANT);
+		this.mode = Mode.ACTIVE;
+		int modesCount = Mode.values().length;
+		this.frames = new long[modesCount];
+		this.busyTimes = new long[modesCount];
+		this.durations = new long[modesCount];
+		this.checkRunnable = new Runnable() {
+			@Override
+			public void run() {
+				check();
+			}
+		};
+	}
+
+	/**
+	 * Starts watching the inputs, if the governor is enabled.
+	 */
+	public void start() {
+		if (!Constants.getBoolean(ENABLE_CONSTANT) || this.checkTask != null) {
+			return;
+		}
+		long now = Util.platformTimeMillis();
+		this.lastInputTime = now;
+		startModeStatistics(now);
+		TimerTask task = new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					MicroUI.callSerially(IdleGovernor.this.checkRunnable);
+				} catch (RuntimeException e) {
+					// the event queue is full: the inputs are checked again on the next period, without stopping the
+					// timer
+				}
+			}
+		};
+		this.checkTask = task;
+		ServiceFactory.getService(Timer.class, Timer.class).schedule(task, CHECK_PERIOD, CHECK_PERIOD);
+	}
+
+	/**
+	 * Stops watching the inputs and restores the full rate.
+	 */
+	public void stop() {
+		TimerTask task = this.checkTask;
+		if (task != null) {
+			task.cancel();
+			this.checkTask = null;
+			setMode(Mode.ACTIVE);
+		}
+	}
+
+	/**
+	 * Notifies the governor of a user input. Must be called in the UI thread.
+	 */
+	public void onInput() {
+		this.lastInputTime = Util.platformTimeMillis();
+		if (this.mode != Mode.ACTIVE) {
+			setMode(Mode.ACTIVE);
+		}
+	}
+
+	/**
+	 * Gets the current mode.
+	 *
+	 * @return the current mode.
+	 */
+	public Mode getMode() {
+		return this.mode;
+	}
+
+	/**
+	 * Gets the number of frames rendered in a mode, not counting the current period in this mode.
+	 *
+	 * @param mode
+	 *            the mode.
+	 * @return the number of frames.
+	 */
+	public long getFramesCount(Mode mode) {
+		return this.frames[mode.ordinal()];
+	}
+
+	/**
+	 * Gets the time spent animating and rendering in a mode, not counting the current period in this mode.
+	 *
+	 * @param mode
+	 *            the mode.
+	 * @return the busy time, in milliseconds.
+	 */
+	public long getBusyTime(Mode mode) {
+		return this.busyTimes[mode.ordinal()];
+	}
+
+	/**
+	 * Gets the time spent in a mode, not counting the current period in this mode.
+	 *
+	 * @param mode
+	 *            the mode.
+	 * @return the duration, in milliseconds.
+	 */
+	public long getDuration(Mode mode) {
+		return this.durations[mode.ordinal()];
+	}
+
+	// Called in the UI thread.
+	private void check() {
+		if (Context.INSTANCE.getCurrentState() != Context.State.HOME) {
+			// only the home page animates continuously
+			return;
+		}
+		long idleTime = Util.platformTimeMillis() - this.lastInputTime;
+		Mode newMode;
+		if (this.freezeDelay > 0 && idleTime >= this.freezeDelay) {
+			newMode = Mode.FROZEN;
+		} else if (this.throttleDelay > 0 && idleTime >= this.throttleDelay) {
+			newMode = Mode.THROTTLED;
+		} else {
+			newMode = Mode.ACTIVE;
+		}
+		if (newMode.ordinal() > this.mode.ordinal()) {
+			setMode(newMode);
+		}
+	}
+
+	private void setMode(Mode newMode) {
+		Mode oldMode = this.mode;
+		if (newMode == oldMode) {
+			return;
+		}
+		long now = Util.platformTimeMillis();
+		int index = oldMode.ordinal();
+		long frames = getRenderedFrames() - this.modeStartFrames;
+		long busyTime = getBusyTime() - this.modeStartBusyTime;
+		long duration = now - this.modeStartTime;
+		this.frames[index] += frames;
+		this.busyTimes[index] += busyTime;
+		this.durations[index] += duration;
+		if (LOGGER.isLoggable(Level.INFO)) {
+			LOGGER.info(oldMode + " -> " + newMode + ": " + frames + " frames, " + busyTime + " ms busy in " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ duration + " ms"); //$NON-NLS-1$
+		}
+		startModeStatistics(now);
+		this.mode = newMode;
+
+		FrameClock clock = FrameClock.INSTANCE;
+		clock.setFramePeriod(newMode == Mode.THROTTLED ? this.throttlePeriod : 0);
+		clock.setPaused(newMode == Mode.FROZEN);
+		this.listener.onIdleModeChanged(newMode);
+	}
+
+	private void startModeStatistics(long now) {
+		this.modeStartTime = now;
+		this.modeStartFrames = getRenderedFrames();
+		this.modeStartBusyTime = getBusyTime();
+	}
+
+	private long getRenderedFrames() {
+		RenderPolicy renderPolicy = this.desktop.getRenderPolicy();
+		if (renderPolicy instanceof DirtyRegionRenderPolicy) {
+			return ((DirtyRegionRenderPolicy) renderPolicy).getRenderedFrames();
+		}
+		return FrameClock.INSTANCE.getFramesCount();
+	}
+
+	private long getBusyTime() {
+		long busyTime = FrameClock.INSTANCE.getBusyTime();
+		RenderPolicy renderPolicy = this.desktop.getRenderPolicy();
+		if (renderPolicy instanceof DirtyRegionRenderPolicy) {
+			busyTime += ((DirtyRegionRenderPolicy) renderPolicy).getRenderTime();
+		}
+		return busyTime;
+	}
+}
@@ -0,0 +1,21 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+/**
+ * Listener notified when the {@link IdleGovernor} changes of mode.
+ */
+public interface IdleListener {
+
+	/**
+	 * Called in the UI thread when the mode changes.
+	 *
+	 * @param mode
+	 *            the new mode.
+	 */
+	void onIdleModeChanged(IdleGovernor.Mode mode);
+}
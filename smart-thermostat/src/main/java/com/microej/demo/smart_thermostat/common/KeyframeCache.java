@@ -0,0 +1,146 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ej.annotation.Nullable;
+import ej.bon.Constants;
+import ej.microui.display.BufferedImage;
+import ej.microui.display.Format;
+import ej.microui.display.GraphicsContext;
+import ej.microui.display.Painter;
+import ej.microvg.Matrix;
+import ej.microvg.VectorGraphicsPainter;
+import ej.microvg.VectorImage;
+
+/**
+ * Rasterized keyframes of an animated vector image, drawn instead of the vector image while it is in motion.
+ * <p>
+ * The duration of the animation is divided in the number of keyframes defined by the {@value #COUNT_CONSTANT}
+ * constant. During the motion, the keyframe nearest to the requested time is drawn. The keyframes are rasterized the
+ * first time they are needed, in transparent {@link Format#ARGB8888} images, as long as they fit in the byte budget
+ * defined by the {@value #BUDGET_CONSTANT} constant. Once the budget is reached, the missing keyframes are not
+ * rasterized and the vector image is drawn instead.
+ * </p>
+ * <p>
+ * At rest, the vector image is always drawn at the exact time.
+ * </p>
+ */
+public class KeyframeCache {
+
+	/** Name of the constant defining the number of keyframes over the duration of the animation. */
+	public static final String COUNT_CONSTANT = "keyframes.count"; //$NON-NLS-1$
+	/** Name of the constant defining the byte budget of the keyframes. */
+	public static final String BUDGET_CONSTANT = "keyframes.budget"; //$NON-NLS-1$
+
+	private static final Logger LOGGER = Logger.getLogger(KeyframeCache.class.getName());
+	private static final int ARGB8888_BYTES = 4;
+
+	private final VectorImage image;
+	private final Matrix matrix;
+	private final int width;
+	private final int height;
+	private final long period;
+	private final int keyframeSize;
+	private final int budget;
+	private final @Nullable BufferedImage[] keyframes;
+	private int usedBytes;
+
+	private int hits;
+	private int rasterizations;
+
+	/**
+	 * Creates the keyframe cache of an animated vector image. No keyframe is rasterized yet.
+	 *
+	 * @param image
+	 *            the animated vector image.
+	 * @param matrix
+	 *            the matrix to draw the image with.
+	 * @param width
+	 *            the width of the keyframes.
+	 * @param height
+	 *            the height of the keyframes.
+	 */
+	public KeyframeCache(VectorImage image, Matrix matrix, int width, int height) {
+		this.image = image;
+		this.matrix = matrix;
+		this.width = width;
+		this.height = height;
+		int count = Constants.getInt(COUNT_CONSTANT);
+		boolean supported = count > 0 && BufferedImage.isFormatSupported(Format.ARGB8888);
+		this.period = supported ? Math.max(1, image.getDuration() / count) : 1;
+		this.keyframeSize = width * height * ARGB8888_BYTES;
+		this.budget = supported ? Constants.getInt(BUDGET_CONSTANT) : 0;
+		this.keyframes = new BufferedImage[supported ? count + 1 : 0];
+	}
+
+	/**
+	 * Draws the animated image at the given time.
+	 *
+	 * @param g
+	 *            the graphics context.
+	 * @param time
+	 *            the elapsed time of the animation.
+	 * @param moving
+	 *            {@code true} if the animation is in motion and a keyframe may be drawn, {@code false} to draw the
+	 *            exact time.
+	 */
+	public void draw(GraphicsContext g, long time, boolean moving) {
+		BufferedImage keyframe = moving ? getKeyframe(time) : null;
+		if (keyframe != null) {
+			Painter.drawImage(g, keyframe, 0, 0);
+		} else {
+			VectorGraphicsPainter.drawAnimatedImage(g, this.image, this.matrix, time);
+		}
+	}
+
+	/**
+	 * Gets the size of the rasterized keyframes in bytes.
+	 *
+	 * @return the used bytes.
+	 */
+	public int getUsedBytes() {
+		return this.usedBytes;
+	}
+
+	/**
+	 * Logs the cache statistics, at the {@code FINE} level.
+	 */
+	public void logStatistics() {
+		if (LOGGER.isLoggable(Level.FINE)) {
+			LOGGER.fine("keyframes: " + this.usedBytes / this.keyframeSize + ", used: " + this.usedBytes + "/" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ this.budget + " bytes, hits: " + this.hits + ", rasterizations: " + this.rasterizations); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private @Nullable BufferedImage getKeyframe(long time) {
+		BufferedImage[] keyframes = this.keyframes;
+		long period = this.period;
+		int index = (int) ((time + period / 2) / period);
+		if (index < 0 || index >= keyframes.length) {
+			return null;
+		}
+		BufferedImage keyframe = keyframes[index];
+		if (keyframe != null) {
+			this.hits++;
+			return keyframe;
+		}
+		if (this.usedBytes + this.keyframeSize > this.budget) {
+			return null;
+		}
+		// a new image in this format is fully transparent
+		keyframe = new BufferedImage(this.width, this.height, Format.ARGB8888);
+		GraphicsContext keyframeGc = keyframe.getGraphicsContext();
+		VectorGraphicsPainter.drawAnimatedImage(keyframeGc, this.image, this.matrix, index * period);
+		keyframes[index] = keyframe;
+		this.usedBytes += this.keyframeSize;
+		this.rasterizations++;
+		return keyframe;
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import ej.microui.display.BufferedImage;
+
+/**
+ * An offscreen layer managed by the {@link LayerCache}.
+ * <p>
+ * A layer is invalid when it has just been allocated or when its owner invalidated it: its content has to be drawn
+ * again before being used.
+ * </p>
+ */
+public class Layer {
+
+	private final String key;
+	private final BufferedImage image;
+	private final int size;
+	private boolean valid;
+	private long lastUse;
+
+	/**
+	 * Creates a layer.
+	 *
+	 * @param key
+	 *            the key of the layer in the cache.
+	 * @param image
+	 *            the image holding the layer content.
+	 * @param size
+	 *            the size of the image in bytes.
+	 */
+	Layer(String key, BufferedImage image, int size) {
+		this.key = key;
+		this.image = image;
+		this.size = size;
+	}
+
+	/**
+	 * Gets the key of this layer.
+	 *
+	 * @return the key.
+	 */
+	public String getKey() {
+		return this.key;
+	}
+
+	/**
+	 * Gets the image holding the content of this layer.
+	 *
+	 * @return the image.
+	 */
+	public BufferedImage getImage() {
+		return this.image;
+	}
+
+	/**
+	 * Gets whether the content of this layer is up to date.
+	 *
+	 * @return {@code true}, if the content can be used as is.
+	 */
+	public boolean isValid() {
+		return this.valid;
+	}
+
+	/**
+	 * Marks the content of this layer as up to date. To be called once the content has been drawn.
+	 */
+	public void validate() {
+		this.valid = true;
+	}
+
+	/**
+	 * Marks the content of this layer as outdated.
+	 */
+	public void invalidate() {
+		this.valid = false;
+	}
+
+	int getSize() {
+		return this.size;
+	}
+
+	long getLastUse() {
+		return this.lastUse;
+	}
+
+	void setLastUse(long lastUse) {
+		this.lastUse = lastUse;
+	}
+
+	void close() {
+		this.valid = false;
+		this.image.close();
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import ej.annotation.Nullable;
+import ej.bon.Constants;
+import ej.microui.display.BufferedImage;
+import ej.microui.display.Display;
+
+/**
+ * Shared cache of the offscreen layers used by the widgets.
+ * <p>
+ * Widgets ask for a layer by key and size. The layers are kept across renders and page switches, as long as the total
+ * size of the allocated layers fits in the byte budget defined by the {@value #BUDGET_CONSTANT} constant. When a new
+ * layer does not fit, the least recently used layers are closed first.
+ * </p>
+ */
+public class LayerCache {
+
+	/** Name of the constant defining the byte budget of the cache. */
+	public static final String BUDGET_CONSTANT = "layercache.budget"; //$NON-NLS-1$
+
+	private static final Logger LOGGER = Logger.getLogger(LayerCache.class.getName());
+	private static final int BITS_PER_BYTE = 8;
+
+	private static final LayerCache INSTANCE = new LayerCache(Constants.getInt(BUDGET_CONSTANT));
+
+	private final int budget;
+	private final List<Layer> layers;
+	private int usedBytes;
+	private long useCounter;
+
+	private int hits;
+	private int misses;
+	private int evictions;
+
+	private LayerCache(int budget) {
+		this.budget = budget;
+		this.layers = new ArrayList<>();
+	}
+
+	/**
+	 * Gets the layer cache instance.
+	 *
+	 * @return the layer cache.
+	 */
+	public static LayerCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the layer associated to the given key.
+	 * <p>
+	 * If a layer with the same key and size is cached, it is returned with its content. Otherwise, a new invalid layer
+	 * is allocated and its content has to be drawn before using it.
+	 * </p>
+	 * <p>
+	 * The returned layer may be closed by a later call to this method, so it must not be kept between two renders.
+	 * </p>
+	 *
+	 * @param key
+	 *            the key identifying the layer.
+	 * @param width
+	 *            the width of the layer.
+	 * @param height
+	 *            the height of the layer.
+	 * @return the layer.
+	 */
+	public Layer getLayer(String key, int width, int height) {
+		Layer layer = findLayer(key);
+		if (layer != null) {
+			BufferedImage image = layer.getImage();
+			if (image.getWidth() == width && image.getHeight() == height) {
+				this.hits++;
+				layer.setLastUse(++this.useCounter);
+				return layer;
+			}
+			// size changed: reallocate
+			removeLayer(layer);
+		}
+		this.misses++;
+
+		int size = computeSize(width, height);
+		makeRoom(size);
+		layer = new Layer(key, new BufferedImage(width, height), size);
+		layer.setLastUse(++this.useCounter);
+		this.layers.add(layer);
+		this.usedBytes += size;
+		return layer;
+	}
+
+	/**
+	 * Invalidates the layer associated to the given key, if it is cached. Its memory is kept.
+	 *
+	 * @param key
+	 *            the key identifying the layer.
+	 */
+	public void invalidate(String key) {
+		Layer layer = findLayer(key);
+		if (layer != null) {
+			layer.invalidate();
+		}
+	}
+
+	/**
+	 * Closes the layer associated to the given key, if it is cached.
+	 *
+	 * @param key
+	 *            the key identifying the layer.
+	 */
+	public void release(String key) {
+		Layer layer = findLayer(key);
+		if (layer != null) {
+			removeLayer(layer);
+		}
+	}
+
+	/**
+	 * Gets the number of requests that have been served by a cached layer.
+	 *
+	 * @return the number of hits.
+	 */
+	public int getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Gets the number of requests that needed a layer allocation.
+	 *
+	 * @return the number of misses.
+	 */
+	public int getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Gets the number of layers that have been closed to fit in the budget.
+	 *
+	 * @return the number of evictions.
+	 */
+	public int getEvictions() {
+		return this.evictions;
+	}
+
+	/**
+	 * Gets the total size of the cached layers in bytes.
+	 *
+	 * @return the used bytes.
+	 */
+	public int getUsedBytes() {
+		return this.usedBytes;
+	}
+
+	/**
+	 * Gets the byte budget of the cache.
+	 *
+	 * @return the budget in bytes.
+	 */
+	public int getBudget() {
+		return this.budget;
+	}
+
+	/**
+	 * Logs the cache statistics, at the {@code FINE} level.
+	 */
+	public void logStatistics() {
+		LOGGER.fine("layers: " + this.layers.size() + ", used: " + this.usedBytes + "/" + this.budget //$NON-NLS-1$
+				+ " bytes, hits: " + this.hits + ", misses: " + this.misses + ", evictions: " + this.evictions);
+	}
+
+	private void makeRoom(int size) {
+		List<Layer> layers = this.layers;
+		while (!layers.isEmpty() && this.usedBytes + size > this.budget) {
+			Layer leastRecentlyUsed = layers.get(0);
+			for (Layer layer : layers) {
+				if (layer.getLastUse() < leastRecentlyUsed.getLastUse()) {
+					leastRecentlyUsed = layer;
+				}
+			}
+			LOGGER.fine("evicting layer " + leastRecentlyUsed.getKey()); //$NON-NLS-1$
+			removeLayer(leastRecentlyUsed);
+			this.evictions++;
+		}
+		if (size > this.budget) {
+			LOGGER.warning("layer larger than the cache budget: " + size + " bytes"); //$NON-NLS-1$
+		}
+	}
+
+	private void removeLayer(Layer layer) {
+		this.layers.remove(layer);
+		this.usedBytes -= layer.getSize();
+		layer.close();
+	}
+
+	private @Nullable Layer findLayer(String key) {
+		for (Layer layer : this.layers) {
+			if (layer.getKey().equals(key)) {
+				return layer;
+			}
+		}
+		return null;
+	}
+
+	private static int computeSize(int width, int height) {
+		int bitsPerPixel = Display.getDisplay().getPixelDepth();
+		return (width * height * bitsPerPixel + BITS_PER_BYTE - 1) / BITS_PER_BYTE;
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ej.bon.Constants;
+import ej.motion.Function;
+import ej.motion.sine.SineEaseInFunction;
+import ej.motion.sine.SineEaseInOutFunction;
+
+/**
+ * Function approximating another function with a lookup table.
+ * <p>
+ * The table holds the values of the approximated function at regular steps, and the values in between are linearly
+ * interpolated. The table is built once, so computing a value does not evaluate any trigonometric function: the
+ * functions used on each animation tick are shared instances of this class.
+ * </p>
+ * <p>
+ * The maximum error is measured in the middle of each interval, where the linear interpolation is the furthest from a
+ * smooth curve, the first time it is requested (see {@link #getMaxError()}), and logged at the {@code FINE} level.
+ * </p>
+ */
+public class LookupTableFunction implements Function {
+
+	/** Name of the constant defining the number of intervals of the easing tables. */
+	public static final String TABLE_SIZE_CONSTANT = "easing.table.size"; //$NON-NLS-1$
+
+	private static final Logger LOGGER = Logger.getLogger(LookupTableFunction.class.getName());
+	private static final int TABLE_SIZE = Constants.getInt(TABLE_SIZE_CONSTANT);
+
+	/**
+	 * Lookup table approximation of {@link SineEaseInFunction}.
+	 */
+	public static final LookupTableFunction SINE_EASE_IN = new LookupTableFunction(SineEaseInFunction.INSTANCE,
+			TABLE_SIZE);
+	/**
+	 * Lookup table approximation of {@link SineEaseInOutFunction}.
+	 */
+	public static final LookupTableFunction SINE_EASE_IN_OUT = new LookupTableFunction(SineEaseInOutFunction.INSTANCE,
+			TABLE_SIZE);
+
+	private final Function function;
+	private final float[] table;
+	private final int intervals;
+	private float maxError;
+
+	/**
+	 * Creates a lookup table function.
+	 *
+	 * @param function
+	 *            the function to approximate, on the [0, 1] range.
+	 * @param intervals
+	 *            the number of intervals of the table.
+	 * @throws IllegalArgumentException
+	 *             if the number of intervals is not positive.
+	 */
+	public LookupTableFunction(Function function, int intervals) {
+		if (intervals <= 0) {
+			throw new IllegalArgumentException("intervals must be positive"); //$NON-NLS-1$
+		}
+		float[] table = new float[intervals + 1];
+		for (int i = 0; i <= intervals; i++) {
+			table[i] = function.computeValue((float) i / intervals);
+		}
+		this.function = function;
+		this.table = table;
+		this.intervals = intervals;
+		this.maxError = -1;
+	}
+
+	@Override
+	public float computeValue(float t) {
+		int intervals = this.intervals;
+		if (t <= 0) {
+			return this.table[0];
+		}
+		if (t >= 1) {
+			return this.table[intervals];
+		}
+		float position = t * intervals;
+		int index = (int) position;
+		float[] table = this.table;
+		float start = table[index];
+		return start + (table[index + 1] - start) * (position - index);
+	}
+
+	/**
+	 * Gets the maximum error of the approximation, measured in the middle of the intervals.
+	 * <p>
+	 * Multiplied by the range of a motion, it gives the largest deviation of a tick value, which should stay below the
+	 * visible step of the animated property (a pixel or an alpha level).
+	 *
+	 * @return the maximum error, relative to the [0, 1] range of the function.
+	 */
+	public float getMaxError() {
+		float maxError = this.maxError;
+		if (maxError < 0) {
+			// not measured yet: evaluates the approximated function, which is not needed by the animations
+			Function function = this.function;
+			int intervals = this.intervals;
+			maxError = 0;
+			for (int i = 0; i < intervals; i++) {
+				float t = (i + 0.5f) / intervals;
+				maxError = Math.max(maxError, Math.abs(function.computeValue(t) - computeValue(t)));
+			}
+			this.maxError = maxError;
+			if (LOGGER.isLoggable(Level.FINE)) {
+				LOGGER.fine(function.getClass().getSimpleName() + " table: " + intervals + " intervals, max error " //$NON-NLS-1$ //$NON-NLS-2$
+						+ maxError);
+			}
+		}
+		return maxError;
+	}
+}
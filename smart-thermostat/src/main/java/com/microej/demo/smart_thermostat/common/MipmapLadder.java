@@ -0,0 +1,156 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ej.bon.Constants;
+import ej.bon.Util;
+import ej.drawing.TransformPainter;
+import ej.microui.display.BufferedImage;
+import ej.microui.display.Display;
+import ej.microui.display.GraphicsContext;
+import ej.microui.display.Image;
+import ej.microui.display.Painter;
+
+/**
+ * Reduced copies of an opaque image drawn at a continuously changing scale, such as the backgrounds scaled by the
+ * transition.
+ * <p>
+ * The levels are computed once, each one reduced from the source image by the ratio defined by the
+ * {@value #RATIO_CONSTANT} constant (in percent) relative to the previous level, down to the smallest width the image
+ * is drawn at. A draw scales the smallest level which is at least as large as the requested width, so that fewer source
+ * pixels are read, and draws it without scaling when the widths match. The levels are computed, from the largest, as
+ * long as their size fits in the remaining byte budget defined by the {@value #BUDGET_CONSTANT} constant: a level
+ * too large is skipped and the smaller ones are still computed. A budget of 0 always scales the source image. A ladder
+ * left without level by a budget too small is logged at the {@code INFO} level.
+ * </p>
+ */
+public class MipmapLadder {
+
+	/** Name of the constant defining the byte budget of the levels of each ladder. */
+	public static final String BUDGET_CONSTANT = "mipmap.budget"; //$NON-NLS-1$
+	/** Name of the constant defining the width of a level relative to the previous one, in percent. */
+	public static final String RATIO_CONSTANT = "mipmap.ratio"; //$NON-NLS-1$
+
+	private static final Logger LOGGER = Logger.getLogger(MipmapLadder.class.getName());
+	private static final int BITS_PER_BYTE = 8;
+	private static final int HUNDRED = 100;
+
+	private final Image source;
+	// levels from the largest to the smallest, all smaller than the source
+	private final BufferedImage[] levels;
+	private final int bytes;
+
+	/**
+	 * Creates the ladder of the given image and computes its levels.
+	 *
+	 * @param source
+	 *            the opaque image to reduce.
+	 * @param minWidth
+	 *            the smallest width the image is drawn at.
+	 */
+	public MipmapLadder(Image source, int minWidth) {
+		this.source = source;
+		long start = Util.platformTimeMillis();
+
+		int budget = Constants.getInt(BUDGET_CONSTANT);
+		int ratio = Constants.getInt(RATIO_CONSTANT);
+		int bitsPerPixel = Display.getDisplay().getPixelDepth();
+		int sourceWidth = source.getWidth();
+		int sourceHeight = source.getHeight();
+
+		BufferedImage[] levels = new BufferedImage[0];
+		int bytes = 0;
+		int width = sourceWidth;
+		while (width > minWidth && ratio > 0 && ratio < HUNDRED) {
+			width = Math.max(minWidth, width * ratio / HUNDRED);
+			float scale = width / (float) sourceWidth;
+			int height = (int) (sourceHeight * scale);
+			int size = (width * height * bitsPerPixel + BITS_PER_BYTE - 1) / BITS_PER_BYTE;
+			if (bytes + size > budget) {
+				// a smaller level may still fit
+				continue;
+			}
+			BufferedImage level = new BufferedImage(width, height);
+			// each level is reduced from the source to avoid accumulating the filtering
+			TransformPainter.drawScaledImageBilinear(level.getGraphicsContext(), source, 0, 0, scale, scale);
+			BufferedImage[] newLevels = new BufferedImage[levels.length + 1];
+			System.arraycopy(levels, 0, newLevels, 0, levels.length);
+			newLevels[levels.length] = level;
+			levels = newLevels;
+			bytes += size;
+		}
+		this.levels = levels;
+		this.bytes = bytes;
+
+		if (levels.length == 0 && budget > 0 && sourceWidth > minWidth) {
+			if (LOGGER.isLoggable(Level.INFO)) {
+				LOGGER.info("mipmap: no level of " + sourceWidth + "x" + sourceHeight + " fits in " + budget //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						+ " bytes"); //$NON-NLS-1$
+			}
+		} else if (LOGGER.isLoggable(Level.FINE)) {
+			LOGGER.fine("mipmap: " + levels.length + " levels, " + bytes + " bytes, built in " //$NON-NLS-1$ //$NON-NLS-2$
+					+ (Util.platformTimeMillis() - start) + " ms"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Gets the number of reduced levels.
+	 *
+	 * @return the number of levels, 0 if the source image is always scaled.
+	 */
+	public int getLevelsCount() {
+		return this.levels.length;
+	}
+
+	/**
+	 * Gets the size of the reduced levels in bytes.
+	 *
+	 * @return the size of the levels.
+	 */
+	public int getBytes() {
+		return this.bytes;
+	}
+
+	/**
+	 * Draws the image at the given width, keeping its aspect ratio.
+	 *
+	 * @param g
+	 *            the graphics context.
+	 * @param x
+	 *            the x coordinate of the image.
+	 * @param y
+	 *            the y coordinate of the image.
+	 * @param width
+	 *            the width of the drawn image, at most the width of the source image.
+	 */
+	public void draw(GraphicsContext g, int x, int y, int width) {
+		Image image = this.source;
+		BufferedImage[] levels = this.levels;
+		for (int i = levels.length - 1; i >= 0; i--) {
+			BufferedImage level = levels[i];
+			if (level.getWidth() >= width) {
+				image = level;
+				break;
+			}
+		}
+
+		int imageWidth = image.getWidth();
+		if (imageWidth == width) {
+			Painter.drawImage(g, image, x, y);
+		} else {
+			float scale = width / (float) imageWidth;
+			if (QualityGovernor.INSTANCE.isBilinearScaling()) {
+				TransformPainter.drawScaledImageBilinear(g, image, x, y, scale, scale);
+			} else {
+				TransformPainter.drawScaledImageNearestNeighbor(g, image, x, y, scale, scale);
+			}
+		}
+	}
+}
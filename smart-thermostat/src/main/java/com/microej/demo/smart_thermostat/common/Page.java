@@ -14,7 +14,7 @@ import com.microej.demo.smart_thermostat.MainCanvas;
 public interface Page {
 
 	/**
-	 * Builds the page on the main canvas {@link MainCanvas}.
+	 * Builds the page on the main canvas {@link MainCanvas}, by showing its widgets from the bottom to the top.
 	 *
 	 * @param canvas the {@link MainCanvas} used to build.
 	 */
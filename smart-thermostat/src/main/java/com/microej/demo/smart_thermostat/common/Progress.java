@@ -13,13 +13,13 @@ import ej.bon.XMath;
  * Examples:<br>
  * 0 - 100 <br>
  * -15 - 31 <br>
- * 30.55 - 99.50 <br>
  * <br>
  * or backward: <br>
  * 100 - 0 <br>
  * 31 - (-15) <br>
- * 99.50 - 30.55 <br>
- *
+ * <p>
+ * The percentages and the progress values are {@link FixedPoint} values, so that no floating-point computation is done
+ * when the progress is updated and read on each frame.
  */
 public class Progress {
 	/**
@@ -40,14 +40,15 @@ public class Progress {
 	 * 100 Percent constant.
 	 */
 	public static final int HUNDRED = 100;
-	private double currentPercent = 0;
-	private double minProgress = 0;
-	private double maxProgress = HUNDRED;
+	private static final int HUNDRED_PERCENT = FixedPoint.fromInt(HUNDRED);
+	private int currentPercent = 0;
+	private int minProgress = 0;
+	private int maxProgress = HUNDRED;
 	private Direction direction = Direction.FORWARD;
 
 	/**
-	 * Configure the ranged progress value. Define minimal, maximal progress value, the scale of the decimals and the
-	 * default direction as forward.
+	 * Configure the ranged progress value. Define minimal, maximal progress value and the default direction as
+	 * forward.
 	 *
 	 * @param min
 	 *            minimum progress value.
@@ -57,13 +58,12 @@ public class Progress {
 	 * @throws IllegalArgumentException
 	 *             if min is higher than max.
 	 */
-	public void configure(double min, double max) {
+	public void configure(int min, int max) {
 		configure(min, max, Direction.FORWARD);
 	}
 
 	/**
-	 * Configure the ranged progress value. Define minimal, maximal progress value, the scale of the decimals and the
-	 * direction.
+	 * Configure the ranged progress value. Define minimal, maximal progress value and the direction.
 	 *
 	 * @param min
 	 *            minimum progress value.
@@ -75,7 +75,7 @@ public class Progress {
 	 * @throws IllegalArgumentException
 	 *             if min is higher than max.
 	 */
-	public void configure(double min, double max, Direction direction) {
+	public void configure(int min, int max, Direction direction) {
 		if (min > max) {
 			throw new IllegalArgumentException("min cannot be higher than max"); //$NON-NLS-1$
 		}
@@ -90,12 +90,12 @@ public class Progress {
 	 * Sets progress percentage.
 	 *
 	 * @param progress
-	 *            the progress percentage.
+	 *            the progress percentage, as a {@link FixedPoint} value.
 	 * @return {@code true}, if the provided progress is different from the existing one and {@code false}, if the same
 	 *         value was provided.
 	 */
-	public boolean setPercent(double progress) {
-		progress = this.ensureProgressInRange(progress);
+	public boolean setPercent(int progress) {
+		progress = ensureProgressInRange(progress);
 		if (this.currentPercent != progress) {
 			this.currentPercent = progress;
 			return true;
@@ -109,37 +109,39 @@ public class Progress {
 	 * @param progressValue
 	 *            the progress value.
 	 */
-	public void setValue(double progressValue) {
+	public void setValue(int progressValue) {
 		progressValue = XMath.limit(progressValue, this.minProgress, this.maxProgress);
 		if (this.direction == Direction.BACKWARD) {
 			progressValue = this.maxProgress - progressValue;
 		} else {
 			progressValue = progressValue - this.minProgress;
 		}
-		setPercent(fromProgressValueToPercent(this.maxProgress - this.minProgress, HUNDRED, progressValue));
+		int range = this.maxProgress - this.minProgress;
+		setPercent(range == 0 ? 0 : fromProgressValueToPercent(range, HUNDRED_PERCENT, progressValue));
 	}
 
 	/**
 	 * Gets the progress value that has been configured.
 	 *
-	 * @return the custom progress value.
+	 * @return the custom progress value, as a {@link FixedPoint} value.
 	 */
-	public double getValue() {
-		double current = fromPercentToProgressValue(this.maxProgress - this.minProgress, HUNDRED, getPercent());
+	public int getValue() {
+		int current = fromPercentToProgressValue(FixedPoint.fromInt(this.maxProgress - this.minProgress),
+				HUNDRED_PERCENT, getPercent());
 		if (this.direction == Direction.BACKWARD) {
-			return this.maxProgress - current;
+			return FixedPoint.fromInt(this.maxProgress) - current;
 		}
-		current += this.minProgress;
+		current += FixedPoint.fromInt(this.minProgress);
 		return current;
 	}
 
 	/**
 	 * Gets the progress in percent.
 	 *
-	 * @return the progress in percent.
+	 * @return the progress in percent, as a {@link FixedPoint} value.
 	 */
-	public double getPercent() {
-		return this.ensureProgressInRange(this.currentPercent);
+	public int getPercent() {
+		return ensureProgressInRange(this.currentPercent);
 	}
 
 	/**
@@ -150,11 +152,11 @@ public class Progress {
 	 * @param maxPercent
 	 *            the percentage of the highest progress value.
 	 * @param currentPercent
-	 *            the current percent you want the progress value for.
-	 * @return the calculated progress value.
+	 *            the current percent you want the progress value for, in the same format as {@code maxPercent}.
+	 * @return the calculated progress value, in the same format as {@code maxProgressValue}.
 	 */
-	public static double fromPercentToProgressValue(double maxProgressValue, double maxPercent, double currentPercent) {
-		return maxProgressValue * currentPercent / maxPercent;
+	public static int fromPercentToProgressValue(int maxProgressValue, int maxPercent, int currentPercent) {
+		return FixedPoint.mulDiv(maxProgressValue, currentPercent, maxPercent);
 	}
 
 	/**
@@ -165,15 +167,14 @@ public class Progress {
 	 * @param maxPercent
 	 *            the percentage of the highest progress value.
 	 * @param currentProgressValue
-	 *            the progress value you want the percentage for.
-	 * @return the calculated percent value.
+	 *            the progress value you want the percentage for, in the same format as {@code maxProgressValue}.
+	 * @return the calculated percent value, in the same format as {@code maxPercent}.
 	 */
-	public static double fromProgressValueToPercent(double maxProgressValue, double maxPercent,
-			double currentProgressValue) {
-		return currentProgressValue / maxProgressValue * maxPercent;
+	public static int fromProgressValueToPercent(int maxProgressValue, int maxPercent, int currentProgressValue) {
+		return FixedPoint.mulDiv(currentProgressValue, maxPercent, maxProgressValue);
 	}
 
-	private double ensureProgressInRange(double progress) {
-		return XMath.limit(progress, 0.0, HUNDRED);
+	private static int ensureProgressInRange(int progress) {
+		return XMath.limit(progress, 0, HUNDRED_PERCENT);
 	}
 }
@@ -0,0 +1,201 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ej.bon.Constants;
+import ej.bon.Util;
+
+/**
+ * Lowers the render quality of the animations when the frames take longer than the frame budget.
+ * <p>
+ * The render policies report the duration of each rendered frame. Once the last {@value #WINDOW_SIZE} frames have been
+ * rendered in a tier, their average is compared to the budget defined by the {@value #BUDGET_CONSTANT} constant, in
+ * milliseconds: above the budget, the governor steps down to the next tier; below the {@value #HEADROOM_CONSTANT}
+ * percentage of the budget, it steps back up. The tiers are cumulative, see {@link Tier}. The full quality is restored
+ * with {@link #reset()} when the animations are at rest.
+ * </p>
+ * <p>
+ * The tier changes are logged at the {@code INFO} level, with the time spent in the previous tier.
+ * </p>
+ * <p>
+ * The governor must be used in the UI thread.
+ * </p>
+ */
+public class QualityGovernor {
+
+	/**
+	 * The quality tiers, from the full quality to the lowest one. Each tier keeps the reductions of the previous ones.
+	 */
+	public enum Tier {
+		/**
+		 * The images are scaled with bilinear filtering, all the frames are rendered.
+		 */
+		FULL,
+		/**
+		 * The images are scaled with the nearest neighbor.
+		 */
+		NEAREST_SCALING,
+		/**
+		 * One frame out of two of the transitions, and of the overlay they animate, is rendered.
+		 */
+		HALF_RATE,
+		/**
+		 * The fade in effects use fewer alpha steps.
+		 */
+		COARSE_FADE
+	}
+
+	/** The unique instance of the governor. */
+	public static final QualityGovernor INSTANCE = new QualityGovernor();
+
+	/** Name of the constant enabling the governor. */
+	public static final String ENABLE_CONSTANT = "quality.enable"; //$NON-NLS-1$
+	/** Name of the constant defining the frame budget, in milliseconds. */
+	public static final String BUDGET_CONSTANT = "quality.frame.budget"; //$NON-NLS-1$
+	/** Name of the constant defining the frame time below which the quality is raised, in percent of the budget. */
+	public static final String HEADROOM_CONSTANT = "quality.headroom"; //$NON-NLS-1$
+
+	private static final Logger LOGGER = Logger.getLogger(QualityGovernor.class.getName());
+	private static final int WINDOW_SIZE = 8;
+	private static final int HUNDRED = 100;
+	private static final int COARSE_ALPHA_STEP = 32;
+	private static final int MAX_ALPHA = 255;
+
+	private final boolean enabled;
+	private final long budget;
+	private final long headroom;
+	private final long[] durations;
+
+	private Tier tier;
+	private int count;
+	private long windowTime;
+	private boolean skipNextFrame;
+	private long tierStartTime;
+
+	private QualityGovernor() {
+		this.enabled = Constants.getBoolean(ENABLE_CONSTANT);
+		this.budget = Constants.getLong(BUDGET_CONSTANT);
+		this.headroom = this.budget * Constants.getInt(HEADROOM_CONSTANT) / HUNDRED;
+		this.durations = new long[Tier.values().length];
+		this.tier = Tier.FULL;
+		this.tierStartTime = Util.platformTimeMillis();
+	}
+
+	/**
+	 * Reports the render time of a frame.
+	 *
+	 * @param duration
+	 *            the time spent rendering the frame, in milliseconds.
+	 */
+	public void record(long duration) {
+		if (!this.enabled) {
+			return;
+		}
+		this.windowTime += duration;
+		if (++this.count < WINDOW_SIZE) {
+			return;
+		}
+		long average = this.windowTime / WINDOW_SIZE;
+		Tier[] tiers = Tier.values();
+		int index = this.tier.ordinal();
+		if (average > this.budget && index < tiers.length - 1) {
+			setTier(tiers[index + 1], average);
+		} else if (average < this.headroom && index > 0) {
+			setTier(tiers[index - 1], average);
+		} else {
+			this.count = 0;
+			this.windowTime = 0;
+		}
+	}
+
+	/**
+	 * Restores the full quality. Called when the animations are at rest.
+	 */
+	public void reset() {
+		if (this.tier != Tier.FULL) {
+			setTier(Tier.FULL, this.windowTime / Math.max(this.count, 1));
+		}
+		this.count = 0;
+		this.windowTime = 0;
+	}
+
+	/**
+	 * Gets the current tier.
+	 *
+	 * @return the current tier.
+	 */
+	public Tier getTier() {
+		return this.tier;
+	}
+
+	/**
+	 * Gets the time spent in a tier, not counting the current period in this tier.
+	 *
+	 * @param tier
+	 *            the tier.
+	 * @return the duration, in milliseconds.
+	 */
+	public long getDuration(Tier tier) {
+		return this.durations[tier.ordinal()];
+	}
+
+	/**
+	 * Gets whether the images are scaled with bilinear filtering.
+	 *
+	 * @return {@code true} to use bilinear filtering, {@code false} to use the nearest neighbor.
+	 */
+	public boolean isBilinearScaling() {
+		return this.tier.ordinal() < Tier.NEAREST_SCALING.ordinal();
+	}
+
+	/**
+	 * Gets whether the current frame of a transition must be rendered. Called once per frame.
+	 *
+	 * @return {@code true} if the frame is rendered, {@code false} if it is skipped.
+	 */
+	public boolean isFrameRendered() {
+		if (this.tier.ordinal() < Tier.HALF_RATE.ordinal()) {
+			this.skipNextFrame = false;
+			return true;
+		}
+		boolean rendered = !this.skipNextFrame;
+		this.skipNextFrame = rendered;
+		return rendered;
+	}
+
+	/**
+	 * Rounds an alpha value of a fade in effect to the alpha steps of the current tier.
+	 *
+	 * @param alpha
+	 *            the alpha value, between 0 and 255.
+	 * @return the rounded alpha value, 255 being kept.
+	 */
+	public int roundAlpha(int alpha) {
+		if (this.tier.ordinal() < Tier.COARSE_FADE.ordinal() || alpha >= MAX_ALPHA) {
+			return alpha;
+		}
+		return alpha - alpha % COARSE_ALPHA_STEP;
+	}
+
+	private void setTier(Tier newTier, long average) {
+		Tier oldTier = this.tier;
+		long now = Util.platformTimeMillis();
+		long duration = now - this.tierStartTime;
+		this.durations[oldTier.ordinal()] += duration;
+		if (LOGGER.isLoggable(Level.INFO)) {
+			LOGGER.info(oldTier + " -> " + newTier + ": " + duration + " ms in tier, average frame " + average //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ " ms"); //$NON-NLS-1$
+		}
+		this.tier = newTier;
+		this.tierStartTime = now;
+		this.count = 0;
+		this.windowTime = 0;
+	}
+}
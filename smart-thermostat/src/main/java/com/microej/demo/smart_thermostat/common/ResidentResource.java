@@ -0,0 +1,92 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A resource loaded by the {@link ResourceCache}, with the count of its users.
+ */
+class ResidentResource {
+
+	private final String key;
+	private final Closeable resource;
+	private final int size;
+	private int references;
+	private long releaseTime;
+	private long lastUse;
+
+	/**
+	 * Creates a resident resource.
+	 *
+	 * @param key
+	 *            the key of the resource in the cache.
+	 * @param resource
+	 *            the loaded resource.
+	 * @param size
+	 *            the estimated size of the resource in bytes.
+	 */
+	ResidentResource(String key, Closeable resource, int size) {
+		this.key = key;
+		this.resource = resource;
+		this.size = size;
+	}
+
+	String getKey() {
+		return this.key;
+	}
+
+	Closeable getResource() {
+		return this.resource;
+	}
+
+	int getSize() {
+		return this.size;
+	}
+
+	boolean isReferenced() {
+		return this.references > 0;
+	}
+
+	void acquire(long useCounter) {
+		this.references++;
+		this.lastUse = useCounter;
+	}
+
+	/**
+	 * Releases one reference of the resource.
+	 *
+	 * @param time
+	 *            the time of the release.
+	 * @return {@code true} if the resource is not referenced anymore, {@code false} otherwise.
+	 */
+	boolean release(long time) {
+		this.references--;
+		if (this.references == 0) {
+			this.releaseTime = time;
+			return true;
+		}
+		return false;
+	}
+
+	long getReleaseTime() {
+		return this.releaseTime;
+	}
+
+	long getLastUse() {
+		return this.lastUse;
+	}
+
+	void close() {
+		try {
+			this.resource.close();
+		} catch (IOException e) {
+			// the images do not throw on close
+		}
+	}
+}
@@ -0,0 +1,350 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microej.demo.smart_thermostat.style.Images;
+
+import ej.annotation.Nullable;
+import ej.bon.Constants;
+import ej.bon.Timer;
+import ej.bon.TimerTask;
+import ej.bon.Util;
+import ej.microui.MicroUI;
+import ej.microui.display.Display;
+import ej.microui.display.ResourceImage;
+import ej.microvg.ResourceVectorImage;
+import ej.service.ServiceFactory;
+
+/**
+ * Shared cache of the images loaded from the resources.
+ * <p>
+ * Widgets get an image from the cache and release it once they do not use it anymore, instead of loading and closing
+ * it themselves. The cache counts the users of each image: an image which is not used anymore stays resident during
+ * the retention time defined by the {@value #RETENTION_CONSTANT} constant, so that navigating back to a page does not
+ * load its images again. The unused images are closed earlier, least recently used first, when the size of the
+ * resident images exceeds the byte budget defined by the {@value #BUDGET_CONSTANT} constant. The images in use are
+ * never closed.
+ * </p>
+ * <p>
+ * The size of a raster image is estimated from its output format. The size of a vector image is not known, it is not
+ * counted in the budget.
+ * </p>
+ * <p>
+ * The cache must be used in the UI thread.
+ * </p>
+ */
+public class ResourceCache {
+
+	/** Name of the constant defining the byte budget of the resident images. */
+	public static final String BUDGET_CONSTANT = "resourcecache.budget"; //$NON-NLS-1$
+	/** Name of the constant defining the retention time of the unused images, in milliseconds. */
+	public static final String RETENTION_CONSTANT = "resourcecache.retention"; //$NON-NLS-1$
+
+	private static final Logger LOGGER = Logger.getLogger(ResourceCache.class.getName());
+	private static final int BITS_PER_BYTE = 8;
+	private static final int ARGB8888_BPP = 32;
+	private static final int RGB565_BPP = 16;
+	private static final int ARGB4444_BPP = 16;
+	private static final int A8_BPP = 8;
+	private static final long EXPIRATION_RETRY_PERIOD = 100;
+
+	private static final ResourceCache INSTANCE = new ResourceCache(Constants.getInt(BUDGET_CONSTANT),
+			Constants.getLong(RETENTION_CONSTANT));
+
+	private final int budget;
+	private final long retention;
+	private final List<ResidentResource> resources;
+	private final Runnable expireRunnable;
+	private @Nullable TimerTask expireTask;
+	private int residentBytes;
+	private long useCounter;
+
+	private int hits;
+	private int misses;
+	private int evictions;
+
+	private ResourceCache(int budget, long retention) {
+		this.budget = budget;
+		this.retention = retention;
+		this.resources = new ArrayList<>();
+		this.expireRunnable = new Runnable() {
+			@Override
+			public void run() {
+				expire();
+			}
+		};
+	}
+
+	/**
+	 * Gets the resource cache instance.
+	 *
+	 * @return the resource cache.
+	 */
+	public static ResourceCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the image for the given path, see {@link Images#getResourceImage(String)}.
+	 * <p>
+	 * The image must be released with {@link #release(Closeable)} instead of being closed.
+	 * </p>
+	 *
+	 * @param path
+	 *            the path of the image, one of the constants in {@link Images}.
+	 * @return the image.
+	 */
+	public ResourceImage getImage(String path) {
+		ResidentResource resource = acquire(path);
+		if (resource == null) {
+			ResourceImage image = Images.getResourceImage(path);
+			resource = add(path, image, computeSize(image, Display.getDisplay().getPixelDepth()));
+		}
+		return (ResourceImage) resource.getResource();
+	}
+
+	/**
+	 * Gets the image for the given path with the given format, see
+	 * {@link Images#getResourceImage(String, ResourceImage.OutputFormat)}.
+	 * <p>
+	 * The image must be released with {@link #release(Closeable)} instead of being closed.
+	 * </p>
+	 *
+	 * @param path
+	 *            the path of the image, one of the constants in {@link Images}.
+	 * @param format
+	 *            the output format of the image.
+	 * @return the image.
+	 */
+	public ResourceImage getImage(String path, ResourceImage.OutputFormat format) {
+		String key = path + '#' + format.name();
+		ResidentResource resource = acquire(key);
+		if (resource == null) {
+			ResourceImage image = Images.getResourceImage(path, format);
+			resource = add(key, image, computeSize(image, getBitsPerPixel(format)));
+		}
+		return (ResourceImage) resource.getResource();
+	}
+
+	/**
+	 * Gets the vector image for the given path, see {@link ResourceVectorImage#loadImage(String)}.
+	 * <p>
+	 * The image must be released with {@link #release(Closeable)} instead of being closed.
+	 * </p>
+	 *
+	 * @param path
+	 *            the path of the vector image.
+	 * @return the vector image.
+	 */
+	public ResourceVectorImage getVectorImage(String path) {
+		ResidentResource resource = acquire(path);
+		if (resource == null) {
+			resource = add(path, ResourceVectorImage.loadImage(path), 0);
+		}
+		return (ResourceVectorImage) resource.getResource();
+	}
+
+	/**
+	 * Releases an image got from this cache.
+	 * <p>
+	 * The image must not be used anymore by the caller. It stays resident during the retention time, unless the budget
+	 * is exceeded.
+	 * </p>
+	 *
+	 * @param image
+	 *            the image to release.
+	 */
+	public void release(Closeable image) {
+		ResidentResource resource = findResource(image);
+		if (resource == null) {
+			throw new IllegalArgumentException();
+		}
+		if (resource.release(Util.platformTimeMillis())) {
+			fitBudget();
+			scheduleExpiration();
+		}
+	}
+
+	/**
+	 * Gets the number of requests that have been served by a resident image.
+	 *
+	 * @return the number of hits.
+	 */
+	public int getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Gets the number of requests that needed to load an image.
+	 *
+	 * @return the number of misses.
+	 */
+	public int getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Gets the number of unused images that have been closed to fit in the budget.
+	 *
+	 * @return the number of evictions.
+	 */
+	public int getEvictions() {
+		return this.evictions;
+	}
+
+	/**
+	 * Gets the estimated size of the resident images in bytes, used or not.
+	 *
+	 * @return the resident bytes.
+	 */
+	public int getResidentBytes() {
+		return this.residentBytes;
+	}
+
+	/**
+	 * Gets the number of resident images, used or not.
+	 *
+	 * @return the number of resident images.
+	 */
+	public int getResidentCount() {
+		return this.resources.size();
+	}
+
+	/**
+	 * Logs the cache statistics, at the {@code FINE} level.
+	 */
+	public void logStatistics() {
+		if (LOGGER.isLoggable(Level.FINE)) {
+			LOGGER.fine("resources: " + this.resources.size() + ", resident: " + this.residentBytes + " bytes, hits: " //$NON-NLS-1$
+					+ this.hits + ", misses: " + this.misses + ", evictions: " + this.evictions);
+		}
+	}
+
+	private @Nullable ResidentResource acquire(String key) {
+		for (ResidentResource resource : this.resources) {
+			if (resource.getKey().equals(key)) {
+				this.hits++;
+				resource.acquire(++this.useCounter);
+				return resource;
+			}
+		}
+		this.misses++;
+		return null;
+	}
+
+	private ResidentResource add(String key, Closeable image, int size) {
+		ResidentResource resource = new ResidentResource(key, image, size);
+		resource.acquire(++this.useCounter);
+		this.resources.add(resource);
+		this.residentBytes += size;
+		fitBudget();
+		return resource;
+	}
+
+	private void fitBudget() {
+		List<ResidentResource> resources = this.resources;
+		while (this.residentBytes > this.budget) {
+			ResidentResource leastRecentlyUsed = null;
+			for (ResidentResource resource : resources) {
+				if (!resource.isReferenced() && (leastRecentlyUsed == null
+						|| resource.getLastUse() < leastRecentlyUsed.getLastUse())) {
+					leastRecentlyUsed = resource;
+				}
+			}
+			if (leastRecentlyUsed == null) {
+				// only images in use: they are kept whatever the budget
+				return;
+			}
+			LOGGER.fine("evicting resource " + leastRecentlyUsed.getKey()); //$NON-NLS-1$
+			remove(leastRecentlyUsed);
+			this.evictions++;
+		}
+	}
+
+	private void expire() {
+		this.expireTask = null;
+		long now = Util.platformTimeMillis();
+		List<ResidentResource> resources = this.resources;
+		for (int i = resources.size() - 1; i >= 0; i--) {
+			ResidentResource resource = resources.get(i);
+			if (!resource.isReferenced() && now - resource.getReleaseTime() >= this.retention) {
+				remove(resource);
+			}
+		}
+		scheduleExpiration();
+	}
+
+	private void scheduleExpiration() {
+		if (this.expireTask != null) {
+			return;
+		}
+		long oldestRelease = Long.MAX_VALUE;
+		for (ResidentResource resource : this.resources) {
+			if (!resource.isReferenced()) {
+				oldestRelease = Math.min(oldestRelease, resource.getReleaseTime());
+			}
+		}
+		if (oldestRelease == Long.MAX_VALUE) {
+			return;
+		}
+		TimerTask task = new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					MicroUI.callSerially(ResourceCache.this.expireRunnable);
+					cancel();
+				} catch (RuntimeException e) {
+					// the event queue is full: the expiration is requested again after the retry period, without
+					// stopping the timer
+				}
+			}
+		};
+		this.expireTask = task;
+		long delay = Math.max(0, oldestRelease + this.retention - Util.platformTimeMillis());
+		ServiceFactory.getService(Timer.class, Timer.class).schedule(task, delay, EXPIRATION_RETRY_PERIOD);
+	}
+
+	private void remove(ResidentResource resource) {
+		this.resources.remove(resource);
+		this.residentBytes -= resource.getSize();
+		resource.close();
+	}
+
+	private @Nullable ResidentResource findResource(Closeable image) {
+		for (ResidentResource resource : this.resources) {
+			if (resource.getResource() == image) {
+				return resource;
+			}
+		}
+		return null;
+	}
+
+	private static int computeSize(ResourceImage image, int bitsPerPixel) {
+		return (image.getWidth() * image.getHeight() * bitsPerPixel + BITS_PER_BYTE - 1) / BITS_PER_BYTE;
+	}
+
+	private static int getBitsPerPixel(ResourceImage.OutputFormat format) {
+		switch (format) {
+		case ARGB8888:
+			return ARGB8888_BPP;
+		case RGB565:
+			return RGB565_BPP;
+		case ARGB4444:
+			return ARGB4444_BPP;
+		case A8:
+			return A8_BPP;
+		default:
+			return Display.getDisplay().getPixelDepth();
+		}
+	}
+}
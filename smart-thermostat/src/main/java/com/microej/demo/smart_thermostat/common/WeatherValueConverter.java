@@ -8,6 +8,9 @@ package com.microej.demo.smart_thermostat.common;
 
 /**
  * Provides weather value conversions.
+ * <p>
+ * The conversions between integers are computed with integer arithmetic only, and give the same results as the
+ * floating-point formulas rounded with {@link Math#round(float)}.
  */
 public class WeatherValueConverter {
 
@@ -15,6 +18,8 @@ public class WeatherValueConverter {
 	private static final int FAHRENHEIT_OFFSET = 32;
 	private static final int FIVE = 5;
 	private static final int NINE = 9;
+	// 1 degree Fahrenheit is 5/9 degree Celsius: 1 hundredth of Celsius is 9/500 Fahrenheit
+	private static final int HUNDREDTHS_CELSIUS_PER_NINE_FAHRENHEIT = FIVE * DECIMAL_OFFSET_MULTIPLIER;
 
 	/**
 	 * Prevents instantiation.
@@ -32,9 +37,8 @@ public class WeatherValueConverter {
 	 * @return the temperature in Fahrenheit without decimals.
 	 */
 	public static int hundredthsCelsiusToFahrenheit(int hundredthCelsius) {
-		float celsius = (float) hundredthCelsius / DECIMAL_OFFSET_MULTIPLIER;
-		float fahrenheit = celsiusToFahrenheit(celsius);
-		return Math.round(fahrenheit);
+		return FixedPoint.roundDiv(hundredthCelsius * NINE, HUNDREDTHS_CELSIUS_PER_NINE_FAHRENHEIT)
+				+ FAHRENHEIT_OFFSET;
 	}
 
 	/**
@@ -46,8 +50,7 @@ public class WeatherValueConverter {
 	 * @return temperature in hundredths Celsius used to communicate to the natives.
 	 */
 	public static int fahrenheitToHundredthsCelsius(int fahrenheit) {
-		float celsius = fahrenheitToCelsius(fahrenheit);
-		return Math.round(celsius * DECIMAL_OFFSET_MULTIPLIER);
+		return FixedPoint.roundDiv((fahrenheit - FAHRENHEIT_OFFSET) * HUNDREDTHS_CELSIUS_PER_NINE_FAHRENHEIT, NINE);
 	}
 
 	/**
@@ -59,28 +62,6 @@ public class WeatherValueConverter {
 	 * @return the percentage without decimals.
 	 */
 	public static int hundredthsOfPercentToPercent(int hundredthsOfPercent) {
-		return Math.round((float) hundredthsOfPercent / DECIMAL_OFFSET_MULTIPLIER);
-	}
-
-	/**
-	 * Converts Celsius to Fahrenheit.
-	 * 
-	 * @param celsius
-	 *            the temperature in Celsius.
-	 * @return the temperature in Fahrenheit.
-	 */
-	public static float celsiusToFahrenheit(float celsius) {
-		return ((celsius * NINE) / FIVE) + FAHRENHEIT_OFFSET;
-	}
-
-	/**
-	 * Converts Fahrenheit to Celsius.
-	 *
-	 * @param fahrenheit
-	 *            the temperature in Fahrenheit.
-	 * @return the temperature in Celsius.
-	 */
-	public static float fahrenheitToCelsius(float fahrenheit) {
-		return ((fahrenheit - FAHRENHEIT_OFFSET) * FIVE) / NINE;
+		return FixedPoint.roundDiv(hundredthsOfPercent, DECIMAL_OFFSET_MULTIPLIER);
 	}
 }
@@ -0,0 +1,38 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import ej.annotation.Nullable;
+import ej.bon.Timer;
+
+/**
+ * Sensor source providing random values to the model every {@value #UPDATE_PERIOD}ms.
+ *
+ * @see DemoTask
+ */
+public class DemoSensorSource implements SensorSource {
+
+	private static final long UPDATE_PERIOD = 8000;
+
+	private @Nullable DemoTask demoTask;
+
+	@Override
+	public void start(SmartThermostatModel model, Timer timer) {
+		DemoTask task = new DemoTask(model);
+		this.demoTask = task;
+		timer.scheduleAtFixedRate(task, 0L, UPDATE_PERIOD);
+	}
+
+	@Override
+	public void stop() {
+		DemoTask task = this.demoTask;
+		if (task != null) {
+			task.cancel();
+			this.demoTask = null;
+		}
+	}
+}
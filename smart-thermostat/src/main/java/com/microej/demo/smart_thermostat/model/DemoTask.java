@@ -41,15 +41,16 @@ public class DemoTask extends TimerTask {
 
 	private int temperature = this.random.nextInt(TEMPERATURE_UPPER_BOUND - TEMPERATURE_LOWER_BOUND)
 			+ TEMPERATURE_LOWER_BOUND;
-	private int temperatureThreshold = this.random.nextInt(TEMPERATURE_UPPER_BOUND - TEMPERATURE_LOWER_BOUND)
-			+ TEMPERATURE_LOWER_BOUND;
+	private int temperatureThreshold;
 
-	private int i = TEMPERATURE_THRESHOLD_UPDATE_RATE;
+	private int i;
 
 	private final SmartThermostatModel model;
 
 	/**
 	 * Creates the demo task to provide values to the model.
+	 * <p>
+	 * The task starts from the temperature threshold of the model, which may have been restored from the settings.
 	 *
 	 * @param model
 	 *            the thermostat model to be changed periodically.
@@ -57,6 +58,8 @@ public class DemoTask extends TimerTask {
 	public DemoTask(SmartThermostatModel model) {
 		super();
 		this.model = model;
+		this.temperatureThreshold = WeatherValueConverter
+				.fahrenheitToHundredthsCelsius(model.getTemperatureThreshold());
 	}
 
 	@Override
@@ -73,9 +76,7 @@ public class DemoTask extends TimerTask {
 		int humidity = WeatherValueConverter.hundredthsOfPercentToPercent(this.random.nextInt(HUMIDITY_UPPER_BOUND));
 		int pressure = PRESSURE_LOWER_BOUND + this.random.nextInt(PRESSURE_UPPER_BOUND - PRESSURE_LOWER_BOUND);
 
-		this.model.setTemperature(temperature);
-		this.model.setHumidity(humidity);
-		this.model.setPressure(pressure);
+		this.model.applyReading(temperature, humidity, pressure);
 
 		this.i++;
 		if (this.i >= TEMPERATURE_THRESHOLD_UPDATE_RATE) {
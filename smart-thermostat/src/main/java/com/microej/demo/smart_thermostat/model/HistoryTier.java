@@ -0,0 +1,115 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+/**
+ * Fixed-capacity ring buffer of timestamped values. When full, the oldest value is overwritten.
+ * <p>
+ * The tier has a single writer (the model, with its lock held). The readers never block it: a sequence number is
+ * incremented before and after each write, and {@link #read(long[], int[])} copies the values again when the sequence
+ * changed during the copy.
+ * </p>
+ */
+public class HistoryTier {
+
+	private final long[] times;
+	private final int[] values;
+	private int head;
+	private int size;
+	// odd while a value is being written
+	private volatile int sequence;
+
+	/**
+	 * Creates a history tier.
+	 *
+	 * @param capacity
+	 *            the maximum number of values kept.
+	 */
+	HistoryTier(int capacity) {
+		this.times = new long[capacity];
+		this.values = new int[capacity];
+	}
+
+	/**
+	 * Adds a value, overwriting the oldest one if the tier is full.
+	 *
+	 * @param time
+	 *            the time of the value, in milliseconds.
+	 * @param value
+	 *            the value.
+	 */
+	void add(long time, int value) {
+		int sequence = this.sequence;
+		this.sequence = sequence + 1;
+		int head = this.head;
+		this.times[head] = time;
+		this.values[head] = value;
+		int capacity = this.values.length;
+		this.head = head + 1 == capacity ? 0 : head + 1;
+		if (this.size < capacity) {
+			this.size++;
+		}
+		this.sequence = sequence + 2;
+	}
+
+	/**
+	 * Gets the maximum number of values kept.
+	 *
+	 * @return the capacity.
+	 */
+	public int getCapacity() {
+		return this.values.length;
+	}
+
+	/**
+	 * Gets the number of values currently kept.
+	 *
+	 * @return the size.
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Copies the most recent values, from the oldest to the newest.
+	 * <p>
+	 * The number of values copied is limited by the length of the given arrays. The copied window is consistent: no
+	 * value is added while copying it.
+	 *
+	 * @param times
+	 *            the array to fill with the times of the values.
+	 * @param values
+	 *            the array to fill with the values.
+	 * @return the number of values copied.
+	 */
+	public int read(long[] times, int[] values) {
+		long[] tierTimes = this.times;
+		int[] tierValues = this.values;
+		int capacity = tierValues.length;
+		while (true) {
+			int sequence = this.sequence;
+			if ((sequence & 1) != 0) {
+				// a value is being written
+				Thread.yield();
+				continue;
+			}
+			int count = Math.min(this.size, Math.min(times.length, values.length));
+			int index = this.head - count;
+			if (index < 0) {
+				index += capacity;
+			}
+			for (int i = 0; i < count; i++) {
+				times[i] = tierTimes[index];
+				values[i] = tierValues[index];
+				index = index + 1 == capacity ? 0 : index + 1;
+			}
+			if (this.sequence == sequence) {
+				return count;
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import ej.basictool.ArrayTools;
+
+/**
+ * Registry of the observers of the {@link SmartThermostatModel}, indexed by value type.
+ * <p>
+ * The observers of a type are kept in an array which is replaced, never modified, when an observer is added or
+ * removed. The notifications iterate the array without locking nor allocating, even if an observer registers or
+ * unregisters itself meanwhile (for example when a page is shown or hidden).
+ * </p>
+ * <p>
+ * The types range from 1 to {@value #MAX_OBSERVABLE_TYPE}, so that a type has a bit in an {@code int} mask (see
+ * {@link SmartThermostatModel#getTypeMask(int)}).
+ * </p>
+ */
+class ObserverRegistry {
+
+	/** The greatest type of value that can be observed. */
+	static final int MAX_OBSERVABLE_TYPE = 31;
+
+	private static final ThermostatObserver[] NO_OBSERVERS = new ThermostatObserver[0];
+
+	private volatile ThermostatObserver[][] observers;
+
+	/**
+	 * Creates an observer registry.
+	 *
+	 * @param maxType
+	 *            the greatest type of value known at creation. Greater types can be registered later.
+	 */
+	ObserverRegistry(int maxType) {
+		ThermostatObserver[][] observers = new ThermostatObserver[maxType + 1][];
+		for (int type = 0; type <= maxType; type++) {
+			observers[type] = NO_OBSERVERS;
+		}
+		this.observers = observers;
+	}
+
+	/**
+	 * Adds an observer for a type. Does nothing if the observer is already registered for this type.
+	 *
+	 * @param observer
+	 *            the observer to add.
+	 * @param valueType
+	 *            the type of value.
+	 * @throws IllegalArgumentException
+	 *             if the type is not between 1 and {@value #MAX_OBSERVABLE_TYPE}.
+	 */
+	synchronized void add(ThermostatObserver observer, int valueType) {
+		checkType(valueType);
+		ThermostatObserver[] typeObservers = get(valueType);
+		if (!ArrayTools.contains(typeObservers, observer)) {
+			set(valueType, ArrayTools.add(typeObservers, observer));
+		}
+	}
+
+	/**
+	 * Removes an observer for a type.
+	 *
+	 * @param observer
+	 *            the observer to remove.
+	 * @param valueType
+	 *            the type of value.
+	 * @throws IllegalArgumentException
+	 *             if the type is not between 1 and {@value #MAX_OBSERVABLE_TYPE}.
+	 */
+	synchronized void remove(ThermostatObserver observer, int valueType) {
+		checkType(valueType);
+		ThermostatObserver[] typeObservers = get(valueType);
+		if (ArrayTools.contains(typeObservers, observer)) {
+			set(valueType, ArrayTools.remove(typeObservers, observer));
+		}
+	}
+
+	/**
+	 * Gets the observers of a type. The returned array must not be modified.
+	 *
+	 * @param valueType
+	 *            the type of value.
+	 * @return the observers of the type.
+	 */
+	ThermostatObserver[] get(int valueType) {
+		ThermostatObserver[][] observers = this.observers;
+		if (valueType < 0 || valueType >= observers.length) {
+			return NO_OBSERVERS;
+		}
+		return observers[valueType];
+	}
+
+	private static void checkType(int valueType) {
+		if (valueType < 1 || valueType > MAX_OBSERVABLE_TYPE) {
+			throw new IllegalArgumentException("invalid type " + valueType); //$NON-NLS-1$
+		}
+	}
+
+	// Must be called with the registry monitor held.
+	private void set(int valueType, ThermostatObserver[] typeObservers) {
+		ThermostatObserver[][] observers = this.observers;
+		int length = Math.max(observers.length, valueType + 1);
+		ThermostatObserver[][] newObservers = new ThermostatObserver[length][];
+		System.arraycopy(observers, 0, newObservers, 0, observers.length);
+		for (int type = observers.length; type < length; type++) {
+			newObservers[type] = NO_OBSERVERS;
+		}
+		newObservers[valueType] = typeObservers;
+		this.observers = newObservers;
+	}
+}
@@ -0,0 +1,431 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Append-only archive of the sensors readings (temperature, humidity and pressure) on the file system.
+ * <p>
+ * The readings are stored in blocks of {@value #BLOCK_SIZE} bytes in a data file. A block starts with the number of
+ * readings (2 bytes, see {@link #TIME_ESTIMATED_FLAG}) and the time of the first reading (8 bytes), followed by the
+ * readings. The first reading holds the
+ * values, the next ones hold the differences with the previous reading. The time differences are unsigned varints and
+ * the value differences are zigzag varints: a reading archived every minute usually takes 6 bytes. The unused end of a
+ * block is left empty.
+ * </p>
+ * <p>
+ * An index file holds, for each block, its number in the data file, its number of readings and the times of its first
+ * and last readings. The index is loaded when opening the archive and is used to seek the blocks of a time range (see
+ * {@link #read(long, long)}). A block is written with its index entry once full. Until then, the block being filled is
+ * saved in a tail file by {@link #flush()} and restored when opening the archive, so only the readings appended since
+ * the last flush are lost if the archive is not closed. An index entry interrupted while written is dropped when
+ * opening the archive.
+ * </p>
+ * <p>
+ * The times of the readings never decrease. When the clock goes back, for example after a reboot without a real-time
+ * clock, the next times are shifted after the time of the previous reading, keeping their spacing, and their block is
+ * marked with the {@link #TIME_ESTIMATED_FLAG} flag. The times are real again once the clock catches up with the
+ * previous reading.
+ * </p>
+ */
+public class SensorArchive {
+
+	/** Size of a block, in bytes. */
+	public static final int BLOCK_SIZE = 512;
+
+	/**
+	 * Flag set in the number of readings of a block whose times have been shifted after a regression of the clock.
+	 */
+	public static final int TIME_ESTIMATED_FLAG = 0x8000;
+
+	static final int HEADER_SIZE = 2 + 8;
+	static final int MIN_READING_SIZE = 4;
+	static final int MAX_READINGS_PER_BLOCK = (BLOCK_SIZE - HEADER_SIZE) / MIN_READING_SIZE;
+
+	private static final int MAX_VARINT_SIZE = 5;
+	private static final int MAX_READING_SIZE = 4 * MAX_VARINT_SIZE;
+	private static final int INDEX_ENTRY_SIZE = 4 + 4 + 8 + 8;
+	private static final int INITIAL_INDEX_CAPACITY = 16;
+	private static final String DATA_EXTENSION = ".dat"; //$NON-NLS-1$
+	private static final String INDEX_EXTENSION = ".idx"; //$NON-NLS-1$
+	private static final String TAIL_EXTENSION = ".tail"; //$NON-NLS-1$
+
+	private final File dataFile;
+	private final File indexFile;
+	private final File tailFile;
+
+	private int[] indexBlocks;
+	private int[] indexReadingsCounts;
+	private long[] indexFirstTimes;
+	private long[] indexLastTimes;
+	private int indexCount;
+	private int blocksCount;
+	private long archivedReadingsCount;
+
+	// block being filled
+	private final byte[] block;
+	private int blockPosition;
+	private int blockReadingsCount;
+	private long blockFirstTime;
+	private boolean blockTimeEstimated;
+	private long lastTime;
+	// shift of the times since the last regression of the clock
+	private long timeOffset;
+	private int lastTemperature;
+	private int lastHumidity;
+	private int lastPressure;
+
+	/**
+	 * Creates an archive. The archive must be opened before use.
+	 *
+	 * @param path
+	 *            the path of the archive files, without extension.
+	 */
+	public SensorArchive(String path) {
+		this.dataFile = new File(path + DATA_EXTENSION);
+		this.indexFile = new File(path + INDEX_EXTENSION);
+		this.tailFile = new File(path + TAIL_EXTENSION);
+		this.indexBlocks = new int[INITIAL_INDEX_CAPACITY];
+		this.indexReadingsCounts = new int[INITIAL_INDEX_CAPACITY];
+		this.indexFirstTimes = new long[INITIAL_INDEX_CAPACITY];
+		this.indexLastTimes = new long[INITIAL_INDEX_CAPACITY];
+		this.block = new byte[BLOCK_SIZE];
+	}
+
+	/**
+	 * Opens the archive: loads the index and the block being filled, and creates the files if needed.
+	 *
+	 * @throws IOException
+	 *             if the files cannot be read or created.
+	 */
+	public synchronized void open() throws IOException {
+		this.indexCount = 0;
+		this.archivedReadingsCount = 0;
+		if (this.indexFile.exists()) {
+			long indexLength = this.indexFile.length();
+			DataInputStream input = new DataInputStream(new FileInputStream(this.indexFile));
+			try {
+				int entries = (int) (indexLength / INDEX_ENTRY_SIZE);
+				for (int i = 0; i < entries; i++) {
+					addIndexEntry(input.readInt(), input.readInt(), input.readLong(), input.readLong());
+				}
+			} finally {
+				input.close();
+			}
+			if (indexLength % INDEX_ENTRY_SIZE != 0) {
+				// An entry interrupted while written would shift the next ones: keep only the whole entries.
+				writeIndex();
+			}
+		}
+
+		// A block interrupted while written is not referenced by the index: complete it to keep the blocks aligned.
+		long dataLength = this.dataFile.exists() ? this.dataFile.length() : 0;
+		int padding = (int) ((BLOCK_SIZE - dataLength % BLOCK_SIZE) % BLOCK_SIZE);
+		if (padding > 0) {
+			OutputStream output = new FileOutputStream(this.dataFile, true);
+			try {
+				output.write(new byte[padding]);
+			} finally {
+				output.close();
+			}
+		}
+		this.blocksCount = (int) ((dataLength + padding) / BLOCK_SIZE);
+		startBlock();
+		if (this.tailFile.exists()) {
+			loadTail();
+		}
+	}
+
+	/**
+	 * Appends a reading.
+	 * <p>
+	 * A time before the time of the previous reading is shifted after this latter and marked as estimated (see
+	 * {@link #TIME_ESTIMATED_FLAG}).
+	 *
+	 * @param time
+	 *            the time of the reading, in milliseconds.
+	 * @param temperature
+	 *            the temperature.
+	 * @param humidity
+	 *            the humidity.
+	 * @param pressure
+	 *            the pressure.
+	 * @throws IOException
+	 *             if the block cannot be written.
+	 */
+	public synchronized void append(long time, int temperature, int humidity, int pressure) throws IOException {
+		if (this.timeOffset != 0 && time >= this.lastTime) {
+			// the clock has caught up with the previous reading: the times are real again
+			this.timeOffset = 0;
+		}
+		long readingTime = time + this.timeOffset;
+		if (readingTime < this.lastTime) {
+			// the clock went back: shift the next times after the previous reading, keeping their spacing
+			this.timeOffset += this.lastTime - readingTime;
+			readingTime = this.lastTime;
+		}
+		boolean timeEstimated = this.timeOffset != 0;
+		if (this.blockReadingsCount > 0 && (BLOCK_SIZE - this.blockPosition < MAX_READING_SIZE
+				|| readingTime - this.lastTime > Integer.MAX_VALUE || timeEstimated != this.blockTimeEstimated)) {
+			writeBlock();
+		}
+
+		byte[] block = this.block;
+		int position = this.blockPosition;
+		if (this.blockReadingsCount == 0) {
+			writeLong(block, 2, readingTime);
+			position = writeVarint(block, position, zigzag(temperature));
+			position = writeVarint(block, position, zigzag(humidity));
+			position = writeVarint(block, position, zigzag(pressure));
+			this.blockFirstTime = readingTime;
+			this.blockTimeEstimated = timeEstimated;
+		} else {
+			position = writeVarint(block, position, (int) (readingTime - this.lastTime));
+			position = writeVarint(block, position, zigzag(temperature - this.lastTemperature));
+			position = writeVarint(block, position, zigzag(humidity - this.lastHumidity));
+			position = writeVarint(block, position, zigzag(pressure - this.lastPressure));
+		}
+		this.blockPosition = position;
+		this.blockReadingsCount++;
+		this.lastTime = readingTime;
+		this.lastTemperature = temperature;
+		this.lastHumidity = humidity;
+		this.lastPressure = pressure;
+	}
+
+	/**
+	 * Saves the block being filled in the tail file, to be restored when opening the archive again.
+	 *
+	 * @throws IOException
+	 *             if the tail file cannot be written.
+	 */
+	public synchronized void flush() throws IOException {
+		if (this.blockReadingsCount == 0) {
+			return;
+		}
+		// a tail interrupted while written is truncated and ignored when opening the archive
+		DataOutputStream output = new DataOutputStream(new FileOutputStream(this.tailFile));
+		try {
+			output.writeInt(this.blocksCount);
+			output.writeInt(this.blockPosition);
+			output.writeInt(this.blockReadingsCount);
+			output.writeLong(this.blockFirstTime);
+			output.writeBoolean(this.blockTimeEstimated);
+			output.writeLong(this.lastTime);
+			output.writeInt(this.lastTemperature);
+			output.writeInt(this.lastHumidity);
+			output.writeInt(this.lastPressure);
+			output.write(this.block, 0, this.blockPosition);
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Closes the archive: writes the current block, even if not full.
+	 *
+	 * @throws IOException
+	 *             if the block cannot be written.
+	 */
+	public synchronized void close() throws IOException {
+		if (this.blockReadingsCount > 0) {
+			writeBlock();
+		}
+	}
+
+	/**
+	 * Reads the readings of a time range.
+	 * <p>
+	 * Only the blocks written to the data file are read: the readings of the block being filled are not included.
+	 *
+	 * @param from
+	 *            the start of the range, in milliseconds (inclusive).
+	 * @param to
+	 *            the end of the range, in milliseconds (inclusive).
+	 * @return the reader of the range, to be closed after use.
+	 * @throws IOException
+	 *             if the data file cannot be opened.
+	 */
+	public synchronized SensorArchiveReader read(long from, long to) throws IOException {
+		int count = this.indexCount;
+		// first block ending after the start of the range
+		int low = 0;
+		int high = count;
+		long[] lastTimes = this.indexLastTimes;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (lastTimes[middle] < from) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		// the index arrays are only appended to, the reader keeps the entries known at its creation
+		return new SensorArchiveReader(this.dataFile, this.indexBlocks, this.indexFirstTimes, low, count, from, to);
+	}
+
+	/**
+	 * Gets the number of readings written to the file system.
+	 *
+	 * @return the number of archived readings.
+	 */
+	public synchronized long getArchivedReadingsCount() {
+		return this.archivedReadingsCount;
+	}
+
+	/**
+	 * Gets the size of the data file.
+	 *
+	 * @return the size, in bytes.
+	 */
+	public synchronized long getDataSize() {
+		return (long) this.blocksCount * BLOCK_SIZE;
+	}
+
+	private void startBlock() {
+		this.blockPosition = HEADER_SIZE;
+		this.blockReadingsCount = 0;
+		Arrays.fill(this.block, (byte) 0);
+	}
+
+	private void writeBlock() throws IOException {
+		byte[] block = this.block;
+		int readingsCount = this.blockReadingsCount;
+		int header = this.blockTimeEstimated ? readingsCount | TIME_ESTIMATED_FLAG : readingsCount;
+		block[0] = (byte) (header >> 8);
+		block[1] = (byte) header;
+
+		int blockNumber = this.blocksCount;
+		OutputStream output = new FileOutputStream(this.dataFile, true);
+		try {
+			output.write(block);
+		} finally {
+			output.close();
+		}
+		this.blocksCount = blockNumber + 1;
+
+		DataOutputStream indexOutput = new DataOutputStream(new FileOutputStream(this.indexFile, true));
+		try {
+			indexOutput.writeInt(blockNumber);
+			indexOutput.writeInt(readingsCount);
+			indexOutput.writeLong(this.blockFirstTime);
+			indexOutput.writeLong(this.lastTime);
+		} finally {
+			indexOutput.close();
+		}
+		addIndexEntry(blockNumber, readingsCount, this.blockFirstTime, this.lastTime);
+		startBlock();
+		if (this.tailFile.exists()) {
+			this.tailFile.delete();
+		}
+	}
+
+	private void loadTail() throws IOException {
+		DataInputStream input = new DataInputStream(new FileInputStream(this.tailFile));
+		try {
+			// a tail saved before its block was written to the data file is outdated
+			if (input.readInt() != this.blocksCount) {
+				return;
+			}
+			int position = input.readInt();
+			int readingsCount = input.readInt();
+			long firstTime = input.readLong();
+			boolean timeEstimated = input.readBoolean();
+			long lastTime = input.readLong();
+			int lastTemperature = input.readInt();
+			int lastHumidity = input.readInt();
+			int lastPressure = input.readInt();
+			if (position < HEADER_SIZE || position > BLOCK_SIZE) {
+				return;
+			}
+			input.readFully(this.block, 0, position);
+			this.blockPosition = position;
+			this.blockReadingsCount = readingsCount;
+			this.blockFirstTime = firstTime;
+			this.blockTimeEstimated = timeEstimated;
+			this.lastTime = Math.max(this.lastTime, lastTime);
+			this.lastTemperature = lastTemperature;
+			this.lastHumidity = lastHumidity;
+			this.lastPressure = lastPressure;
+		} catch (EOFException e) {
+			// the tail has been interrupted while written
+			startBlock();
+		} finally {
+			input.close();
+		}
+	}
+
+	private void writeIndex() throws IOException {
+		DataOutputStream output = new DataOutputStream(new FileOutputStream(this.indexFile));
+		try {
+			for (int i = 0; i < this.indexCount; i++) {
+				output.writeInt(this.indexBlocks[i]);
+				output.writeInt(this.indexReadingsCounts[i]);
+				output.writeLong(this.indexFirstTimes[i]);
+				output.writeLong(this.indexLastTimes[i]);
+			}
+		} finally {
+			output.close();
+		}
+	}
+
+	private void addIndexEntry(int blockNumber, int readingsCount, long firstTime, long lastTime) {
+		int count = this.indexCount;
+		if (count == this.indexBlocks.length) {
+			int capacity = count * 2;
+			int[] blocks = new int[capacity];
+			System.arraycopy(this.indexBlocks, 0, blocks, 0, count);
+			int[] readingsCounts = new int[capacity];
+			System.arraycopy(this.indexReadingsCounts, 0, readingsCounts, 0, count);
+			long[] firstTimes = new long[capacity];
+			System.arraycopy(this.indexFirstTimes, 0, firstTimes, 0, count);
+			long[] lastTimes = new long[capacity];
+			System.arraycopy(this.indexLastTimes, 0, lastTimes, 0, count);
+			this.indexBlocks = blocks;
+			this.indexReadingsCounts = readingsCounts;
+			this.indexFirstTimes = firstTimes;
+			this.indexLastTimes = lastTimes;
+		}
+		this.indexBlocks[count] = blockNumber;
+		this.indexReadingsCounts[count] = readingsCount;
+		this.indexFirstTimes[count] = firstTime;
+		this.indexLastTimes[count] = lastTime;
+		this.indexCount = count + 1;
+		this.lastTime = Math.max(this.lastTime, lastTime);
+		this.archivedReadingsCount += readingsCount;
+	}
+
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int writeVarint(byte[] buffer, int offset, int value) {
+		int position = offset;
+		int remaining = value;
+		while ((remaining & ~0x7F) != 0) {
+			buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		buffer[position++] = (byte) remaining;
+		return position;
+	}
+
+	private static void writeLong(byte[] buffer, int offset, long value) {
+		for (int i = 0; i < 8; i++) {
+			buffer[offset + i] = (byte) (value >>> (56 - 8 * i));
+		}
+	}
+}
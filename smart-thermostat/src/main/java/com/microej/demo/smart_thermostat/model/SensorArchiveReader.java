@@ -0,0 +1,256 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ej.bon.Util;
+
+/**
+ * Streaming reader of the readings of a {@link SensorArchive} within a time range.
+ * <p>
+ * The blocks are decoded one at a time into buffers reused from one block to the next: after each call to
+ * {@link #nextBlock()}, the readings of the block within the range are available from index 0 to
+ * {@link #getCount()} excluded.
+ * </p>
+ */
+public class SensorArchiveReader {
+
+	private static final Logger LOGGER = Logger.getLogger(SensorArchiveReader.class.getName());
+
+	private final InputStream input;
+	private final int[] blocks;
+	private final long[] firstTimes;
+	private final int endEntry;
+	private final long from;
+	private final long to;
+	private final long startTime;
+
+	private int entry;
+	private long inputPosition;
+	private int blocksRead;
+	private long readingsRead;
+
+	private final byte[] block;
+	private final long[] times;
+	private final int[] temperatures;
+	private final int[] humidities;
+	private final int[] pressures;
+	private int count;
+	private boolean timeEstimated;
+	// end of the varint read last
+	private int varintEnd;
+
+	/**
+	 * Creates a reader.
+	 */
+	SensorArchiveReader(File dataFile, int[] blocks, long[] firstTimes, int startEntry, int endEntry, long from,
+			long to) throws IOException {
+		this.input = new FileInputStream(dataFile);
+		this.blocks = blocks;
+		this.firstTimes = firstTimes;
+		this.entry = startEntry;
+		this.endEntry = endEntry;
+		this.from = from;
+		this.to = to;
+		this.startTime = Util.platformTimeMillis();
+
+		this.block = new byte[SensorArchive.BLOCK_SIZE];
+		int capacity = SensorArchive.MAX_READINGS_PER_BLOCK;
+		this.times = new long[capacity];
+		this.temperatures = new int[capacity];
+		this.humidities = new int[capacity];
+		this.pressures = new int[capacity];
+	}
+
+	/**
+	 * Decodes the next block having readings within the range.
+	 *
+	 * @return {@code false} if there is no more readings within the range, {@code true} otherwise.
+	 * @throws IOException
+	 *             if the block cannot be read.
+	 */
+	public boolean nextBlock() throws IOException {
+		while (this.entry < this.endEntry && this.firstTimes[this.entry] <= this.to) {
+			int blockNumber = this.blocks[this.entry++];
+			readBlock(blockNumber);
+			decodeBlock();
+			if (this.count > 0) {
+				return true;
+			}
+		}
+		this.count = 0;
+		return false;
+	}
+
+	/**
+	 * Gets the number of readings of the current block within the range.
+	 *
+	 * @return the number of readings.
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Gets whether the times of the readings of the current block have been shifted after a regression of the clock
+	 * (see {@link SensorArchive#TIME_ESTIMATED_FLAG}).
+	 *
+	 * @return {@code true} if the times are estimated, {@code false} if they are the times given by the clock.
+	 */
+	public boolean isTimeEstimated() {
+		return this.timeEstimated;
+	}
+
+	/**
+	 * Gets the time of a reading of the current block.
+	 *
+	 * @param index
+	 *            the index of the reading.
+	 * @return the time, in milliseconds.
+	 */
+	public long getTime(int index) {
+		return this.times[index];
+	}
+
+	/**
+	 * Gets the temperature of a reading of the current block.
+	 *
+	 * @param index
+	 *            the index of the reading.
+	 * @return the temperature.
+	 */
+	public int getTemperature(int index) {
+		return this.temperatures[index];
+	}
+
+	/**
+	 * Gets the humidity of a reading of the current block.
+	 *
+	 * @param index
+	 *            the index of the reading.
+	 * @return the humidity.
+	 */
+	public int getHumidity(int index) {
+		return this.humidities[index];
+	}
+
+	/**
+	 * Gets the pressure of a reading of the current block.
+	 *
+	 * @param index
+	 *            the index of the reading.
+	 * @return the pressure.
+	 */
+	public int getPressure(int index) {
+		return this.pressures[index];
+	}
+
+	/**
+	 * Closes the reader.
+	 *
+	 * @throws IOException
+	 *             if the data file cannot be closed.
+	 */
+	public void close() throws IOException {
+		this.input.close();
+		if (LOGGER.isLoggable(Level.FINE)) {
+			LOGGER.fine("read " + this.readingsRead + " readings from " + this.blocksRead + " blocks in " //$NON-NLS-1$ //$NON-NLS-2$
+					+ (Util.platformTimeMillis() - this.startTime) + " ms"); //$NON-NLS-1$
+		}
+	}
+
+	private void readBlock(int blockNumber) throws IOException {
+		long blockPosition = (long) blockNumber * SensorArchive.BLOCK_SIZE;
+		long toSkip = blockPosition - this.inputPosition;
+		while (toSkip > 0) {
+			long skipped = this.input.skip(toSkip);
+			if (skipped <= 0) {
+				throw new IOException("cannot seek block " + blockNumber); //$NON-NLS-1$
+			}
+			toSkip -= skipped;
+		}
+		byte[] block = this.block;
+		int offset = 0;
+		while (offset < block.length) {
+			int read = this.input.read(block, offset, block.length - offset);
+			if (read == -1) {
+				throw new IOException("truncated block " + blockNumber); //$NON-NLS-1$
+			}
+			offset += read;
+		}
+		this.inputPosition = blockPosition + block.length;
+		this.blocksRead++;
+	}
+
+	private void decodeBlock() {
+		byte[] block = this.block;
+		int header = ((block[0] & 0xFF) << 8) | (block[1] & 0xFF);
+		int readingsCount = header & ~SensorArchive.TIME_ESTIMATED_FLAG;
+		this.timeEstimated = (header & SensorArchive.TIME_ESTIMATED_FLAG) != 0;
+		long time = 0;
+		for (int i = 0; i < 8; i++) {
+			time = (time << 8) | (block[2 + i] & 0xFF);
+		}
+
+		int position = SensorArchive.HEADER_SIZE;
+		int temperature = 0;
+		int humidity = 0;
+		int pressure = 0;
+		int count = 0;
+		long from = this.from;
+		long to = this.to;
+		for (int i = 0; i < readingsCount; i++) {
+			if (i > 0) {
+				time += readVarint(block, position);
+				position = this.varintEnd;
+			}
+			temperature += unzigzag(readVarint(block, position));
+			position = this.varintEnd;
+			humidity += unzigzag(readVarint(block, position));
+			position = this.varintEnd;
+			pressure += unzigzag(readVarint(block, position));
+			position = this.varintEnd;
+
+			if (time > to) {
+				break;
+			}
+			if (time >= from) {
+				this.times[count] = time;
+				this.temperatures[count] = temperature;
+				this.humidities[count] = humidity;
+				this.pressures[count] = pressure;
+				count++;
+			}
+		}
+		this.count = count;
+		this.readingsRead += count;
+	}
+
+	private int readVarint(byte[] buffer, int offset) {
+		int position = offset;
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = buffer[position++] & 0xFF;
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		this.varintEnd = position;
+		return value;
+	}
+
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ej.bon.Constants;
+import ej.bon.Timer;
+import ej.bon.TimerTask;
+import ej.bon.Util;
+import ej.service.ServiceFactory;
+
+/**
+ * Periodically appends the current readings of the model to a {@link SensorArchive}.
+ * <p>
+ * The block being filled is flushed to the file system every {@value #FLUSH_CONSTANT} readings, so that a reset loses
+ * at most these readings.
+ * </p>
+ */
+public class SensorArchiveRecorder extends TimerTask {
+
+	/** Constant enabling the archive. */
+	public static final String ENABLE_CONSTANT = "archive.enable"; //$NON-NLS-1$
+	/** Constant setting the path of the archive files, without extension. */
+	public static final String PATH_CONSTANT = "archive.path"; //$NON-NLS-1$
+	/** Constant setting the period between two archived readings, in milliseconds. */
+	public static final String PERIOD_CONSTANT = "archive.period"; //$NON-NLS-1$
+	/** Constant setting the number of readings between two flushes of the block being filled. */
+	public static final String FLUSH_CONSTANT = "archive.flush.readings"; //$NON-NLS-1$
+
+	private static final Logger LOGGER = Logger.getLogger(SensorArchiveRecorder.class.getName());
+
+	private final SmartThermostatModel model;
+	private final SensorArchive archive;
+	private final int flushReadings;
+	private long archivedReadingsCount;
+	private int unflushedReadings;
+
+	/**
+	 * Creates an archive recorder.
+	 *
+	 * @param model
+	 *            the model to read the readings from.
+	 * @param archive
+	 *            the opened archive to append the readings to.
+	 */
+	public SensorArchiveRecorder(SmartThermostatModel model, SensorArchive archive) {
+		this.model = model;
+		this.archive = archive;
+		this.flushReadings = Constants.getInt(FLUSH_CONSTANT);
+		this.archivedReadingsCount = archive.getArchivedReadingsCount();
+	}
+
+	/**
+	 * Starts recording the readings of the model, if enabled by the {@value #ENABLE_CONSTANT} constant.
+	 *
+	 * @param model
+	 *            the model to read the readings from.
+	 */
+	public static void start(SmartThermostatModel model) {
+		if (!Constants.getBoolean(ENABLE_CONSTANT)) {
+			return;
+		}
+		SensorArchive archive = new SensorArchive(Constants.getString(PATH_CONSTANT));
+		try {
+			archive.open();
+		} catch (IOException e) {
+			LOGGER.warning("cannot open the sensors archive: " + e.getMessage()); //$NON-NLS-1$
+			return;
+		}
+		long period = Constants.getLong(PERIOD_CONSTANT);
+		ServiceFactory.getService(Timer.class, Timer.class).schedule(new SensorArchiveRecorder(model, archive),
+				period, period);
+	}
+
+	@Override
+	public void run() {
+		ThermostatSnapshot snapshot = this.model.getSnapshot();
+		SensorArchive archive = this.archive;
+		try {
+			archive.append(Util.currentTimeMillis(), snapshot.getTemperature(), snapshot.getHumidity(),
+					snapshot.getPressure());
+			if (++this.unflushedReadings >= this.flushReadings) {
+				archive.flush();
+				this.unflushedReadings = 0;
+			}
+		} catch (IOException e) {
+			LOGGER.warning("cannot write the sensors archive: " + e.getMessage()); //$NON-NLS-1$
+			cancel();
+			return;
+		}
+
+		long archivedReadingsCount = archive.getArchivedReadingsCount();
+		if (archivedReadingsCount != this.archivedReadingsCount) {
+			// a block has been written
+			this.archivedReadingsCount = archivedReadingsCount;
+			this.unflushedReadings = 0;
+			if (LOGGER.isLoggable(Level.FINE)) {
+				LOGGER.fine("archived " + archivedReadingsCount + " readings in " + archive.getDataSize() //$NON-NLS-1$ //$NON-NLS-2$
+						+ " bytes (" + (archive.getDataSize() * 100 / archivedReadingsCount) / 100f //$NON-NLS-1$
+						+ " bytes per reading)"); //$NON-NLS-1$
+			}
+		}
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import static com.microej.demo.smart_thermostat.model.SensorHubProtocol.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.microej.demo.smart_thermostat.common.Crc8;
+
+/**
+ * Decodes the frames sent by the sensor hub (see {@link SensorHubProtocol}) and applies their values to the model.
+ * <p>
+ * The bytes are read into a fixed buffer and no object is allocated per frame. When a frame is corrupted (wrong CRC,
+ * unknown type or varint too long), the decoder resynchronizes on the next sync word found after the beginning of the
+ * corrupted frame. The values decoded from the bytes of a same read are applied to the model in a single batch, the
+ * latest value of each type winning.
+ * </p>
+ */
+public class SensorHubDecoder {
+
+	private static final int BUFFER_SIZE = 256;
+	private static final int TYPE_OFFSET = 2;
+	private static final int VALUE_OFFSET = 3;
+
+	private final byte[] buffer;
+	private int start;
+	private int end;
+
+	private final int[] values;
+	private int typesMask;
+
+	private long framesCount;
+	private long errorsCount;
+	private long skippedBytesCount;
+	private long batchesCount;
+
+	/**
+	 * Creates a sensor hub decoder.
+	 */
+	public SensorHubDecoder() {
+		this.buffer = new byte[BUFFER_SIZE];
+		this.values = new int[SmartThermostatModel.MAX_TYPE + 1];
+	}
+
+	/**
+	 * Reads the next bytes of a stream, and applies the values of the frames completed by these bytes to the model.
+	 * <p>
+	 * This method blocks until some bytes are available.
+	 *
+	 * @param input
+	 *            the stream to read.
+	 * @param model
+	 *            the model to update.
+	 * @return {@code false} if the end of the stream has been reached, {@code true} otherwise.
+	 * @throws IOException
+	 *             if an error occurs while reading the stream.
+	 */
+	public boolean decode(InputStream input, SmartThermostatModel model) throws IOException {
+		compact();
+		int read = input.read(this.buffer, this.end, this.buffer.length - this.end);
+		if (read == -1) {
+			return false;
+		}
+		this.end += read;
+		decodeFrames();
+		if (this.typesMask != 0) {
+			model.applyValues(this.values, this.typesMask);
+			this.typesMask = 0;
+			this.batchesCount++;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the number of valid frames decoded.
+	 *
+	 * @return the number of frames.
+	 */
+	public long getFramesCount() {
+		return this.framesCount;
+	}
+
+	/**
+	 * Gets the number of corrupted frames.
+	 *
+	 * @return the number of errors.
+	 */
+	public long getErrorsCount() {
+		return this.errorsCount;
+	}
+
+	/**
+	 * Gets the number of bytes skipped while looking for a sync word.
+	 *
+	 * @return the number of skipped bytes.
+	 */
+	public long getSkippedBytesCount() {
+		return this.skippedBytesCount;
+	}
+
+	/**
+	 * Gets the number of batches applied to the model.
+	 *
+	 * @return the number of batches.
+	 */
+	public long getBatchesCount() {
+		return this.batchesCount;
+	}
+
+	private void compact() {
+		int start = this.start;
+		if (start > 0) {
+			int remaining = this.end - start;
+			System.arraycopy(this.buffer, start, this.buffer, 0, remaining);
+			this.start = 0;
+			this.end = remaining;
+		}
+	}
+
+	private void decodeFrames() {
+		byte[] buffer = this.buffer;
+		int end = this.end;
+		int position = this.start;
+
+		while (true) {
+			// look for the sync word
+			int searchStart = position;
+			while (position + 1 < end && ((buffer[position] & 0xFF) != SYNC_FIRST
+					|| (buffer[position + 1] & 0xFF) != SYNC_SECOND)) {
+				position++;
+			}
+			this.skippedBytesCount += position - searchStart;
+			if (end - position < MIN_FRAME_SIZE) {
+				// wait for the rest of the frame
+				break;
+			}
+
+			// read the varint value
+			int valueStart = position + VALUE_OFFSET;
+			int valueEnd = valueStart;
+			int encoded = 0;
+			int shift = 0;
+			boolean complete = false;
+			while (valueEnd < end && valueEnd - valueStart < MAX_VARINT_SIZE) {
+				int b = buffer[valueEnd++] & 0xFF;
+				encoded |= (b & 0x7F) << shift;
+				shift += 7;
+				if ((b & 0x80) == 0) {
+					complete = true;
+					break;
+				}
+			}
+			if (!complete && valueEnd - valueStart < MAX_VARINT_SIZE) {
+				// wait for the rest of the frame
+				break;
+			}
+			if (complete && valueEnd == end) {
+				// wait for the CRC
+				break;
+			}
+
+			int type = buffer[position + TYPE_OFFSET] & 0xFF;
+			if (!complete || type < 1 || type > SmartThermostatModel.MAX_INPUT_TYPE
+					|| (buffer[valueEnd] & 0xFF) != Crc8.compute(buffer, position + TYPE_OFFSET,
+							valueEnd - position - TYPE_OFFSET)) {
+				// corrupted frame: resynchronize after its first byte
+				this.errorsCount++;
+				this.skippedBytesCount++;
+				position++;
+				continue;
+			}
+
+			this.values[type] = decodeZigzag(encoded);
+			this.typesMask |= SmartThermostatModel.getTypeMask(type);
+			this.framesCount++;
+			position = valueEnd + 1;
+		}
+		this.start = position;
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import com.microej.demo.smart_thermostat.common.Crc8;
+
+/**
+ * Framing of the values sent by the sensor hub.
+ * <p>
+ * Each frame carries one value:
+ * </p>
+ * <ul>
+ * <li>the sync word: {@value #SYNC_FIRST} then {@value #SYNC_SECOND},</li>
+ * <li>the type of the value, on one byte (see {@link SmartThermostatModel} types),</li>
+ * <li>the value, zigzag encoded as an unsigned varint (7 bits per byte, least significant group first, the most
+ * significant bit set on all the bytes but the last),</li>
+ * <li>the CRC-8 (polynomial 0x07, initial value 0, see {@link Crc8}) of the type and value bytes.</li>
+ * </ul>
+ */
+public class SensorHubProtocol {
+
+	/** First byte of the sync word. */
+	public static final int SYNC_FIRST = 0xA5;
+	/** Second byte of the sync word. */
+	public static final int SYNC_SECOND = 0x5A;
+	/** Maximum number of bytes of a varint value. */
+	public static final int MAX_VARINT_SIZE = 5;
+	/** Size of the smallest frame: sync word, type, one byte value and CRC. */
+	public static final int MIN_FRAME_SIZE = 5;
+	/** Size of the largest frame. */
+	public static final int MAX_FRAME_SIZE = 4 + MAX_VARINT_SIZE;
+
+	/**
+	 * Hides the constructor in order to prevent instantiating a class containing only static methods.
+	 */
+	private SensorHubProtocol() {
+		// prevent instantiation
+	}
+
+	/**
+	 * Encodes a frame.
+	 *
+	 * @param valueType
+	 *            the type of the value.
+	 * @param value
+	 *            the value.
+	 * @param buffer
+	 *            the buffer to write the frame to, with at least {@link #MAX_FRAME_SIZE} bytes available from the
+	 *            offset.
+	 * @param offset
+	 *            the offset of the frame in the buffer.
+	 * @return the size of the frame.
+	 */
+	public static int encode(int valueType, int value, byte[] buffer, int offset) {
+		int position = offset;
+		buffer[position++] = (byte) SYNC_FIRST;
+		buffer[position++] = (byte) SYNC_SECOND;
+		int payloadStart = position;
+		buffer[position++] = (byte) valueType;
+		int encoded = (value << 1) ^ (value >> 31);
+		while ((encoded & ~0x7F) != 0) {
+			buffer[position++] = (byte) ((encoded & 0x7F) | 0x80);
+			encoded >>>= 7;
+		}
+		buffer[position++] = (byte) encoded;
+		buffer[position] = (byte) Crc8.compute(buffer, payloadStart, position - payloadStart);
+		return position + 1 - offset;
+	}
+
+	/**
+	 * Decodes a zigzag encoded value.
+	 *
+	 * @param encoded
+	 *            the encoded value.
+	 * @return the value.
+	 */
+	public static int decodeZigzag(int encoded) {
+		return (encoded >>> 1) ^ -(encoded & 1);
+	}
+}
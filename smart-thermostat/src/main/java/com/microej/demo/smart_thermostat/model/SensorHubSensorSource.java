@@ -0,0 +1,101 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.Logger;
+
+import ej.bon.Timer;
+import ej.bon.Util;
+
+/**
+ * Sensor source decoding the frames sent by a sensor hub over a byte stream.
+ * <p>
+ * The stream is read in a dedicated thread with a {@link SensorHubDecoder}. When the end of the stream is reached, the
+ * decoding throughput is logged.
+ * </p>
+ */
+public class SensorHubSensorSource implements SensorSource {
+
+	private static final Logger LOGGER = Logger.getLogger(SensorHubSensorSource.class.getName());
+	private static final String THREAD_NAME = "SensorHub"; //$NON-NLS-1$
+	private static final int MILLISECONDS_PER_SECOND = 1000;
+
+	private final InputStream input;
+	private final SensorHubDecoder decoder;
+	private volatile boolean running;
+
+	/**
+	 * Creates a sensor hub source.
+	 *
+	 * @param input
+	 *            the stream sent by the sensor hub.
+	 */
+	public SensorHubSensorSource(InputStream input) {
+		this.input = input;
+		this.decoder = new SensorHubDecoder();
+	}
+
+	@Override
+	public void start(final SmartThermostatModel model, Timer timer) {
+		this.running = true;
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				decode(model);
+			}
+		}, THREAD_NAME);
+		thread.start();
+	}
+
+	@Override
+	public void stop() {
+		this.running = false;
+		close();
+	}
+
+	/**
+	 * Gets the decoder of the sensor hub frames.
+	 *
+	 * @return the decoder.
+	 */
+	public SensorHubDecoder getDecoder() {
+		return this.decoder;
+	}
+
+	private void decode(SmartThermostatModel model) {
+		SensorHubDecoder decoder = this.decoder;
+		long startTime = Util.platformTimeMillis();
+		try {
+			while (this.running && decoder.decode(this.input, model)) {
+				// decode until the end of the stream
+			}
+		} catch (IOException e) {
+			if (this.running) {
+				LOGGER.warning("sensor hub stream error: " + e.getMessage()); //$NON-NLS-1$
+			}
+		} finally {
+			close();
+		}
+
+		long duration = Util.platformTimeMillis() - startTime;
+		long frames = decoder.getFramesCount();
+		LOGGER.info("decoded " + frames + " frames in " + duration + " ms (" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ (frames * MILLISECONDS_PER_SECOND / Math.max(1, duration)) + " frames/s), " //$NON-NLS-1$
+				+ decoder.getBatchesCount() + " batches, " + decoder.getErrorsCount() + " errors, " //$NON-NLS-1$ //$NON-NLS-2$
+				+ decoder.getSkippedBytesCount() + " skipped bytes"); //$NON-NLS-1$
+	}
+
+	private void close() {
+		try {
+			this.input.close();
+		} catch (IOException e) {
+			// nothing to do, the stream is not used anymore
+		}
+	}
+}
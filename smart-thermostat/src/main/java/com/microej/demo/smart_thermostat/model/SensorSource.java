@@ -0,0 +1,32 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import ej.bon.Timer;
+
+/**
+ * Source of the sensors readings applied to the thermostat model.
+ *
+ * @see ValueProvider
+ */
+public interface SensorSource {
+
+	/**
+	 * Starts providing the readings to the model.
+	 *
+	 * @param model
+	 *            the model to be provided with values.
+	 * @param timer
+	 *            the timer to schedule the readings on.
+	 */
+	void start(SmartThermostatModel model, Timer timer);
+
+	/**
+	 * Stops providing the readings.
+	 */
+	void stop();
+}
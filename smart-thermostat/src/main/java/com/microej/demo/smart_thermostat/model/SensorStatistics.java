@@ -0,0 +1,162 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+/**
+ * Statistics of the sensor values (temperature, humidity and pressure) over several sliding windows.
+ * <p>
+ * The statistics are updated incrementally with each value set in the model: adding a value and reading a statistic
+ * take a constant time and do not allocate. The values are averaged in slots whose duration depends on the window, so
+ * the longest windows keep a small memory footprint.
+ * </p>
+ * <p>
+ * The statistics are in hundredths of the unit of the value, except the minimum and the maximum.
+ * </p>
+ */
+public class SensorStatistics {
+
+	/**
+	 * The window of the last 10 minutes, with a resolution of 10 seconds.
+	 */
+	public static final int WINDOW_10_MINUTES = 0;
+	/**
+	 * The window of the last hour, with a resolution of 1 minute.
+	 */
+	public static final int WINDOW_1_HOUR = 1;
+	/**
+	 * The window of the last 3 hours, with a resolution of 3 minutes.
+	 */
+	public static final int WINDOW_3_HOURS = 2;
+
+	private static final long SECOND = 1000;
+	private static final long MINUTE = 60 * SECOND;
+	private static final long[] DURATIONS = { 10 * MINUTE, 60 * MINUTE, 180 * MINUTE };
+	private static final long[] RESOLUTIONS = { 10 * SECOND, MINUTE, 3 * MINUTE };
+
+	// indexed by value type, then by window
+	private final SlidingWindow[][] windows;
+
+	/**
+	 * Creates the statistics of the sensor values.
+	 */
+	SensorStatistics() {
+		SlidingWindow[][] windows = new SlidingWindow[SmartThermostatModel.PRESSURE_TYPE + 1][];
+		for (int type = SmartThermostatModel.TEMPERATURE_TYPE; type <= SmartThermostatModel.PRESSURE_TYPE; type++) {
+			SlidingWindow[] typeWindows = new SlidingWindow[DURATIONS.length];
+			for (int window = 0; window < typeWindows.length; window++) {
+				typeWindows[window] = new SlidingWindow(DURATIONS[window], RESOLUTIONS[window]);
+			}
+			windows[type] = typeWindows;
+		}
+		this.windows = windows;
+	}
+
+	/**
+	 * Gets whether statistics are computed for a type of value.
+	 *
+	 * @param valueType
+	 *            the type of value.
+	 * @return {@code true} if the type is a sensor value.
+	 */
+	public static boolean isTracked(int valueType) {
+		return valueType >= SmartThermostatModel.TEMPERATURE_TYPE && valueType <= SmartThermostatModel.PRESSURE_TYPE;
+	}
+
+	/**
+	 * Records a value of a tracked type.
+	 *
+	 * @param valueType
+	 *            the type of value.
+	 * @param time
+	 *            the time of the value, in milliseconds.
+	 * @param value
+	 *            the value.
+	 */
+	synchronized void record(int valueType, long time, int value) {
+		for (SlidingWindow window : this.windows[valueType]) {
+			window.add(time, value);
+		}
+	}
+
+	/**
+	 * Gets the minimum of a value over a window.
+	 *
+	 * @param valueType
+	 *            the type of value, see {@link #isTracked(int)}.
+	 * @param window
+	 *            the window, one of {@link #WINDOW_10_MINUTES}, {@link #WINDOW_1_HOUR} or {@link #WINDOW_3_HOURS}.
+	 * @return the minimum.
+	 */
+	public synchronized int getMin(int valueType, int window) {
+		return this.windows[valueType][window].getMin();
+	}
+
+	/**
+	 * Gets the maximum of a value over a window.
+	 *
+	 * @param valueType
+	 *            the type of value, see {@link #isTracked(int)}.
+	 * @param window
+	 *            the window, one of {@link #WINDOW_10_MINUTES}, {@link #WINDOW_1_HOUR} or {@link #WINDOW_3_HOURS}.
+	 * @return the maximum.
+	 */
+	public synchronized int getMax(int valueType, int window) {
+		return this.windows[valueType][window].getMax();
+	}
+
+	/**
+	 * Gets the mean of a value over a window.
+	 *
+	 * @param valueType
+	 *            the type of value, see {@link #isTracked(int)}.
+	 * @param window
+	 *            the window, one of {@link #WINDOW_10_MINUTES}, {@link #WINDOW_1_HOUR} or {@link #WINDOW_3_HOURS}.
+	 * @return the mean, in hundredths.
+	 */
+	public synchronized int getMean(int valueType, int window) {
+		return this.windows[valueType][window].getMean();
+	}
+
+	/**
+	 * Gets the variance of a value over a window.
+	 *
+	 * @param valueType
+	 *            the type of value, see {@link #isTracked(int)}.
+	 * @param window
+	 *            the window, one of {@link #WINDOW_10_MINUTES}, {@link #WINDOW_1_HOUR} or {@link #WINDOW_3_HOURS}.
+	 * @return the variance, in hundredths.
+	 */
+	public synchronized int getVariance(int valueType, int window) {
+		return this.windows[valueType][window].getVariance();
+	}
+
+	/**
+	 * Gets the trend of a value over a window: the slope of its linear regression.
+	 *
+	 * @param valueType
+	 *            the type of value, see {@link #isTracked(int)}.
+	 * @param window
+	 *            the window, one of {@link #WINDOW_10_MINUTES}, {@link #WINDOW_1_HOUR} or {@link #WINDOW_3_HOURS}.
+	 * @return the trend, in hundredths per hour.
+	 */
+	public synchronized int getTrend(int valueType, int window) {
+		return this.windows[valueType][window].getTrend();
+	}
+
+	/**
+	 * Gets the number of slots of a window holding values.
+	 *
+	 * @param valueType
+	 *            the type of value, see {@link #isTracked(int)}.
+	 * @param window
+	 *            the window, one of {@link #WINDOW_10_MINUTES}, {@link #WINDOW_1_HOUR} or {@link #WINDOW_3_HOURS}.
+	 * @return the number of slots.
+	 */
+	public synchronized int getCount(int valueType, int window) {
+		return this.windows[valueType][window].getCount();
+	}
+}
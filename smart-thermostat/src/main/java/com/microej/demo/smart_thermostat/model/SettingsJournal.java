@@ -0,0 +1,328 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microej.demo.smart_thermostat.common.Crc8;
+
+import ej.annotation.Nullable;
+import ej.bon.Constants;
+import ej.bon.Timer;
+import ej.bon.TimerTask;
+import ej.service.ServiceFactory;
+
+/**
+ * Persistent journal of the user settings: the temperature threshold and the fan state.
+ * <p>
+ * Each save appends a record of {@value #RECORD_SIZE} bytes holding all the settings, so the last record is enough to
+ * restore them: at startup, only the tail of the journal is read. A record holds a magic byte, a sequence number, the
+ * settings and a CRC-8, so that a record interrupted while written is detected and skipped.
+ * </p>
+ * <p>
+ * To limit the wear of the storage, the changes are coalesced: the settings are saved once no change has been made
+ * during the delay set by the {@value #FLUSH_DELAY_CONSTANT} constant. When the journal holds
+ * {@value #MAX_RECORDS} records, it is compacted into a new journal holding only the last record. The new journal
+ * replaces the old one once fully written: if the replacement is interrupted, the journal left is recovered at startup.
+ * A journal without valid record is emptied at startup.
+ * </p>
+ */
+public class SettingsJournal {
+
+	/** Constant setting the path of the journal file. */
+	public static final String PATH_CONSTANT = "settings.path"; //$NON-NLS-1$
+	/** Constant setting the delay without change before saving the settings, in milliseconds. */
+	public static final String FLUSH_DELAY_CONSTANT = "settings.flush.delay"; //$NON-NLS-1$
+
+	private static final Logger LOGGER = Logger.getLogger(SettingsJournal.class.getName());
+
+	private static final int RECORD_SIZE = 12;
+	private static final int MAX_RECORDS = 64;
+	private static final int MAGIC = 0x5E;
+	private static final int SEQUENCE_OFFSET = 1;
+	private static final int THRESHOLD_OFFSET = 5;
+	private static final int FLAGS_OFFSET = 9;
+	private static final int CRC_OFFSET = RECORD_SIZE - 1;
+	private static final int FAN_ON_FLAG = 0x01;
+	private static final String COMPACTION_EXTENSION = ".tmp"; //$NON-NLS-1$
+
+	private static final SettingsJournal INSTANCE = new SettingsJournal(Constants.getString(PATH_CONSTANT),
+			Constants.getLong(FLUSH_DELAY_CONSTANT));
+
+	private final File file;
+	private final File compactedFile;
+	private final long flushDelay;
+	private final byte[] record;
+
+	private int temperatureThreshold;
+	private boolean fanOn;
+	private int sequence;
+	private int recordsCount;
+	private boolean loaded;
+	private @Nullable TimerTask flushTask;
+	private int writesCount;
+
+	/**
+	 * Creates a settings journal.
+	 *
+	 * @param path
+	 *            the path of the journal file.
+	 * @param flushDelay
+	 *            the delay without change before saving the settings, in milliseconds.
+	 */
+	public SettingsJournal(String path, long flushDelay) {
+		this.file = new File(path);
+		this.compactedFile = new File(path + COMPACTION_EXTENSION);
+		this.flushDelay = flushDelay;
+		this.record = new byte[RECORD_SIZE];
+		this.temperatureThreshold = SmartThermostatDefaultValues.DEFAULT_TEMPERATURE_THRESHOLD;
+	}
+
+	/**
+	 * Gets the journal of the application settings.
+	 *
+	 * @return the settings journal.
+	 */
+	public static SettingsJournal getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the temperature threshold, restored from the journal if saved before.
+	 *
+	 * @return the temperature threshold.
+	 */
+	public synchronized int getTemperatureThreshold() {
+		load();
+		return this.temperatureThreshold;
+	}
+
+	/**
+	 * Sets the temperature threshold. The settings are saved after the flush delay.
+	 *
+	 * @param temperatureThreshold
+	 *            the temperature threshold.
+	 */
+	public synchronized void setTemperatureThreshold(int temperatureThreshold) {
+		load();
+		if (this.temperatureThreshold != temperatureThreshold) {
+			this.temperatureThreshold = temperatureThreshold;
+			scheduleFlush();
+		}
+	}
+
+	/**
+	 * Gets whether the fan is on, restored from the journal if saved before.
+	 *
+	 * @return {@code true} if the fan is on.
+	 */
+	public synchronized boolean isFanOn() {
+		load();
+		return this.fanOn;
+	}
+
+	/**
+	 * Sets whether the fan is on. The settings are saved after the flush delay.
+	 *
+	 * @param fanOn
+	 *            {@code true} if the fan is on.
+	 */
+	public synchronized void setFanOn(boolean fanOn) {
+		load();
+		if (this.fanOn != fanOn) {
+			this.fanOn = fanOn;
+			scheduleFlush();
+		}
+	}
+
+	/**
+	 * Gets the number of records written since the application started.
+	 *
+	 * @return the number of writes.
+	 */
+	public synchronized int getWritesCount() {
+		return this.writesCount;
+	}
+
+	/**
+	 * Saves the pending changes now.
+	 */
+	public synchronized void flush() {
+		TimerTask task = this.flushTask;
+		if (task == null) {
+			// nothing pending
+			return;
+		}
+		task.cancel();
+		this.flushTask = null;
+		try {
+			if (this.recordsCount >= MAX_RECORDS) {
+				compact();
+			} else {
+				append();
+			}
+		} catch (IOException e) {
+			LOGGER.warning("cannot save the settings: " + e.getMessage()); //$NON-NLS-1$
+		}
+	}
+
+	private void scheduleFlush() {
+		TimerTask task = this.flushTask;
+		if (task != null) {
+			// coalesce with the pending change
+			task.cancel();
+		}
+		task = new TimerTask() {
+			@Override
+			public void run() {
+				flush();
+			}
+		};
+		this.flushTask = task;
+		ServiceFactory.getService(Timer.class, Timer.class).schedule(task, this.flushDelay);
+	}
+
+	private void load() {
+		if (this.loaded) {
+			return;
+		}
+		this.loaded = true;
+		File file = this.file;
+		File compacted = this.compactedFile;
+		if (compacted.exists()) {
+			if (file.exists()) {
+				// the compaction has been interrupted before replacing the old journal, which is still complete
+				compacted.delete();
+			} else if (!compacted.renameTo(file)) {
+				// the compaction has been interrupted after deleting the old journal, the new one is complete
+				LOGGER.warning("cannot restore the settings from " + compacted.getPath()); //$NON-NLS-1$
+				return;
+			}
+		}
+		if (!file.exists()) {
+			return;
+		}
+		long length = file.length();
+		int records = (int) (length / RECORD_SIZE);
+		try {
+			// the last valid record holds the settings, look backward if the tail has been interrupted
+			for (int index = records - 1; index >= 0 && index >= records - MAX_RECORDS; index--) {
+				if (readRecord(index)) {
+					restore();
+					this.recordsCount = records;
+					if (index != records - 1 || length % RECORD_SIZE != 0) {
+						// drop the interrupted records so that the next records are aligned
+						compact();
+					}
+					return;
+				}
+			}
+			if (length != 0) {
+				// no valid record, for example the first record has been interrupted: drop the journal so that the next
+				// records are aligned
+				new FileOutputStream(file).close();
+			}
+		} catch (IOException e) {
+			LOGGER.warning("cannot read the settings: " + e.getMessage()); //$NON-NLS-1$
+		}
+	}
+
+	private boolean readRecord(int index) throws IOException {
+		byte[] record = this.record;
+		InputStream input = new FileInputStream(this.file);
+		try {
+			long toSkip = (long) index * RECORD_SIZE;
+			while (toSkip > 0) {
+				long skipped = input.skip(toSkip);
+				if (skipped <= 0) {
+					return false;
+				}
+				toSkip -= skipped;
+			}
+			int offset = 0;
+			while (offset < RECORD_SIZE) {
+				int read = input.read(record, offset, RECORD_SIZE - offset);
+				if (read == -1) {
+					return false;
+				}
+				offset += read;
+			}
+		} finally {
+			input.close();
+		}
+		return (record[0] & 0xFF) == MAGIC
+				&& (record[CRC_OFFSET] & 0xFF) == Crc8.compute(record, 0, CRC_OFFSET);
+	}
+
+	private void restore() {
+		byte[] record = this.record;
+		this.sequence = readInt(record, SEQUENCE_OFFSET);
+		this.temperatureThreshold = readInt(record, THRESHOLD_OFFSET);
+		this.fanOn = (record[FLAGS_OFFSET] & FAN_ON_FLAG) != 0;
+		if (LOGGER.isLoggable(Level.FINE)) {
+			LOGGER.fine("settings restored from record " + this.sequence); //$NON-NLS-1$
+		}
+	}
+
+	private void fillRecord() {
+		byte[] record = this.record;
+		this.sequence++;
+		record[0] = (byte) MAGIC;
+		writeInt(record, SEQUENCE_OFFSET, this.sequence);
+		writeInt(record, THRESHOLD_OFFSET, this.temperatureThreshold);
+		record[FLAGS_OFFSET] = (byte) (this.fanOn ? FAN_ON_FLAG : 0);
+		record[FLAGS_OFFSET + 1] = 0;
+		record[CRC_OFFSET] = (byte) Crc8.compute(record, 0, CRC_OFFSET);
+	}
+
+	private void append() throws IOException {
+		fillRecord();
+		write(this.file, true);
+		this.recordsCount++;
+	}
+
+	private void compact() throws IOException {
+		// write the last record in a new journal, then replace the old one (see load() for the interrupted compactions)
+		fillRecord();
+		File file = this.file;
+		File compacted = this.compactedFile;
+		write(compacted, false);
+		if ((file.exists() && !file.delete()) || !compacted.renameTo(file)) {
+			throw new IOException("cannot replace " + file.getPath()); //$NON-NLS-1$
+		}
+		this.recordsCount = 1;
+	}
+
+	private void write(File file, boolean append) throws IOException {
+		OutputStream output = new FileOutputStream(file, append);
+		try {
+			output.write(this.record);
+		} finally {
+			output.close();
+		}
+		this.writesCount++;
+	}
+
+	private static int readInt(byte[] buffer, int offset) {
+		return ((buffer[offset] & 0xFF) << 24) | ((buffer[offset + 1] & 0xFF) << 16)
+				| ((buffer[offset + 2] & 0xFF) << 8) | (buffer[offset + 3] & 0xFF);
+	}
+
+	private static void writeInt(byte[] buffer, int offset, int value) {
+		buffer[offset] = (byte) (value >>> 24);
+		buffer[offset + 1] = (byte) (value >>> 16);
+		buffer[offset + 2] = (byte) (value >>> 8);
+		buffer[offset + 3] = (byte) value;
+	}
+}
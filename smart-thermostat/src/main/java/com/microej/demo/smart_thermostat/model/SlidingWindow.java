@@ -0,0 +1,285 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+/**
+ * Statistics of the values of a type over a sliding time window.
+ * <p>
+ * The window is divided in slots of a fixed duration (the resolution). The values of a slot are averaged: the current
+ * slot accumulates the values of its period, and is committed to the window once a value of a later period is added.
+ * The committed slots are kept in ring buffers with running sums, and in monotonic deques giving the minimum and the
+ * maximum, so adding a value and reading any statistic take a constant time. The slots older than the window duration
+ * are evicted.
+ * </p>
+ * <p>
+ * The times used for the trend are counted in slots from a base period. The base is moved (and the sums computed again
+ * from the slots) when the times grow too large, to keep the sums far from overflowing.
+ * </p>
+ */
+class SlidingWindow {
+
+	private static final long HOUR = 3600000;
+	private static final int HUNDRED = 100;
+	private static final long MAX_RELATIVE_PERIOD = 1 << 20;
+
+	private final long resolution;
+	private final int capacity;
+
+	// committed slots, from the oldest (head) to the newest
+	private final long[] periods;
+	private final int[] values;
+	private int head;
+	private int size;
+
+	// indexes of the slots, in increasing (min) or decreasing (max) values
+	private final int[] minDeque;
+	private int minHead;
+	private int minSize;
+	private final int[] maxDeque;
+	private int maxHead;
+	private int maxSize;
+
+	private long basePeriod;
+	private long sumValues;
+	private long sumSquaredValues;
+	private long sumTimes;
+	private long sumSquaredTimes;
+	private long sumTimesValues;
+
+	// slot being accumulated
+	private boolean open;
+	private long openPeriod;
+	private long openSum;
+	private int openCount;
+
+	/**
+	 * Creates a sliding window.
+	 *
+	 * @param duration
+	 *            the duration of the window, in milliseconds.
+	 * @param resolution
+	 *            the duration of a slot, in milliseconds.
+	 */
+	SlidingWindow(long duration, long resolution) {
+		this.resolution = resolution;
+		int capacity = (int) (duration / resolution);
+		this.capacity = capacity;
+		this.periods = new long[capacity];
+		this.values = new int[capacity];
+		this.minDeque = new int[capacity];
+		this.maxDeque = new int[capacity];
+	}
+
+	/**
+	 * Adds a value.
+	 *
+	 * @param time
+	 *            the time of the value, in milliseconds. Must not decrease.
+	 * @param value
+	 *            the value.
+	 */
+	void add(long time, int value) {
+		long period = time / this.resolution;
+		if (this.open && period > this.openPeriod) {
+			commit();
+		}
+		// the values of the window are in the periods (period - capacity, period]
+		while (this.size > 0 && this.periods[this.head] <= period - this.capacity) {
+			evictOldest();
+		}
+		if (!this.open) {
+			this.open = true;
+			this.openPeriod = period;
+			this.openSum = 0;
+			this.openCount = 0;
+		}
+		this.openSum += value;
+		this.openCount++;
+	}
+
+	/**
+	 * Gets the number of slots holding values.
+	 *
+	 * @return the number of slots.
+	 */
+	int getCount() {
+		return this.size + (this.open ? 1 : 0);
+	}
+
+	/**
+	 * Gets the minimum of the averaged values.
+	 *
+	 * @return the minimum, or 0 if the window is empty.
+	 */
+	int getMin() {
+		int min = Integer.MAX_VALUE;
+		if (this.minSize > 0) {
+			min = this.values[this.minDeque[this.minHead]];
+		}
+		if (this.open) {
+			min = Math.min(min, getOpenValue());
+		}
+		return getCount() == 0 ? 0 : min;
+	}
+
+	/**
+	 * Gets the maximum of the averaged values.
+	 *
+	 * @return the maximum, or 0 if the window is empty.
+	 */
+	int getMax() {
+		int max = Integer.MIN_VALUE;
+		if (this.maxSize > 0) {
+			max = this.values[this.maxDeque[this.maxHead]];
+		}
+		if (this.open) {
+			max = Math.max(max, getOpenValue());
+		}
+		return getCount() == 0 ? 0 : max;
+	}
+
+	/**
+	 * Gets the mean of the averaged values, in hundredths.
+	 *
+	 * @return the mean, or 0 if the window is empty.
+	 */
+	int getMean() {
+		int count = getCount();
+		if (count == 0) {
+			return 0;
+		}
+		long sum = this.sumValues + (this.open ? getOpenValue() : 0);
+		return (int) (sum * HUNDRED / count);
+	}
+
+	/**
+	 * Gets the variance of the averaged values, in hundredths.
+	 *
+	 * @return the variance, or 0 if the window is empty.
+	 */
+	int getVariance() {
+		long count = getCount();
+		if (count == 0) {
+			return 0;
+		}
+		long sum = this.sumValues;
+		long sumSquares = this.sumSquaredValues;
+		if (this.open) {
+			long openValue = getOpenValue();
+			sum += openValue;
+			sumSquares += openValue * openValue;
+		}
+		return (int) ((count * sumSquares - sum * sum) * HUNDRED / (count * count));
+	}
+
+	/**
+	 * Gets the slope of the linear regression of the averaged values, in hundredths per hour.
+	 *
+	 * @return the trend, or 0 if the window holds less than two slots.
+	 */
+	int getTrend() {
+		long count = getCount();
+		if (count < 2) {
+			return 0;
+		}
+		long sumValues = this.sumValues;
+		long sumTimes = this.sumTimes;
+		long sumSquaredTimes = this.sumSquaredTimes;
+		long sumTimesValues = this.sumTimesValues;
+		if (this.open) {
+			long openValue = getOpenValue();
+			long openTime = this.openPeriod - this.basePeriod;
+			sumValues += openValue;
+			sumTimes += openTime;
+			sumSquaredTimes += openTime * openTime;
+			sumTimesValues += openTime * openValue;
+		}
+		long denominator = count * sumSquaredTimes - sumTimes * sumTimes;
+		if (denominator == 0) {
+			return 0;
+		}
+		long numerator = count * sumTimesValues - sumTimes * sumValues;
+		// slope per slot converted to hundredths per hour
+		return (int) (numerator * (HOUR / this.resolution) * HUNDRED / denominator);
+	}
+
+	private int getOpenValue() {
+		return (int) (this.openSum / this.openCount);
+	}
+
+	private void commit() {
+		this.open = false;
+		if (this.openPeriod - this.basePeriod > MAX_RELATIVE_PERIOD) {
+			rebase(this.size > 0 ? this.periods[this.head] : this.openPeriod);
+		}
+		if (this.size == this.capacity) {
+			evictOldest();
+		}
+		int capacity = this.capacity;
+		int index = this.head + this.size;
+		if (index >= capacity) {
+			index -= capacity;
+		}
+		int value = getOpenValue();
+		this.periods[index] = this.openPeriod;
+		this.values[index] = value;
+		this.size++;
+		addToSums(this.openPeriod - this.basePeriod, value, 1);
+
+		// drop the slots which can no longer be the minimum or the maximum
+		int[] values = this.values;
+		while (this.minSize > 0 && values[this.minDeque[dequeIndex(this.minHead, this.minSize - 1)]] >= value) {
+			this.minSize--;
+		}
+		this.minDeque[dequeIndex(this.minHead, this.minSize++)] = index;
+		while (this.maxSize > 0 && values[this.maxDeque[dequeIndex(this.maxHead, this.maxSize - 1)]] <= value) {
+			this.maxSize--;
+		}
+		this.maxDeque[dequeIndex(this.maxHead, this.maxSize++)] = index;
+	}
+
+	private void evictOldest() {
+		int index = this.head;
+		addToSums(this.periods[index] - this.basePeriod, this.values[index], -1);
+		if (this.minSize > 0 && this.minDeque[this.minHead] == index) {
+			this.minHead = dequeIndex(this.minHead, 1);
+			this.minSize--;
+		}
+		if (this.maxSize > 0 && this.maxDeque[this.maxHead] == index) {
+			this.maxHead = dequeIndex(this.maxHead, 1);
+			this.maxSize--;
+		}
+		this.head = dequeIndex(index, 1);
+		this.size--;
+	}
+
+	private void rebase(long basePeriod) {
+		this.basePeriod = basePeriod;
+		this.sumValues = 0;
+		this.sumSquaredValues = 0;
+		this.sumTimes = 0;
+		this.sumSquaredTimes = 0;
+		this.sumTimesValues = 0;
+		for (int i = 0; i < this.size; i++) {
+			int index = dequeIndex(this.head, i);
+			addToSums(this.periods[index] - basePeriod, this.values[index], 1);
+		}
+	}
+
+	private void addToSums(long time, long value, int sign) {
+		this.sumValues += sign * value;
+		this.sumSquaredValues += sign * value * value;
+		this.sumTimes += sign * time;
+		this.sumSquaredTimes += sign * time * time;
+		this.sumTimesValues += sign * time * value;
+	}
+
+	private int dequeIndex(int head, int offset) {
+		int index = head + offset;
+		return index >= this.capacity ? index - this.capacity : index;
+	}
+}
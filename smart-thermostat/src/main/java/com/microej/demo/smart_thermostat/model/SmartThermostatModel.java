@@ -7,36 +7,61 @@
 package com.microej.demo.smart_thermostat.model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+import ej.bon.Util;
 import ej.microui.MicroUI;
 
 /**
  * The Smart Thermostat Model to set / load values.
  */
 public class SmartThermostatModel {
-	private static final int TEMPERATURE_TYPE = 1;
-	private static final int HUMIDITY_TYPE = 2;
-	private static final int PRESSURE_TYPE = 3;
-	private static final int TEMPERATURE_THRESHOLD_TYPE = 4;
+	static final int TEMPERATURE_TYPE = 1;
+	static final int HUMIDITY_TYPE = 2;
+	static final int PRESSURE_TYPE = 3;
+	static final int TEMPERATURE_THRESHOLD_TYPE = 4;
+	static final int TEMPERATURE_TREND_TYPE = 5;
+	static final int HUMIDITY_TREND_TYPE = 6;
+	static final int PRESSURE_TREND_TYPE = 7;
+	// the types above are computed by the model and cannot be set
+	static final int MAX_INPUT_TYPE = TEMPERATURE_THRESHOLD_TYPE;
+	static final int MAX_TYPE = PRESSURE_TREND_TYPE;
+	private static final int TREND_WINDOW = SensorStatistics.WINDOW_3_HOURS;
 	private static SmartThermostatModel smartThermostatModel;
-	private final Map<Integer, List<ThermostatObserver>> observers = new HashMap<>();
+	private final ObserverRegistry observers = new ObserverRegistry(MAX_TYPE);
 
-	private int temperature;
-	private int humidity;
-	private int pressure;
-	private int temperatureThreshold;
+	// Written with the lock held, read without locking.
+	private volatile ThermostatSnapshot snapshot = new ThermostatSnapshot(new int[MAX_TYPE + 1],
+			new int[MAX_TYPE + 1], 0);
 
 	private final int temperatureType;
 	private final int humidityType;
 	private final int pressureType;
 	private final int temperatureThresholdType;
+	private final int temperatureTrendType;
+	private final int humidityTrendType;
+	private final int pressureTrendType;
 
 	private final Object lock = new Object();
 
-	@SuppressWarnings("java:S2293") // We can not remove the Type in <> since this causes an error.
+	// Written with the lock held, indexed by value type.
+	private final ValueHistory[] histories;
+	private final SensorStatistics statistics = new SensorStatistics();
+
+	// Notifications waiting to be dispatched in the UI thread, indexed by value type.
+	private final int[] pendingValues = new int[MAX_TYPE + 1];
+	private final int[] dispatchedValues = new int[MAX_TYPE + 1];
+	private int pendingTypes;
+	private boolean dispatchScheduled;
+	private final Object pendingLock = new Object();
+	private final List<ThermostatBatchObserver> dispatchedBatchObservers = new ArrayList<>();
+	private final Runnable dispatcher = new Runnable() {
+		@Override
+		public void run() {
+			dispatchPendingNotifications();
+		}
+	};
+
 	// private constructor to prevent instantiation
 	private SmartThermostatModel() {
 		// Get the types for the listeners
@@ -44,11 +69,15 @@ public class SmartThermostatModel {
 		this.humidityType = HUMIDITY_TYPE;
 		this.pressureType = PRESSURE_TYPE;
 		this.temperatureThresholdType = TEMPERATURE_THRESHOLD_TYPE;
+		this.temperatureTrendType = TEMPERATURE_TREND_TYPE;
+		this.humidityTrendType = HUMIDITY_TREND_TYPE;
+		this.pressureTrendType = PRESSURE_TREND_TYPE;
 
-		this.observers.put(this.temperatureType, new ArrayList<ThermostatObserver>());
-		this.observers.put(this.humidityType, new ArrayList<ThermostatObserver>());
-		this.observers.put(this.pressureType, new ArrayList<ThermostatObserver>());
-		this.observers.put(this.temperatureThresholdType, new ArrayList<ThermostatObserver>());
+		ValueHistory[] histories = new ValueHistory[MAX_TYPE + 1];
+		for (int type = 1; type <= MAX_TYPE; type++) {
+			histories[type] = new ValueHistory();
+		}
+		this.histories = histories;
 	}
 
 	/**
@@ -72,13 +101,12 @@ public class SmartThermostatModel {
 	 *            the {@link ThermostatObserver} to add.
 	 * @param types
 	 *            one or more types for which to add the observer.
+	 * @throws IllegalArgumentException
+	 *             if a type is not a valid type of value.
 	 */
 	public void addObserver(ThermostatObserver observer, int... types) {
 		for (int t : types) {
-			List<ThermostatObserver> list = this.observers.get(t);
-			if (list != null && !list.contains(observer)) {
-				list.add(observer);
-			}
+			this.observers.add(observer, t);
 		}
 	}
 
@@ -89,37 +117,100 @@ public class SmartThermostatModel {
 	 *            the {@link ThermostatObserver} to remove.
 	 * @param types
 	 *            one or more types to remove the Observer from.
+	 * @throws IllegalArgumentException
+	 *             if a type is not a valid type of value.
 	 */
 	public void removeObserver(ThermostatObserver observer, int... types) {
 		for (int t : types) {
-			List<ThermostatObserver> list = this.observers.get(t);
-			if (list != null) {
-				list.remove(observer);
-			}
+			this.observers.remove(observer, t);
 		}
 	}
 
 	/**
 	 * Notifies the observer about a value change.
-	 * 
+	 * <p>
+	 * The notifications are coalesced: at most one event is pending in the UI thread queue. When a value changes
+	 * several times before the observers are notified, only its latest value is delivered.
+	 *
 	 * @param valueType
 	 *            the type of value that changed.
 	 * @param value
 	 *            the new value.
+	 * @throws IllegalArgumentException
+	 *             if the type is not a type of value of the model.
 	 */
-	public void notifyObservers(final int valueType, final int value) {
-		MicroUI.callSerially(new Runnable() {
-			@Override
-			public void run() {
-				List<ThermostatObserver> targetList = SmartThermostatModel.this.observers.get(valueType);
-				if (targetList != null) {
-					for (ThermostatObserver observer : targetList) {
-						observer.update(valueType, value);
+	public void notifyObservers(int valueType, int value) {
+		if (valueType < 1 || valueType > MAX_TYPE) {
+			throw new IllegalArgumentException();
+		}
+		synchronized (this.pendingLock) {
+			this.pendingValues[valueType] = value;
+			this.pendingTypes |= getTypeMask(valueType);
+			if (this.dispatchScheduled) {
+				return;
+			}
+			this.dispatchScheduled = true;
+		}
+		scheduleDispatch();
+	}
+
+	/**
+	 * Gets the bit of the given type in a mask of changed types.
+	 *
+	 * @param valueType
+	 *            the type of value.
+	 * @return the mask of the type.
+	 * @see ThermostatBatchObserver#updateAll(int)
+	 */
+	public static int getTypeMask(int valueType) {
+		return 1 << valueType;
+	}
+
+	private void scheduleDispatch() {
+		try {
+			MicroUI.callSerially(this.dispatcher);
+		} catch (RuntimeException e) {
+			// the event queue is full: the next notification schedules the dispatch again
+			synchronized (this.pendingLock) {
+				this.dispatchScheduled = false;
+			}
+			throw e;
+		}
+	}
+
+	private void dispatchPendingNotifications() {
+		int changedTypes;
+		int[] values = this.dispatchedValues;
+		synchronized (this.pendingLock) {
+			changedTypes = this.pendingTypes;
+			System.arraycopy(this.pendingValues, 0, values, 0, values.length);
+			this.pendingTypes = 0;
+			this.dispatchScheduled = false;
+		}
+
+		List<ThermostatBatchObserver> batchObservers = this.dispatchedBatchObservers;
+		for (int type = 1; type <= MAX_TYPE; type++) {
+			if ((changedTypes & getTypeMask(type)) != 0) {
+				int value = values[type];
+				// the array is not modified by the registrations done while notifying
+				for (ThermostatObserver observer : this.observers.get(type)) {
+					if (observer instanceof ThermostatBatchObserver) {
+						// notified once, whatever the number of changed types it observes
+						if (!batchObservers.contains(observer)) {
+							batchObservers.add((ThermostatBatchObserver) observer);
+						}
+					} else {
+						observer.update(type, value);
 					}
 				}
-
 			}
-		});
+		}
+
+		int batchObserversCount = batchObservers.size();
+		for (int i = 0; i < batchObserversCount; i++) {
+			batchObservers.get(i).updateAll(changedTypes);
+		}
+		batchObservers.clear();
 	}
 
 	/**
@@ -130,10 +221,10 @@ public class SmartThermostatModel {
 	}
 
 	private static void setupDefaultValues() {
-		smartThermostatModel.setTemperature(SmartThermostatDefaultValues.DEFAULT_TEMPERATURE);
-		smartThermostatModel.setHumidity(SmartThermostatDefaultValues.DEFAULT_HUMIDITY);
-		smartThermostatModel.setPressure(SmartThermostatDefaultValues.DEFAULT_PRESSURE);
-		smartThermostatModel.setTemperatureThreshold(SmartThermostatDefaultValues.DEFAULT_TEMPERATURE_THRESHOLD);
+		smartThermostatModel.applyReading(SmartThermostatDefaultValues.DEFAULT_TEMPERATURE,
+				SmartThermostatDefaultValues.DEFAULT_HUMIDITY, SmartThermostatDefaultValues.DEFAULT_PRESSURE);
+		// the threshold chosen by the user is restored
+		smartThermostatModel.setTemperatureThreshold(SettingsJournal.getInstance().getTemperatureThreshold());
 	}
 
 	/**
@@ -172,15 +263,137 @@ public class SmartThermostatModel {
 		return this.temperatureThresholdType;
 	}
 
+	/**
+	 * Gets the temperature trend type.
+	 * <p>
+	 * The trend is the variation of the temperature over the last 3 hours, in hundredths of degree per hour.
+	 *
+	 * @return the temperature trend type.
+	 */
+	public int getTemperatureTrendType() {
+		return this.temperatureTrendType;
+	}
+
+	/**
+	 * Gets the humidity trend type.
+	 * <p>
+	 * The trend is the variation of the humidity over the last 3 hours, in hundredths of percent per hour.
+	 *
+	 * @return the humidity trend type.
+	 */
+	public int getHumidityTrendType() {
+		return this.humidityTrendType;
+	}
+
+	/**
+	 * Gets the pressure trend type.
+	 * <p>
+	 * The trend is the variation of the pressure over the last 3 hours, in hundredths of unit per hour.
+	 *
+	 * @return the pressure trend type.
+	 */
+	public int getPressureTrendType() {
+		return this.pressureTrendType;
+	}
+
+	/**
+	 * Gets the current state of the model. The snapshot is immutable and is read without locking.
+	 *
+	 * @return the current snapshot.
+	 */
+	public ThermostatSnapshot getSnapshot() {
+		return this.snapshot;
+	}
+
+	/**
+	 * Gets the history of the values of a type.
+	 * <p>
+	 * Each value set is recorded, even if it is equal to the current one.
+	 *
+	 * @param valueType
+	 *            the type of value.
+	 * @return the history of the type.
+	 */
+	public ValueHistory getHistory(int valueType) {
+		return this.histories[valueType];
+	}
+
+	/**
+	 * Gets the statistics of the sensor values over sliding windows.
+	 * <p>
+	 * Each value set is taken into account, even if it is equal to the current one. Only the 3 hours trends are
+	 * published as value types (see {@link #getTemperatureTrendType()}): the other statistics are not notified and
+	 * have to be read when needed.
+	 *
+	 * @return the statistics.
+	 */
+	public SensorStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	private void setValue(int valueType, int value, boolean notified) {
+		boolean dispatch;
+		synchronized (this.lock) {
+			int[] values = this.snapshot.copyValues();
+			int changedTypes = setValue(values, valueType, value);
+			publishSnapshot(values, changedTypes);
+			// the value set is notified even if unchanged, unless it comes from the observers themselves
+			int typeMask = getTypeMask(valueType);
+			changedTypes = notified ? changedTypes | typeMask : changedTypes & ~typeMask;
+			// queued with the lock held, so that the latest published value is the latest notified one
+			dispatch = queueNotifications(values, changedTypes);
+		}
+		if (dispatch) {
+			scheduleDispatch();
+		}
+	}
+
+	// Must be called with the lock held.
+	private int setValue(int[] values, int valueType, int value) {
+		long time = Util.platformTimeMillis();
+		int changedTypes = setValue(values, valueType, value, time);
+		if (SensorStatistics.isTracked(valueType)) {
+			SensorStatistics statistics = this.statistics;
+			statistics.record(valueType, time, value);
+			int trendType = valueType - TEMPERATURE_TYPE + TEMPERATURE_TREND_TYPE;
+			changedTypes |= setValue(values, trendType, statistics.getTrend(valueType, TREND_WINDOW), time);
+		}
+		return changedTypes;
+	}
+
+	// Must be called with the lock held.
+	private int setValue(int[] values, int valueType, int value, long time) {
+		this.histories[valueType].record(time, value);
+		if (values[valueType] == value) {
+			return 0;
+		}
+		values[valueType] = value;
+		return getTypeMask(valueType);
+	}
+
+	// Must be called with the lock held.
+	private void publishSnapshot(int[] values, int changedTypes) {
+		if (changedTypes == 0) {
+			return;
+		}
+		ThermostatSnapshot current = this.snapshot;
+		int version = current.getVersion() + 1;
+		int[] versions = current.copyVersions();
+		for (int type = 1; type <= MAX_TYPE; type++) {
+			if ((changedTypes & getTypeMask(type)) != 0) {
+				versions[type] = version;
+			}
+		}
+		this.snapshot = new ThermostatSnapshot(values, versions, version);
+	}
+
 	/**
 	 * Gets the temperature.
 	 *
 	 * @return the temperature.
 	 */
 	public int getTemperature() {
-		synchronized (this.lock) {
-			return this.temperature;
-		}
+		return this.snapshot.getTemperature();
 	}
 
 	/**
@@ -190,10 +403,7 @@ public class SmartThermostatModel {
 	 *            the temperature to set.
 	 */
 	public void setTemperature(int temperature) {
-		synchronized (this.lock) {
-			this.temperature = temperature;
-		}
-		notifyObservers(this.temperatureType, temperature);
+		setValue(this.temperatureType, temperature, true);
 	}
 
 	/**
@@ -202,9 +412,7 @@ public class SmartThermostatModel {
 	 * @return the humidity.
 	 */
 	public int getHumidity() {
-		synchronized (this.lock) {
-			return this.humidity;
-		}
+		return this.snapshot.getHumidity();
 	}
 
 	/**
@@ -214,10 +422,7 @@ public class SmartThermostatModel {
 	 *            the humidity to set.
 	 */
 	public void setHumidity(int humidity) {
-		synchronized (this.lock) {
-			this.humidity = humidity;
-		}
-		notifyObservers(this.humidityType, humidity);
+		setValue(this.humidityType, humidity, true);
 	}
 
 	/**
@@ -226,9 +431,7 @@ public class SmartThermostatModel {
 	 * @return the pressure.
 	 */
 	public int getPressure() {
-		synchronized (this.lock) {
-			return this.pressure;
-		}
+		return this.snapshot.getPressure();
 	}
 
 	/**
@@ -238,10 +441,86 @@ public class SmartThermostatModel {
 	 *            the pressure to set.
 	 */
 	public void setPressure(int pressure) {
+		setValue(this.pressureType, pressure, true);
+	}
+
+	/**
+	 * Applies a reading of the sensors: sets the temperature, the humidity and the pressure at once.
+	 * <p>
+	 * The values are updated together, so that the observers never see a partially applied reading, and a single
+	 * notification is sent for the values that actually changed.
+	 *
+	 * @param temperature
+	 *            the temperature to set.
+	 * @param humidity
+	 *            the humidity to set.
+	 * @param pressure
+	 *            the pressure to set.
+	 */
+	public void applyReading(int temperature, int humidity, int pressure) {
+		boolean dispatch;
 		synchronized (this.lock) {
-			this.pressure = pressure;
+			int[] values = this.snapshot.copyValues();
+			int changedTypes = setValue(values, this.temperatureType, temperature);
+			changedTypes |= setValue(values, this.humidityType, humidity);
+			changedTypes |= setValue(values, this.pressureType, pressure);
+			publishSnapshot(values, changedTypes);
+			dispatch = queueNotifications(values, changedTypes);
+		}
+		if (dispatch) {
+			scheduleDispatch();
+		}
+	}
+
+	/**
+	 * Applies several values at once.
+	 * <p>
+	 * The values are updated together, so that the observers never see a partially applied update, and a single
+	 * notification is sent for the values that actually changed. The trend types are computed by the model: their
+	 * values are ignored.
+	 *
+	 * @param values
+	 *            the values to set, indexed by value type.
+	 * @param typesMask
+	 *            the mask of the types of the values to set. See {@link #getTypeMask(int)}.
+	 */
+	public void applyValues(int[] values, int typesMask) {
+		boolean dispatch;
+		synchronized (this.lock) {
+			int[] newValues = this.snapshot.copyValues();
+			int changedTypes = 0;
+			for (int type = 1; type <= MAX_INPUT_TYPE; type++) {
+				if ((typesMask & getTypeMask(type)) != 0) {
+					changedTypes |= setValue(newValues, type, values[type]);
+				}
+			}
+			publishSnapshot(newValues, changedTypes);
+			dispatch = queueNotifications(newValues, changedTypes);
+		}
+		if (dispatch) {
+			scheduleDispatch();
+		}
+	}
+
+	// Must be called with the lock held. Returns whether the dispatch must be scheduled, once the lock is released.
+	private boolean queueNotifications(int[] values, int changedTypes) {
+		if (changedTypes == 0) {
+			return false;
+		}
+		synchronized (this.pendingLock) {
+			int[] pendingValues = this.pendingValues;
+			for (int type = 1; type <= MAX_TYPE; type++) {
+				if ((changedTypes & getTypeMask(type)) != 0) {
+					pendingValues[type] = values[type];
+				}
+			}
+			this.pendingTypes |= changedTypes;
+			if (this.dispatchScheduled) {
+				return false;
+			}
+			this.dispatchScheduled = true;
+			return true;
 		}
-		notifyObservers(this.pressureType, pressure);
 	}
 
 	/**
@@ -250,9 +529,7 @@ public class SmartThermostatModel {
 	 * @return the temperatureThreshold.
 	 */
 	public int getTemperatureThreshold() {
-		synchronized (this.lock) {
-			return this.temperatureThreshold;
-		}
+		return this.snapshot.getTemperatureThreshold();
 	}
 
 	/**
@@ -262,21 +539,19 @@ public class SmartThermostatModel {
 	 *            the temperatureThreshold to set.
 	 */
 	public void setTemperatureThreshold(int temperatureThreshold) {
-		synchronized (this.lock) {
-			this.temperatureThreshold = temperatureThreshold;
-		}
-		notifyObservers(this.temperatureThresholdType, temperatureThreshold);
+		setValue(this.temperatureThresholdType, temperatureThreshold, true);
 	}
 
 	/**
 	 * Updates the temperatureThreshold from user side. Value is set in Fahrenheit.
+	 * <p>
+	 * The value is saved in the {@link SettingsJournal}.
 	 *
 	 * @param temperatureThreshold
 	 *            the temperatureThreshold to set.
 	 */
 	public void updateTemperatureThreshold(int temperatureThreshold) {
-		synchronized (this.lock) {
-			this.temperatureThreshold = temperatureThreshold;
-		}
+		setValue(this.temperatureThresholdType, temperatureThreshold, false);
+		SettingsJournal.getInstance().setTemperatureThreshold(temperatureThreshold);
 	}
 }
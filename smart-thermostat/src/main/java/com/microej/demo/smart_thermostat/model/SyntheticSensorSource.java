@@ -0,0 +1,90 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import ej.annotation.Nullable;
+import ej.bon.Timer;
+import ej.bon.TimerTask;
+
+/**
+ * Sensor source providing deterministic synthetic values to the model at a configurable rate.
+ * <p>
+ * The values follow triangle waves within the ranges of the demo, so a given rate always produces the same sequence of
+ * readings. The temperature threshold is changed every {@value #THRESHOLD_UPDATE_RATE} readings.
+ * </p>
+ */
+public class SyntheticSensorSource implements SensorSource {
+
+	private static final int TEMPERATURE_MIN = 60;
+	private static final int TEMPERATURE_MAX = 90;
+	private static final int HUMIDITY_MIN = 0;
+	private static final int HUMIDITY_MAX = 100;
+	private static final int PRESSURE_MIN = 900;
+	private static final int PRESSURE_MAX = 1200;
+	private static final int PRESSURE_STEP = 7;
+	private static final int THRESHOLD_UPDATE_RATE = 16;
+
+	private final long period;
+
+	private @Nullable TimerTask task;
+	private int readingsCount;
+
+	/**
+	 * Creates a synthetic sensor source.
+	 *
+	 * @param period
+	 *            the period between two readings, in milliseconds.
+	 */
+	public SyntheticSensorSource(long period) {
+		this.period = period;
+	}
+
+	@Override
+	public void start(final SmartThermostatModel model, Timer timer) {
+		this.readingsCount = 0;
+		TimerTask task = new TimerTask() {
+			@Override
+			public void run() {
+				applyNextReading(model);
+			}
+		};
+		this.task = task;
+		timer.scheduleAtFixedRate(task, 0L, this.period);
+	}
+
+	@Override
+	public void stop() {
+		TimerTask task = this.task;
+		if (task != null) {
+			task.cancel();
+			this.task = null;
+		}
+	}
+
+	private void applyNextReading(SmartThermostatModel model) {
+		int count = this.readingsCount;
+		int temperature = triangle(count, TEMPERATURE_MIN, TEMPERATURE_MAX);
+		int humidity = triangle(count * 3, HUMIDITY_MIN, HUMIDITY_MAX);
+		int pressure = triangle(count * PRESSURE_STEP, PRESSURE_MIN, PRESSURE_MAX);
+		model.applyReading(temperature, humidity, pressure);
+
+		if (count % THRESHOLD_UPDATE_RATE == 0) {
+			model.setTemperatureThreshold(triangle(count / THRESHOLD_UPDATE_RATE * 5, TEMPERATURE_MIN,
+					TEMPERATURE_MAX));
+		}
+		this.readingsCount = count + 1;
+	}
+
+	/**
+	 * Gets the value of a triangle wave going back and forth between two bounds with a step of one.
+	 */
+	private static int triangle(int step, int min, int max) {
+		int range = max - min;
+		int position = step % (2 * range);
+		return min + (position <= range ? position : 2 * range - position);
+	}
+}
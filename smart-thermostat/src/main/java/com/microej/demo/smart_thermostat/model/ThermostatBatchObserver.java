@@ -0,0 +1,25 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+/**
+ * Observer notified once for all the values that changed together in the {@link SmartThermostatModel}.
+ * <p>
+ * The model calls {@link #updateAll(int)} instead of {@link #update(int, int)} for the observers implementing this
+ * interface.
+ * </p>
+ */
+public interface ThermostatBatchObserver extends ThermostatObserver {
+
+	/**
+	 * Updates the observer.
+	 *
+	 * @param changedTypes
+	 *            the mask of the types of value that changed. See {@link SmartThermostatModel#getTypeMask(int)}.
+	 */
+	void updateAll(int changedTypes);
+}
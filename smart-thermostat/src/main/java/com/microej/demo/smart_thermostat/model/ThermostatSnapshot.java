@@ -0,0 +1,175 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+/**
+ * Immutable state of the {@link SmartThermostatModel} at a given version.
+ * <p>
+ * The model publishes a new snapshot each time a value changes, so the snapshot can be read from any thread without
+ * locking. Each value records the version at which it last changed: a reader can check whether the values it depends
+ * on changed since the version it last read with {@link #hasChangedSince(int, int)}.
+ * </p>
+ */
+public class ThermostatSnapshot {
+
+	private final int[] values;
+	private final int[] versions;
+	private final int version;
+
+	/**
+	 * Creates a snapshot. The arrays are indexed by value type and must not be modified afterwards.
+	 *
+	 * @param values
+	 *            the values.
+	 * @param versions
+	 *            the version at which each value last changed.
+	 * @param version
+	 *            the version of the snapshot.
+	 */
+	ThermostatSnapshot(int[] values, int[] versions, int version) {
+		this.values = values;
+		this.versions = versions;
+		this.version = version;
+	}
+
+	/**
+	 * Gets the version of this snapshot. The version is incremented each time the model publishes a snapshot.
+	 *
+	 * @return the version.
+	 */
+	public int getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Gets the version at which a value last changed.
+	 *
+	 * @param valueType
+	 *            the type of value.
+	 * @return the version of the value.
+	 */
+	public int getVersion(int valueType) {
+		return this.versions[valueType];
+	}
+
+	/**
+	 * Gets whether one of the given values changed after the given version.
+	 *
+	 * @param version
+	 *            the version last read.
+	 * @param typesMask
+	 *            the mask of the types of value to check. See {@link SmartThermostatModel#getTypeMask(int)}.
+	 * @return {@code true}, if one of the values changed since the version.
+	 */
+	public boolean hasChangedSince(int version, int typesMask) {
+		int[] versions = this.versions;
+		for (int type = 0; type < versions.length; type++) {
+			if ((typesMask & SmartThermostatModel.getTypeMask(type)) != 0 && versions[type] > version) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets a value.
+	 *
+	 * @param valueType
+	 *            the type of value.
+	 * @return the value.
+	 */
+	public int getValue(int valueType) {
+		return this.values[valueType];
+	}
+
+	/**
+	 * Gets the temperature.
+	 *
+	 * @return the temperature.
+	 */
+	public int getTemperature() {
+		return this.values[SmartThermostatModel.TEMPERATURE_TYPE];
+	}
+
+	/**
+	 * Gets the humidity.
+	 *
+	 * @return the humidity.
+	 */
+	public int getHumidity() {
+		return this.values[SmartThermostatModel.HUMIDITY_TYPE];
+	}
+
+	/**
+	 * Gets the pressure.
+	 *
+	 * @return the pressure.
+	 */
+	public int getPressure() {
+		return this.values[SmartThermostatModel.PRESSURE_TYPE];
+	}
+
+	/**
+	 * Gets the temperatureThreshold.
+	 *
+	 * @return the temperatureThreshold.
+	 */
+	public int getTemperatureThreshold() {
+		return this.values[SmartThermostatModel.TEMPERATURE_THRESHOLD_TYPE];
+	}
+
+	/**
+	 * Gets the temperature trend, in hundredths of degree per hour.
+	 *
+	 * @return the temperature trend.
+	 */
+	public int getTemperatureTrend() {
+		return this.values[SmartThermostatModel.TEMPERATURE_TREND_TYPE];
+	}
+
+	/**
+	 * Gets the humidity trend, in hundredths of percent per hour.
+	 *
+	 * @return the humidity trend.
+	 */
+	public int getHumidityTrend() {
+		return this.values[SmartThermostatModel.HUMIDITY_TREND_TYPE];
+	}
+
+	/**
+	 * Gets the pressure trend, in hundredths of unit per hour.
+	 *
+	 * @return the pressure trend.
+	 */
+	public int getPressureTrend() {
+		return this.values[SmartThermostatModel.PRESSURE_TREND_TYPE];
+	}
+
+	/**
+	 * Copies the values, to build the next snapshot.
+	 *
+	 * @return a copy of the values.
+	 */
+	int[] copyValues() {
+		int[] values = this.values;
+		int[] copy = new int[values.length];
+		System.arraycopy(values, 0, copy, 0, values.length);
+		return copy;
+	}
+
+	/**
+	 * Copies the versions of the values, to build the next snapshot.
+	 *
+	 * @return a copy of the versions.
+	 */
+	int[] copyVersions() {
+		int[] versions = this.versions;
+		int[] copy = new int[versions.length];
+		System.arraycopy(versions, 0, copy, 0, versions.length);
+		return copy;
+	}
+}
@@ -0,0 +1,247 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.Logger;
+
+import ej.annotation.Nullable;
+import ej.bon.Timer;
+import ej.bon.TimerTask;
+import ej.bon.Util;
+
+/**
+ * Sensor source replaying the readings recorded in a trace resource.
+ * <p>
+ * The trace is a text file with one reading per line: the time of the reading in milliseconds since the start of the
+ * trace, the temperature (°F), the humidity (%), the pressure (hPa) and, optionally, the temperature threshold (°F).
+ * The values are separated by spaces and the characters following a <code>#</code> are ignored. The times must be in
+ * ascending order, several readings may have the same time to replay a burst.
+ * </p>
+ * <p>
+ * The readings are applied at their recorded time, so a given trace always produces the same load. The readings that
+ * are late (because the timer was delayed) are applied at once.
+ * </p>
+ */
+public class TraceSensorSource implements SensorSource {
+
+	private static final Logger LOGGER = Logger.getLogger(TraceSensorSource.class.getName());
+
+	private static final int TIME = 0;
+	private static final int TEMPERATURE = 1;
+	private static final int HUMIDITY = 2;
+	private static final int PRESSURE = 3;
+	private static final int THRESHOLD = 4;
+	private static final int FIELDS_COUNT = 5;
+	private static final int MIN_FIELDS_COUNT = 4;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final String path;
+	private final boolean loop;
+
+	// The readings, FIELDS_COUNT values per reading.
+	private int[] readings;
+	private boolean[] hasThreshold;
+	private int readingsCount;
+
+	private @Nullable SmartThermostatModel model;
+	private @Nullable Timer timer;
+	private @Nullable TimerTask task;
+	private long startTime;
+	private int nextReading;
+
+	/**
+	 * Creates a trace sensor source.
+	 *
+	 * @param path
+	 *            the path of the trace resource.
+	 * @param loop
+	 *            {@code true} to replay the trace again once finished.
+	 */
+	public TraceSensorSource(String path, boolean loop) {
+		this.path = path;
+		this.loop = loop;
+		this.readings = new int[0];
+		this.hasThreshold = new boolean[0];
+	}
+
+	@Override
+	public void start(SmartThermostatModel model, Timer timer) {
+		if (this.readingsCount == 0) {
+			try {
+				load();
+			} catch (IOException e) {
+				this.readingsCount = 0;
+				LOGGER.warning("cannot load the sensors trace " + this.path + ": " + e.getMessage()); //$NON-NLS-1$
+				return;
+			}
+			if (this.readingsCount == 0) {
+				LOGGER.warning("empty sensors trace " + this.path); //$NON-NLS-1$
+				return;
+			}
+		}
+		this.model = model;
+		this.timer = timer;
+		this.startTime = Util.platformTimeMillis();
+		this.nextReading = 0;
+		scheduleNextReading(0);
+	}
+
+	@Override
+	public synchronized void stop() {
+		TimerTask task = this.task;
+		if (task != null) {
+			task.cancel();
+			this.task = null;
+		}
+		this.timer = null;
+	}
+
+	/**
+	 * Gets the number of readings of the trace.
+	 *
+	 * @return the number of readings.
+	 */
+	public int getReadingsCount() {
+		return this.readingsCount;
+	}
+
+	private synchronized void scheduleNextReading(long delay) {
+		Timer timer = this.timer;
+		if (timer == null) {
+			// stopped
+			return;
+		}
+		TimerTask task = new TimerTask() {
+			@Override
+			public void run() {
+				applyDueReadings();
+			}
+		};
+		this.task = task;
+		timer.schedule(task, delay);
+	}
+
+	private void applyDueReadings() {
+		SmartThermostatModel model = this.model;
+		assert model != null;
+		int[] readings = this.readings;
+		int count = this.readingsCount;
+
+		long elapsed = Util.platformTimeMillis() - this.startTime;
+		int index = this.nextReading;
+		while (index < count && readings[index * FIELDS_COUNT + TIME] <= elapsed) {
+			int offset = index * FIELDS_COUNT;
+			model.applyReading(readings[offset + TEMPERATURE], readings[offset + HUMIDITY],
+					readings[offset + PRESSURE]);
+			if (this.hasThreshold[index]) {
+				model.setTemperatureThreshold(readings[offset + THRESHOLD]);
+			}
+			index++;
+		}
+
+		if (index == count) {
+			LOGGER.fine("replayed " + count + " readings in " + elapsed + " ms"); //$NON-NLS-1$
+			if (!this.loop) {
+				this.task = null;
+				return;
+			}
+			this.startTime += elapsed;
+			elapsed = 0;
+			index = 0;
+		}
+		this.nextReading = index;
+		scheduleNextReading(Math.max(0, readings[index * FIELDS_COUNT + TIME] - elapsed));
+	}
+
+	private void load() throws IOException {
+		InputStream input = TraceSensorSource.class.getResourceAsStream(this.path);
+		if (input == null) {
+			throw new IOException("resource not found"); //$NON-NLS-1$
+		}
+		try {
+			parse(input);
+		} finally {
+			input.close();
+		}
+	}
+
+	private void parse(InputStream input) throws IOException {
+		int[] fields = new int[FIELDS_COUNT];
+		int fieldsCount = 0;
+		int value = 0;
+		boolean negative = false;
+		boolean inNumber = false;
+		boolean inComment = false;
+		int lineNumber = 1;
+
+		int read;
+		do {
+			read = input.read();
+			boolean endOfLine = read == '\n' || read == -1;
+			if (inComment && !endOfLine) {
+				continue;
+			}
+			if (read >= '0' && read <= '9') {
+				value = value * 10 + (read - '0');
+				inNumber = true;
+				continue;
+			}
+			if (read == '-' && !inNumber && !negative) {
+				negative = true;
+				continue;
+			}
+			if (inNumber) {
+				if (fieldsCount == FIELDS_COUNT) {
+					throw new IOException("too many values at line " + lineNumber); //$NON-NLS-1$
+				}
+				fields[fieldsCount++] = negative ? -value : value;
+			} else if (negative) {
+				throw new IOException("invalid value at line " + lineNumber); //$NON-NLS-1$
+			}
+			value = 0;
+			negative = false;
+			inNumber = false;
+
+			if (read == '#') {
+				inComment = true;
+			} else if (endOfLine) {
+				if (fieldsCount > 0) {
+					if (fieldsCount < MIN_FIELDS_COUNT) {
+						throw new IOException("missing values at line " + lineNumber); //$NON-NLS-1$
+					}
+					addReading(fields, fieldsCount == FIELDS_COUNT);
+				}
+				fieldsCount = 0;
+				inComment = false;
+				lineNumber++;
+			} else if (read != ' ' && read != '\t' && read != '\r') {
+				throw new IOException("unexpected character at line " + lineNumber); //$NON-NLS-1$
+			}
+		} while (read != -1);
+	}
+
+	private void addReading(int[] fields, boolean withThreshold) throws IOException {
+		int count = this.readingsCount;
+		if (count > 0 && fields[TIME] < this.readings[(count - 1) * FIELDS_COUNT + TIME]) {
+			throw new IOException("readings not in chronological order"); //$NON-NLS-1$
+		}
+		if (count == this.hasThreshold.length) {
+			int capacity = Math.max(INITIAL_CAPACITY, count * 2);
+			int[] readings = new int[capacity * FIELDS_COUNT];
+			System.arraycopy(this.readings, 0, readings, 0, count * FIELDS_COUNT);
+			this.readings = readings;
+			boolean[] hasThreshold = new boolean[capacity];
+			System.arraycopy(this.hasThreshold, 0, hasThreshold, 0, count);
+			this.hasThreshold = hasThreshold;
+		}
+		System.arraycopy(fields, 0, this.readings, count * FIELDS_COUNT, FIELDS_COUNT);
+		this.hasThreshold[count] = withThreshold;
+		this.readingsCount = count + 1;
+	}
+}
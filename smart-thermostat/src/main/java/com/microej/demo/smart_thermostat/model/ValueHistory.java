@@ -0,0 +1,107 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+/**
+ * History of the values of a type, at several resolutions.
+ * <p>
+ * Each value set in the model is added to the raw tier. The minute and hour tiers hold the average of the values of
+ * each elapsed minute and hour: the sums of the current periods are updated on each value and the average is added to
+ * the tier when a new period starts. Recording a value does not allocate.
+ * </p>
+ */
+public class ValueHistory {
+
+	private static final int RAW_CAPACITY = 120;
+	private static final int MINUTES_CAPACITY = 120;
+	private static final int HOURS_CAPACITY = 72;
+	private static final long MINUTE = 60000;
+	private static final long HOUR = 60 * MINUTE;
+
+	private final HistoryTier raw;
+	private final HistoryTier minutes;
+	private final HistoryTier hours;
+
+	private long currentMinute = -1;
+	private long minuteSum;
+	private int minuteCount;
+	private long currentHour = -1;
+	private long hourSum;
+	private int hourCount;
+
+	/**
+	 * Creates an empty value history.
+	 */
+	ValueHistory() {
+		this.raw = new HistoryTier(RAW_CAPACITY);
+		this.minutes = new HistoryTier(MINUTES_CAPACITY);
+		this.hours = new HistoryTier(HOURS_CAPACITY);
+	}
+
+	/**
+	 * Records a value. Must be called by a single thread at a time.
+	 *
+	 * @param time
+	 *            the time of the value, in milliseconds.
+	 * @param value
+	 *            the value.
+	 */
+	void record(long time, int value) {
+		this.raw.add(time, value);
+
+		long minute = time / MINUTE;
+		if (minute != this.currentMinute) {
+			if (this.minuteCount > 0) {
+				this.minutes.add(this.currentMinute * MINUTE, (int) (this.minuteSum / this.minuteCount));
+			}
+			this.currentMinute = minute;
+			this.minuteSum = 0;
+			this.minuteCount = 0;
+		}
+		this.minuteSum += value;
+		this.minuteCount++;
+
+		long hour = time / HOUR;
+		if (hour != this.currentHour) {
+			if (this.hourCount > 0) {
+				this.hours.add(this.currentHour * HOUR, (int) (this.hourSum / this.hourCount));
+			}
+			this.currentHour = hour;
+			this.hourSum = 0;
+			this.hourCount = 0;
+		}
+		this.hourSum += value;
+		this.hourCount++;
+	}
+
+	/**
+	 * Gets the tier of the values as they were set.
+	 *
+	 * @return the raw tier.
+	 */
+	public HistoryTier getRaw() {
+		return this.raw;
+	}
+
+	/**
+	 * Gets the tier of the average values per minute.
+	 *
+	 * @return the minutes tier.
+	 */
+	public HistoryTier getMinutes() {
+		return this.minutes;
+	}
+
+	/**
+	 * Gets the tier of the average values per hour.
+	 *
+	 * @return the hours tier.
+	 */
+	public HistoryTier getHours() {
+		return this.hours;
+	}
+}
@@ -6,14 +6,48 @@
  */
 package com.microej.demo.smart_thermostat.model;
 
+import java.io.InputStream;
+import java.util.logging.Logger;
+
+import ej.annotation.Nullable;
+import ej.bon.Constants;
 import ej.bon.Timer;
 
 /**
  * Periodically provides values to the thermostat model.
+ * <p>
+ * The values are provided by a {@link SensorSource} selected with the {@value #SOURCE_CONSTANT} constant:
+ * <ul>
+ * <li><code>demo</code>: random values every 8 seconds ({@link DemoSensorSource}),</li>
+ * <li><code>synthetic</code>: deterministic values at the period set by the {@value #SYNTHETIC_PERIOD_CONSTANT}
+ * constant ({@link SyntheticSensorSource}),</li>
+ * <li><code>trace</code>: readings replayed from the resource set by the {@value #TRACE_PATH_CONSTANT} constant
+ * ({@link TraceSensorSource}),</li>
+ * <li><code>hub</code>: frames of a sensor hub decoded from the resource set by the {@value #HUB_PATH_CONSTANT}
+ * constant, standing for the byte stream of the hardware ({@link SensorHubSensorSource}).</li>
+ * </ul>
  */
 public class ValueProvider {
 
-	private static final long UPDATE_PERIOD = 8000;
+	/** Constant selecting the sensor source. */
+	public static final String SOURCE_CONSTANT = "sensorsource.type"; //$NON-NLS-1$
+	/** Constant setting the period of the synthetic sensor source, in milliseconds. */
+	public static final String SYNTHETIC_PERIOD_CONSTANT = "sensorsource.synthetic.period"; //$NON-NLS-1$
+	/** Constant setting the path of the trace replayed by the trace sensor source. */
+	public static final String TRACE_PATH_CONSTANT = "sensorsource.trace.path"; //$NON-NLS-1$
+	/** Constant setting whether the trace is replayed in loop. */
+	public static final String TRACE_LOOP_CONSTANT = "sensorsource.trace.loop"; //$NON-NLS-1$
+	/** Constant setting the path of the stream decoded by the sensor hub source. */
+	public static final String HUB_PATH_CONSTANT = "sensorsource.hub.path"; //$NON-NLS-1$
+
+	private static final Logger LOGGER = Logger.getLogger(ValueProvider.class.getName());
+
+	private static final String SYNTHETIC_SOURCE = "synthetic"; //$NON-NLS-1$
+	private static final String TRACE_SOURCE = "trace"; //$NON-NLS-1$
+	private static final String HUB_SOURCE = "hub"; //$NON-NLS-1$
+
+	private static @Nullable SensorSource source;
+	private static @Nullable Timer timer;
 
 	/**
 	 * Hides the constructor in order to prevent instantiating a class containing only static methods.
@@ -29,9 +63,60 @@ public class ValueProvider {
 	 *            the model to be provided with values.
 	 */
 	public static void start(SmartThermostatModel model) {
-		DemoTask demoTask = new DemoTask(model);
+		start(model, createSource());
+	}
+
+	/**
+	 * Starts the smart thermostat model provisioning from the given source.
+	 * <p>
+	 * The source previously started, if any, is stopped.
+	 *
+	 * @param model
+	 *            the model to be provided with values.
+	 * @param sensorSource
+	 *            the source of the values.
+	 */
+	public static void start(SmartThermostatModel model, SensorSource sensorSource) {
+		stop();
+		Timer sourceTimer = new Timer(true);
+		source = sensorSource;
+		timer = sourceTimer;
+		sensorSource.start(model, sourceTimer);
+	}
+
+	/**
+	 * Stops the smart thermostat model provisioning.
+	 */
+	public static void stop() {
+		SensorSource currentSource = source;
+		if (currentSource != null) {
+			currentSource.stop();
+			source = null;
+		}
+		Timer sourceTimer = timer;
+		if (sourceTimer != null) {
+			sourceTimer.cancel();
+			timer = null;
+		}
+	}
 
-		Timer timer = new Timer(true);
-		timer.scheduleAtFixedRate(demoTask, 0L, UPDATE_PERIOD);
+	private static SensorSource createSource() {
+		String type = Constants.getString(SOURCE_CONSTANT);
+		if (SYNTHETIC_SOURCE.equals(type)) {
+			return new SyntheticSensorSource(Constants.getLong(SYNTHETIC_PERIOD_CONSTANT));
+		} else if (TRACE_SOURCE.equals(type)) {
+			return new TraceSensorSource(Constants.getString(TRACE_PATH_CONSTANT),
+					Constants.getBoolean(TRACE_LOOP_CONSTANT));
+		} else if (HUB_SOURCE.equals(type)) {
+			String path = Constants.getString(HUB_PATH_CONSTANT);
+			InputStream input = ValueProvider.class.getResourceAsStream(path);
+			if (input != null) {
+				return new SensorHubSensorSource(input);
+			}
+			LOGGER.warning("sensor hub stream not found: " + path); //$NON-NLS-1$
+			return new DemoSensorSource();
+		} else {
+			return new DemoSensorSource();
+		}
 	}
 }
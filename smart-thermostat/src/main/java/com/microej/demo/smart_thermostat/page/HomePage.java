@@ -8,37 +8,52 @@ package com.microej.demo.smart_thermostat.page;
 
 import com.microej.demo.smart_thermostat.MainCanvas;
 import com.microej.demo.smart_thermostat.common.Page;
+import com.microej.demo.smart_thermostat.widget.HomeBackground;
 import com.microej.demo.smart_thermostat.widget.StaticOverlay;
 
+import ej.bon.Constants;
+
 /**
  * Shows the home page.
  */
 public class HomePage implements Page {
 
+	/**
+	 * Name of the constant enabling the composited background, see {@link HomeBackground}.
+	 */
+	public static final String COMPOSITE_BACKGROUND_CONSTANT = "home.background.composite"; //$NON-NLS-1$
+
 	private final StaticOverlay staticHomeOverlay;
+	private final boolean compositeBackground;
 
 	/**
 	 * Creates the home page.
 	 */
 	public HomePage() {
 		this.staticHomeOverlay = new StaticOverlay(true);
+		this.compositeBackground = Constants.getBoolean(COMPOSITE_BACKGROUND_CONSTANT);
 	}
 
 	@Override
 	public void build(MainCanvas canvas) {
-		if (canvas.getChildrenCount() > 0) {
-			canvas.removeAllChildren();
+		if (this.compositeBackground) {
+			canvas.showHomeBackground();
+		} else {
+			canvas.showSkyColor();
 		}
+		canvas.showParallax();
+		canvas.showBubbleWidget();
+		canvas.showThresholdPopup();
+		canvas.showDateWidget();
+		canvas.showInsideBubbleLabels();
+		canvas.showOutsideBubbleLabels();
 
-		canvas.addSkyColor();
-		canvas.addParallax();
-		canvas.addBubbleWidget();
-		canvas.addThresholdPopup();
-		canvas.addDateWidget();
-		canvas.addInsideBubbleLabels();
-		canvas.addOutsideBubbleLabels();
-
-		canvas.addChild(this.staticHomeOverlay, 0, 0, this.staticHomeOverlay.getWidth(),
-				this.staticHomeOverlay.getHeight());
+		if (this.compositeBackground) {
+			// the part of the overlay above the parallax is in the background layer
+			canvas.showOverParallax(this.staticHomeOverlay);
+		} else {
+			canvas.showChild(this.staticHomeOverlay, 0, 0, this.staticHomeOverlay.getWidth(),
+					this.staticHomeOverlay.getHeight());
+		}
 	}
 }
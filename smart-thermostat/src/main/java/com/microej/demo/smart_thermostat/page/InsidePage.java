@@ -46,17 +46,15 @@ public class InsidePage implements Page {
 
 	@Override
 	public void build(MainCanvas canvas) {
-		canvas.removeAllChildren();
+		canvas.showTransitionWidget();
+		canvas.showDateWidget();
+		canvas.showInsideBubbleLabels();
 
-		canvas.addTransitionWidget();
-		canvas.addDateWidget();
-		canvas.addInsideBubbleLabels();
-
-		canvas.addChild(this.circularSlider, CIRCULAR_SLIDER_X, CIRCULAR_SLIDER_Y, this.circularSlider.getWidth(),
+		canvas.showChild(this.circularSlider, CIRCULAR_SLIDER_X, CIRCULAR_SLIDER_Y, this.circularSlider.getWidth(),
 				this.circularSlider.getHeight());
-		canvas.addChild(this.humidityBubble, SECONDARY_BUBBLE_LEFT_X, SECONDARY_BUBBLE_ONE_Y, SECONDARY_BUBBLE_WIDTH,
+		canvas.showChild(this.humidityBubble, SECONDARY_BUBBLE_LEFT_X, SECONDARY_BUBBLE_ONE_Y, SECONDARY_BUBBLE_WIDTH,
 				SECONDARY_BUBBLE_HEIGHT);
-		canvas.addChild(this.fanBubble, SECONDARY_BUBBLE_RIGHT_X, SECONDARY_BUBBLE_ONE_Y, SECONDARY_BUBBLE_WIDTH,
+		canvas.showChild(this.fanBubble, SECONDARY_BUBBLE_RIGHT_X, SECONDARY_BUBBLE_ONE_Y, SECONDARY_BUBBLE_WIDTH,
 				SECONDARY_BUBBLE_HEIGHT);
 	}
 }
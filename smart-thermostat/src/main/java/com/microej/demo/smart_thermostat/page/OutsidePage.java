@@ -44,16 +44,14 @@ public class OutsidePage implements Page {
 
 	@Override
 	public void build(MainCanvas canvas) {
-		canvas.removeAllChildren();
+		canvas.showTransitionWidget();
+		canvas.showDateWidget();
+		canvas.showOverlay();
+		canvas.showOutsideBubbleLabels();
 
-		canvas.addTransitionWidget();
-		canvas.addDateWidget();
-		canvas.addOverlay();
-		canvas.addOutsideBubbleLabels();
-
-		canvas.addChild(this.weatherWidget, WEATHER_X, WEATHER_Y, WEATHER_WIDTH,
+		canvas.showChild(this.weatherWidget, WEATHER_X, WEATHER_Y, WEATHER_WIDTH,
 				WEATHER_HEIGHT + WeatherWidget.ANIMATION_EASE_IN_DISTANCE);
-		canvas.addChild(this.solarBubble, SECONDARY_BUBBLE_RIGHT_X, SECONDARY_BUBBLE_ONE_Y, SECONDARY_BUBBLE_WIDTH,
+		canvas.showChild(this.solarBubble, SECONDARY_BUBBLE_RIGHT_X, SECONDARY_BUBBLE_ONE_Y, SECONDARY_BUBBLE_WIDTH,
 				SECONDARY_BUBBLE_HEIGHT);
 	}
 }
@@ -0,0 +1,285 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.style;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microej.demo.smart_thermostat.common.DrawCounter;
+import com.microej.demo.smart_thermostat.common.FrameTimeRecorder;
+import com.microej.demo.smart_thermostat.common.QualityGovernor;
+
+import ej.bon.Constants;
+import ej.bon.Util;
+import ej.microui.MicroUI;
+import ej.microui.display.Display;
+import ej.microui.display.GraphicsContext;
+import ej.mwt.Desktop;
+import ej.mwt.Widget;
+import ej.mwt.render.RenderPolicy;
+import ej.mwt.util.Rectangle;
+
+/**
+ * This render policy only re-renders the regions of the screen that have been requested.
+ * <p>
+ * The requested regions are kept in a small list of dirty rectangles. Overlapping or touching rectangles are merged
+ * together, and when the list is full, the incoming region is merged into the rectangle which grows the least. On
+ * render, each dirty rectangle is used as clip to render the desktop widget: the containers only render the children
+ * that intersect it, in their stacking order so that overlapping layers stay consistent.
+ * </p>
+ * <p>
+ * The display only flushes the area which has been drawn since the previous flush, so the flushed region is the union
+ * of the dirty rectangles instead of the whole screen.
+ * </p>
+ */
+public class DirtyRegionRenderPolicy extends RenderPolicy {
+
+	private static final Logger LOGGER = Logger.getLogger(DirtyRegionRenderPolicy.class.getName());
+
+	private static final int MAX_DIRTY_REGIONS = 8;
+
+	private final Rectangle[] dirtyRegions;
+	private final Rectangle[] renderedRegions;
+	private int dirtyRegionsCount;
+	private boolean pendingRepaint;
+
+	private long renderedFrames;
+	private long renderedPixels;
+	private long renderTime;
+
+	/**
+	 * Creates a dirty region render policy.
+	 *
+	 * @param desktop
+	 *            the desktop to render.
+	 */
+	public DirtyRegionRenderPolicy(Desktop desktop) {
+		super(desktop);
+		this.dirtyRegions = new Rectangle[MAX_DIRTY_REGIONS];
+		this.renderedRegions = new Rectangle[MAX_DIRTY_REGIONS];
+		for (int i = 0; i < MAX_DIRTY_REGIONS; i++) {
+			this.dirtyRegions[i] = new Rectangle();
+			this.renderedRegions[i] = new Rectangle();
+		}
+	}
+
+	@Override
+	public void renderDesktop() {
+		// the whole desktop is rendered: pending regions are covered
+		this.dirtyRegionsCount = 0;
+
+		Widget widget = getDesktop().getWidget();
+		if (widget != null) {
+			// reset translation and clip
+			GraphicsContext g = Display.getDisplay().getGraphicsContext();
+			g.resetTranslation();
+			g.resetClip();
+
+			// render widget
+			if (widget.isShown()) {
+				renderWidget(g, widget);
+			}
+		}
+	}
+
+	@Override
+	public void requestRender(Widget widget, int x, int y, int width, int height) {
+		if (Constants.getBoolean(DEBUG_RENDER_ENABLED_CONSTANT)) {
+			assert MONITOR != null;
+			MONITOR.onRenderRequested(widget, x, y, width, height);
+		}
+		addDirtyRegion(widget.getAbsoluteX() + x, widget.getAbsoluteY() + y, width, height);
+		if (this.pendingRepaint) {
+			return;
+		}
+		this.pendingRepaint = true;
+		asynchronousRender();
+	}
+
+	/**
+	 * Gets the number of frames rendered by this policy.
+	 *
+	 * @return the number of rendered frames.
+	 */
+	public long getRenderedFrames() {
+		return this.renderedFrames;
+	}
+
+	/**
+	 * Gets the number of pixels rendered and flushed by this policy.
+	 *
+	 * @return the number of rendered pixels.
+	 */
+	public long getRenderedPixels() {
+		return this.renderedPixels;
+	}
+
+	/**
+	 * Gets the cumulated time spent rendering the frames, in milliseconds.
+	 *
+	 * @return the cumulated render time.
+	 */
+	public long getRenderTime() {
+		return this.renderTime;
+	}
+
+	private void asynchronousRender() {
+		MicroUI.callSerially(new Runnable() {
+			@Override
+			public void run() {
+				executeRender();
+			}
+		});
+	}
+
+	private void executeRender() {
+		this.pendingRepaint = false;
+		renderDirtyRegions();
+	}
+
+	private void renderDirtyRegions() {
+		// Swap the dirty regions so that render requests issued while rendering are kept for the next frame.
+		int count = this.dirtyRegionsCount;
+		Rectangle[] regions = this.renderedRegions;
+		for (int i = 0; i < count; i++) {
+			Rectangle dirtyRegion = this.dirtyRegions[i];
+			regions[i].setBounds(dirtyRegion.getX(), dirtyRegion.getY(), dirtyRegion.getWidth(),
+					dirtyRegion.getHeight());
+		}
+		this.dirtyRegionsCount = 0;
+		if (count == 0) {
+			return;
+		}
+
+		long startTime = Util.platformTimeMillis();
+		int pixels = 0;
+		Display display = Display.getDisplay();
+		try {
+			Widget widget = getDesktop().getWidget();
+			if (widget != null && widget.isShown()) {
+				GraphicsContext g = display.getGraphicsContext();
+				for (int i = 0; i < count; i++) {
+					Rectangle region = regions[i];
+					renderRegion(g, widget, region);
+					pixels += region.getWidth() * region.getHeight();
+				}
+			}
+		} finally {
+			display.flush();
+		}
+
+		long duration = Util.platformTimeMillis() - startTime;
+		this.renderedFrames++;
+		this.renderedPixels += pixels;
+		this.renderTime += duration;
+		FrameTimeRecorder.INSTANCE.record(duration);
+		QualityGovernor.INSTANCE.record(duration);
+		DrawCounter.INSTANCE.endFrame();
+		if (LOGGER.isLoggable(Level.FINEST)) {
+			LOGGER.finest("rendered " + count + " regions, " + pixels + " px in " + duration + " ms"); //$NON-NLS-1$
+		}
+	}
+
+	private void renderRegion(GraphicsContext g, Widget widget, Rectangle region) {
+		// the children of the main canvas are not all displayed: let it select the ones to render in the region
+		g.resetTranslation();
+		g.setClip(region.getX(), region.getY(), region.getWidth(), region.getHeight());
+		renderWidget(g, widget);
+	}
+
+	private void addDirtyRegion(int x, int y, int width, int height) {
+		Display display = Display.getDisplay();
+		// clip the region to the display bounds
+		int left = Math.max(x, 0);
+		int top = Math.max(y, 0);
+		int right = Math.min(x + width, display.getWidth());
+		int bottom = Math.min(y + height, display.getHeight());
+		if (right <= left || bottom <= top) {
+			return;
+		}
+
+		Rectangle[] regions = this.dirtyRegions;
+		int count = this.dirtyRegionsCount;
+
+		// merge with the first region that overlaps or touches the new one: the region is grown by one pixel on each side
+		for (int i = 0; i < count; i++) {
+			Rectangle region = regions[i];
+			if (intersects(left, top, right - left, bottom - top, region.getX() - 1, region.getY() - 1,
+					region.getWidth() + 2, region.getHeight() + 2)) {
+				union(region, left, top, right, bottom);
+				mergeOverlappingRegions(i);
+				return;
+			}
+		}
+
+		if (count < MAX_DIRTY_REGIONS) {
+			regions[count].setBounds(left, top, right - left, bottom - top);
+			this.dirtyRegionsCount = count + 1;
+			return;
+		}
+
+		// no room left: merge with the region whose area grows the least
+		int bestIndex = 0;
+		long bestGrowth = Long.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			Rectangle region = regions[i];
+			int unionWidth = Math.max(right, region.getX() + region.getWidth()) - Math.min(left, region.getX());
+			int unionHeight = Math.max(bottom, region.getY() + region.getHeight()) - Math.min(top, region.getY());
+			long growth = (long) unionWidth * unionHeight - (long) region.getWidth() * region.getHeight();
+			if (growth < bestGrowth) {
+				bestGrowth = growth;
+				bestIndex = i;
+			}
+		}
+		union(regions[bestIndex], left, top, right, bottom);
+		mergeOverlappingRegions(bestIndex);
+	}
+
+	private void mergeOverlappingRegions(int index) {
+		// a grown region may now overlap some others: absorb them until stable
+		Rectangle[] regions = this.dirtyRegions;
+		Rectangle grown = regions[index];
+		boolean merged = true;
+		while (merged) {
+			merged = false;
+			for (int i = 0; i < this.dirtyRegionsCount; i++) {
+				Rectangle other = regions[i];
+				if (other != grown && intersects(grown.getX(), grown.getY(), grown.getWidth(), grown.getHeight(),
+						other.getX(), other.getY(), other.getWidth(), other.getHeight())) {
+					union(grown, other.getX(), other.getY(), other.getX() + other.getWidth(),
+							other.getY() + other.getHeight());
+					removeDirtyRegion(i);
+					merged = true;
+					break;
+				}
+			}
+		}
+	}
+
+	private void removeDirtyRegion(int index) {
+		// keep the rectangle instances: move the removed one at the end of the used slots
+		Rectangle[] regions = this.dirtyRegions;
+		int last = this.dirtyRegionsCount - 1;
+		Rectangle removed = regions[index];
+		regions[index] = regions[last];
+		regions[last] = removed;
+		this.dirtyRegionsCount = last;
+	}
+
+	private static void union(Rectangle region, int left, int top, int right, int bottom) {
+		int newLeft = Math.min(left, region.getX());
+		int newTop = Math.min(top, region.getY());
+		int newRight = Math.max(right, region.getX() + region.getWidth());
+		int newBottom = Math.max(bottom, region.getY() + region.getHeight());
+		region.setBounds(newLeft, newTop, newRight - newLeft, newBottom - newTop);
+	}
+
+	private static boolean intersects(int x1, int y1, int width1, int height1, int x2, int y2, int width2,
+			int height2) {
+		return x1 < x2 + width2 && x2 < x1 + width1 && y1 < y2 + height2 && y2 < y1 + height1;
+	}
+}
@@ -6,7 +6,15 @@
  */
 package com.microej.demo.smart_thermostat.style;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microej.demo.smart_thermostat.common.DrawCounter;
+import com.microej.demo.smart_thermostat.common.FrameTimeRecorder;
+import com.microej.demo.smart_thermostat.common.QualityGovernor;
+
 import ej.bon.Constants;
+import ej.bon.Util;
 import ej.microui.MicroUI;
 import ej.microui.display.Display;
 import ej.microui.display.GraphicsContext;
@@ -22,6 +30,8 @@ import ej.mwt.render.RenderPolicy;
  */
 public class FullScreenRenderPolicy extends RenderPolicy {
 
+	private static final Logger LOGGER = Logger.getLogger(FullScreenRenderPolicy.class.getName());
+
 	private boolean pendingRepaint;
 
 	/**
@@ -78,12 +88,22 @@ public class FullScreenRenderPolicy extends RenderPolicy {
 	private void executeRender() {
 		this.pendingRepaint = false;
 
+		long startTime = Util.platformTimeMillis();
+		Display display = Display.getDisplay();
 		try {
 			renderDesktop();
 		} finally {
-			Display display = Display.getDisplay();
 			display.flush();
 		}
+
+		long duration = Util.platformTimeMillis() - startTime;
+		FrameTimeRecorder.INSTANCE.record(duration);
+		QualityGovernor.INSTANCE.record(duration);
+		DrawCounter.INSTANCE.endFrame();
+		if (LOGGER.isLoggable(Level.FINEST)) {
+			int pixels = display.getWidth() * display.getHeight();
+			LOGGER.finest("rendered " + pixels + " px in " + duration + " ms"); //$NON-NLS-1$
+		}
 	}
 
 }
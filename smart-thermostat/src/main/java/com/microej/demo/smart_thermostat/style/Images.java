@@ -64,10 +64,21 @@ public class Images {
 	/** Path for the transition home scaled ceiling on the right. */
 	public static final String BG_HOME_SCALED_CEILING_RIGHT = "/background/home_scaled_ceiling_right.png";
 
+	private static int loadsCount;
+
 	private Images() {
 		// Prevent instantiation.
 	}
 
+	/**
+	 * Gets the number of images loaded from the resources since the start of the application.
+	 *
+	 * @return the number of image loads.
+	 */
+	public static int getLoadsCount() {
+		return loadsCount;
+	}
+
 	/**
 	 * Gets the Image associated with the given {@link WeatherCondition}.
 	 * <p>
@@ -82,7 +93,20 @@ public class Images {
 	 * @return the {@link ResourceImage} for the given {@link WeatherCondition}.
 	 */
 	public static ResourceImage getWeatherImage(WeatherCondition conditionCode, boolean big) {
-		return getResourceImage("/weather/" + conditionCode.name().toLowerCase() + (big ? "_big.png" : ".png"));
+		return getResourceImage(getWeatherImagePath(conditionCode, big));
+	}
+
+	/**
+	 * Gets the path of the Image associated with the given {@link WeatherCondition}.
+	 *
+	 * @param conditionCode
+	 *            the {@link WeatherCondition} to get the image path for.
+	 * @param big
+	 *            {@code true}, if the returned path should be the one of the big image. {@code false} otherwise.
+	 * @return the path to use with {@link #getResourceImage(String)}.
+	 */
+	public static String getWeatherImagePath(WeatherCondition conditionCode, boolean big) {
+		return "/weather/" + conditionCode.name().toLowerCase() + (big ? "_big.png" : ".png");
 	}
 
 	/**
@@ -101,6 +125,7 @@ public class Images {
 	 */
 	public static ResourceImage getResourceImage(String path) {
 		String dpi = LOW_RESOLUTION ? "ldpi" : "hdpi";
+		loadsCount++;
 		return ResourceImage.loadImage("/images/" + dpi + path);
 	}
 
@@ -122,6 +147,7 @@ public class Images {
 	 */
 	public static ResourceImage getResourceImage(String path, ResourceImage.OutputFormat format) {
 		String dpi = LOW_RESOLUTION ? "ldpi" : "hdpi";
+		loadsCount++;
 		return ResourceImage.loadImage("/images/" + dpi + path, format);
 	}
 }
@@ -11,16 +11,20 @@ import static com.microej.demo.smart_thermostat.NavigationDesktop.*;
 import java.util.logging.Logger;
 
 import com.microej.demo.smart_thermostat.common.ActionListener;
+import com.microej.demo.smart_thermostat.common.Activatable;
 import com.microej.demo.smart_thermostat.common.Context;
 import com.microej.demo.smart_thermostat.model.SmartThermostatModel;
-import com.microej.demo.smart_thermostat.model.ThermostatObserver;
+import com.microej.demo.smart_thermostat.model.ThermostatBatchObserver;
+import com.microej.demo.smart_thermostat.model.ThermostatSnapshot;
 import com.microej.demo.smart_thermostat.common.FlushVisualizer;
+import com.microej.demo.smart_thermostat.common.Layer;
+import com.microej.demo.smart_thermostat.common.LayerCache;
+import com.microej.demo.smart_thermostat.common.ResourceCache;
 import com.microej.demo.smart_thermostat.style.Fonts;
+import com.microej.demo.smart_thermostat.style.ThermoColors;
 import com.microej.demo.smart_thermostat.style.VectorImages;
 
 import ej.annotation.Nullable;
-import ej.microui.display.BufferedImage;
-import ej.microui.display.Colors;
 import ej.microui.display.GraphicsContext;
 import ej.microui.display.Painter;
 import ej.microvg.*;
@@ -31,7 +35,7 @@ import ej.mwt.util.Size;
 /**
  * Shows the labels inside the animated bubble. Optimizes drawing by using screenshots of the bubble inside plus labels.
  */
-public class BubbleLabels extends Widget implements ThermostatObserver {
+public class BubbleLabels extends Widget implements ThermostatBatchObserver, Activatable {
 
 	/** Selector ID for the title color. */
 	public static final int STYLE_TITLE_COLOR = 0;
@@ -80,12 +84,13 @@ public class BubbleLabels extends Widget implements ThermostatObserver {
 	private int pressure;
 
 	private boolean dirty = true;
+	private int modelVersion = -1;
 	private final boolean isInside;
 	private final SmartThermostatModel model;
 	private final ActionListener actionListener;
+	private final String layerKey;
 
 	private @Nullable BufferedVectorImage bufferedVectorImage;
-	private @Nullable BufferedImage bufferedImage;
 
 	/**
 	 * Creates the bubble labels.
@@ -102,39 +107,36 @@ public class BubbleLabels extends Widget implements ThermostatObserver {
 		this.humidity = rndNumber(RANDOM_HUMIDITY_MIN, RANDOM_HUMIDITY_MAX);
 		this.pressure = rndNumber(RANDOM_PRESSURE_MIN, RANDOM_PRESSURE_MAX);
 		this.actionListener = actionListener;
+		this.layerKey = isInside ? "labels.inside" : "labels.outside"; //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
 	@Override
-	public void onShown() {
-		if (!this.actionListener.atHome()) {
-			// Outside bubbles also observe, but will use random numbers instead of the 'inside' values.
-			int temperatureType = SmartThermostatModel.getInstance().getTemperatureType();
-			int humidityType = SmartThermostatModel.getInstance().getHumidityType();
-			int pressureType = SmartThermostatModel.getInstance().getPressureType();
-
-			SmartThermostatModel.getInstance().addObserver(this, temperatureType, humidityType, pressureType);
-			super.onShown();
-		}
+	public void onActivated() {
+		// Outside bubbles also observe, but will use random numbers instead of the 'inside' values.
+		int temperatureType = SmartThermostatModel.getInstance().getTemperatureType();
+		int humidityType = SmartThermostatModel.getInstance().getHumidityType();
+		int pressureType = SmartThermostatModel.getInstance().getPressureType();
+
+		SmartThermostatModel.getInstance().addObserver(this, temperatureType, humidityType, pressureType);
 	}
 
 	@Override
-	public void onHidden() {
-		// Outside bubbles also observe, but will use random numbers instead of the 'inside' values.
+	public void onDeactivated() {
 		int temperatureType = SmartThermostatModel.getInstance().getTemperatureType();
 		int humidityType = SmartThermostatModel.getInstance().getHumidityType();
 		int pressureType = SmartThermostatModel.getInstance().getPressureType();
 
-		if (this.bufferedImage != null) {
-			this.bufferedImage.close();
-			this.bufferedImage = null;
-		}
+		SmartThermostatModel.getInstance().removeObserver(this, temperatureType, humidityType, pressureType);
+	}
+
+	@Override
+	public void onHidden() {
+		LayerCache.getInstance().invalidate(this.layerKey);
 
 		if (this.bufferedVectorImage != null) {
 			this.bufferedVectorImage.close();
 			this.bufferedVectorImage = null;
 		}
-
-		SmartThermostatModel.getInstance().removeObserver(this, temperatureType, humidityType, pressureType);
 		super.onHidden();
 	}
 
@@ -154,35 +156,29 @@ public class BubbleLabels extends Widget implements ThermostatObserver {
 
 	private void renderBufferedImage(GraphicsContext g, int contentWidth, int contentHeight) {
 		// Use buffered image
-		if (this.dirty || this.bufferedImage == null) {
+		Layer layer = LayerCache.getInstance().getLayer(this.layerKey, contentWidth, contentHeight);
+		if (this.dirty || !layer.isValid()) {
 			// reset the buffered vector image so we get rid of previous background color
 			if (this.bufferedVectorImage != null) {
 				this.bufferedVectorImage.close();
 				this.bufferedVectorImage = null;
 			}
-			if (this.bufferedImage == null) {
-				this.bufferedImage = new BufferedImage(contentWidth, contentHeight);
-			}
-			if (this.isInside && !this.actionListener.atHome()) {
-				g.setColor(Colors.WHITE);
-				Painter.fillRectangle(g, 0, 0, contentWidth, contentHeight);
-			}
-			renderActualContent(g, contentWidth, contentHeight);
-			// Prepare image for next time
-			takeScreenshot(this.bufferedImage, contentWidth, contentHeight);
+			GraphicsContext layerGc = layer.getImage().getGraphicsContext();
+			layerGc.reset();
+			// the labels are always displayed over the white of the bubble or of the page panel
+			layerGc.setColor(ThermoColors.BG_BUBBLE);
+			Painter.fillRectangle(layerGc, 0, 0, contentWidth, contentHeight);
+			renderActualContent(layerGc, contentWidth, contentHeight);
+			layer.validate();
 			this.dirty = false;
-		} else {
-			Painter.drawImage(g, this.bufferedImage, 0, 0);
 		}
+		Painter.drawImage(g, layer.getImage(), 0, 0);
 	}
 
 	private void renderBufferedVectorImage(GraphicsContext g, int contentWidth, int contentHeight) {
 		if (this.dirty || this.bufferedVectorImage == null) {
 			// reset the buffered image for getting rid of previous bg color
-			if (this.bufferedImage != null) {
-				this.bufferedImage.close();
-				this.bufferedImage = null;
-			}
+			LayerCache.getInstance().invalidate(this.layerKey);
 			if (this.bufferedVectorImage == null) {
 				this.bufferedVectorImage = new BufferedVectorImage(contentWidth, contentHeight);
 			}
@@ -237,7 +233,8 @@ public class BubbleLabels extends Widget implements ThermostatObserver {
 			matrix.preScale(SCALE, SCALE);
 		}
 
-		ResourceVectorImage humidityIcon = ResourceVectorImage.loadImage(VectorImages.HUMIDITY);
+		ResourceCache resourceCache = ResourceCache.getInstance();
+		ResourceVectorImage humidityIcon = resourceCache.getVectorImage(VectorImages.HUMIDITY);
 		int iconX = (int) ((((int) humidityIcon.getWidth()) + SMALL_PADDING_BETWEEN) * SCALE_FOR_ICON_POS);
 		VectorGraphicsPainter.drawImage(g, humidityIcon, matrix);
 		VectorGraphicsPainter.drawString(g, this.humidity + "%", secondaryValueFont, SECONDARY_VALUE_FONT_SIZE, iconX,
@@ -256,50 +253,38 @@ public class BubbleLabels extends Widget implements ThermostatObserver {
 			matrix.preScale(SCALE, SCALE);
 		}
 
-		ResourceVectorImage pressureIcon = ResourceVectorImage.loadImage(VectorImages.PRESSURE);
+		ResourceVectorImage pressureIcon = resourceCache.getVectorImage(VectorImages.PRESSURE);
 		VectorGraphicsPainter.drawImage(g, pressureIcon, matrix);
 		VectorGraphicsPainter.drawString(g, String.valueOf(this.pressure), secondaryValueFont,
 				SECONDARY_VALUE_FONT_SIZE, iconX, pressionValueY);
 		VectorGraphicsPainter.drawString(g, PRESSURE_SIGN, secondaryValueFont, PRESSURE_SIGN_FONT_SIZE,
 				iconX + (float) PRESSURE_SIGN_X_OFFSET, pressionValueY + (float) PRESSURE_SIGN_Y_OFFSET);
 
-		humidityIcon.close();
-		pressureIcon.close();
-	}
-
-	/**
-	 * Takes a screenshot of the bubble.
-	 *
-	 * @param buffImage
-	 *            the buffered image.
-	 * @param contentWidth
-	 *            the width of the content.
-	 * @param contentHeight
-	 *            the height of the content.
-	 */
-	public void takeScreenshot(BufferedImage buffImage, int contentWidth, int contentHeight) {
-		// Use screenshot context only
-		GraphicsContext buffImageGc = buffImage.getGraphicsContext();
-		buffImageGc.reset();
-		/*
-		 * Getting the style and rendering the background is not needed for now.
-		 */
-		Painter.drawDisplayRegion(buffImageGc, this.getX(), this.getY(), contentWidth, contentHeight, 0, 0);
+		resourceCache.release(humidityIcon);
+		resourceCache.release(pressureIcon);
 	}
 
 	/**
 	 * Updates the bubble labels randomly.
 	 */
 	public void updateBubbleLabels() {
+		SmartThermostatModel model = this.model;
+		ThermostatSnapshot snapshot = model.getSnapshot();
+		int observedTypes = SmartThermostatModel.getTypeMask(model.getTemperatureType())
+				| SmartThermostatModel.getTypeMask(model.getHumidityType())
+				| SmartThermostatModel.getTypeMask(model.getPressureType());
+		if (!snapshot.hasChangedSince(this.modelVersion, observedTypes)) {
+			return;
+		}
+		this.modelVersion = snapshot.getVersion();
+
 		int newTemp = this.temperature;
 		int newHumidity = this.humidity;
-		int newPressure = this.pressure;
+		int newPressure = snapshot.getPressure();
 		if (this.isInside) {
-			newTemp = this.model.getTemperature();
-			newHumidity = this.model.getHumidity();
-			newPressure = this.model.getPressure();
+			newTemp = snapshot.getTemperature();
+			newHumidity = snapshot.getHumidity();
 		} else {
-			newPressure = this.model.getPressure();
 			// Update the random temperature and the humidity only if new data has been pushed in the event queue
 			if (newPressure != this.pressure) {
 				newTemp = rndNumber(RANDOM_TEMP_MIN, RANDOM_TEMP_MAX);
@@ -321,6 +306,17 @@ public class BubbleLabels extends Widget implements ThermostatObserver {
 
 	@Override
 	public void update(int valueType, int newValue) {
+		updateAll(SmartThermostatModel.getTypeMask(valueType));
+	}
+
+	@Override
+	public void updateAll(int changedTypes) {
+		ActionListener actionListener = this.actionListener;
+		if (actionListener.atHome() && actionListener.isParallaxRunning()) {
+			// at home, the labels are updated at the end of each parallax motion, but not while it is frozen
+			return;
+		}
+		// the labels are all read from the model: render once for the whole reading
 		updateBubbleLabels();
 		requestRender();
 	}
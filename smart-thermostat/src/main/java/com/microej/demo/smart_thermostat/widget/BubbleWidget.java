@@ -8,24 +8,29 @@ package com.microej.demo.smart_thermostat.widget;
 
 import static com.microej.demo.smart_thermostat.NavigationDesktop.*;
 
+import com.microej.demo.smart_thermostat.common.Activatable;
 import com.microej.demo.smart_thermostat.common.FlushVisualizer;
+import com.microej.demo.smart_thermostat.common.FrameClock;
 import com.microej.demo.smart_thermostat.style.VectorImages;
 
+import ej.bon.Util;
 import ej.microui.display.GraphicsContext;
 import ej.microvg.Matrix;
 import ej.microvg.VectorGraphicsPainter;
 import ej.microvg.VectorImage;
 import ej.mwt.Widget;
+import ej.mwt.animation.Animation;
 import ej.mwt.util.Size;
 
 /**
  * Widget displaying the animated vector bubble.
  */
-public class BubbleWidget extends Widget {
+public class BubbleWidget extends Widget implements Activatable {
 
-	private static final int FADE_IN_TICK_TIME = 100;
-	private static final int TICK_TIME = 50;
+	// the fade in part of the animation is played twice as fast
+	private static final int FADE_IN_SPEED = 2;
 	private static final int FADE_IN_END = 320;
+	private static final int FADE_IN_DURATION = FADE_IN_END / FADE_IN_SPEED;
 
 	private static boolean fade = false;
 
@@ -33,8 +38,13 @@ public class BubbleWidget extends Widget {
 	private final int bubbleImageWidth;
 	private final int bubbleImageHeight;
 	private final Matrix bubbleMatrix;
+	private final Animation bubbleAnimation;
 
 	private int elapsedTime = 0;
+	private long startTime;
+	private boolean shown;
+	private boolean parallaxRunning = true;
+	private long pauseTime;
 
 	/**
 	 * Creates the BubbleWidget.
@@ -50,6 +60,19 @@ public class BubbleWidget extends Widget {
 		if (!LOW_RESOLUTION) {
 			this.bubbleMatrix.setScale(SCALE, SCALE);
 		}
+
+		this.bubbleAnimation = new Animation() {
+			@Override
+			public boolean tick(long platformTimeMillis) {
+				if (!BubbleWidget.this.parallaxRunning) {
+					// the bubble keeps its current frame: the animation is started again with the parallax
+					return false;
+				}
+				BubbleWidget.this.tick(platformTimeMillis);
+				FrameClock.INSTANCE.requestRender(BubbleWidget.this);
+				return true;
+			}
+		};
 	}
 
 	/**
@@ -64,19 +87,21 @@ public class BubbleWidget extends Widget {
 	/**
 	 * Continues the animation of the bubble VectorGraphic.
 	 * <p>
-	 * A tick is {@value TICK_TIME}ms
+	 * The position in the animation is computed from the time elapsed since the bubble has been shown, so the speed of
+	 * the animation does not depend on the frame rate. After the fade in, the animation loops from its end back to the
+	 * end of the fade in.
 	 * </p>
+	 *
+	 * @param platformTimeMillis
+	 *            the time of the frame.
 	 */
-	public void tick() {
-		if (this.elapsedTime <= FADE_IN_END) {
-			this.elapsedTime += FADE_IN_TICK_TIME;
+	private void tick(long platformTimeMillis) {
+		long elapsed = platformTimeMillis - this.startTime;
+		if (elapsed < FADE_IN_DURATION) {
+			this.elapsedTime = (int) (elapsed * FADE_IN_SPEED);
 		} else {
-			this.elapsedTime += TICK_TIME;
-		}
-
-		if (this.elapsedTime >= this.bubbleImage.getDuration()) {
-			this.elapsedTime = FADE_IN_END;
-		} else if (this.elapsedTime >= FADE_IN_END) {
+			long loopDuration = this.bubbleImage.getDuration() - FADE_IN_END;
+			this.elapsedTime = FADE_IN_END + (int) ((elapsed - FADE_IN_DURATION) % loopDuration);
 			fade = false;
 		}
 	}
@@ -93,19 +118,48 @@ public class BubbleWidget extends Widget {
 	}
 
 	@Override
-	protected void onShown() {
-		super.onShown();
+	public void onActivated() {
+		this.shown = true;
 		startFade();
+		if (this.parallaxRunning) {
+			FrameClock.INSTANCE.start(this.bubbleAnimation);
+		} else {
+			this.pauseTime = this.startTime;
+		}
 	}
 
 	@Override
-	protected void onHidden() {
-		super.onHidden();
+	public void onDeactivated() {
+		this.shown = false;
 		stopFade();
+		FrameClock.INSTANCE.stop(this.bubbleAnimation);
+	}
+
+	/**
+	 * Tells the bubble whether the parallax is running, or not. The bubble loops only while the parallax is running,
+	 * and continues from its current frame when the parallax starts again.
+	 *
+	 * @param running
+	 *            {@code true}, if the parallax is currently running.
+	 */
+	public void parallaxRunning(boolean running) {
+		if (running == this.parallaxRunning) {
+			return;
+		}
+		this.parallaxRunning = running;
+		long now = Util.platformTimeMillis();
+		if (!running) {
+			this.pauseTime = now;
+		} else if (this.shown) {
+			// the time spent paused does not advance the bubble
+			this.startTime += now - this.pauseTime;
+			FrameClock.INSTANCE.start(this.bubbleAnimation);
+		}
 	}
 
 	private void startFade() {
 		this.elapsedTime = 0;
+		this.startTime = Util.platformTimeMillis();
 		fade = true;
 	}
 
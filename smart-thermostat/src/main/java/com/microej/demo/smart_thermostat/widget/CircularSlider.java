@@ -13,6 +13,9 @@ import static com.microej.demo.smart_thermostat.page.InsidePage.CIRCULAR_SLIDER_
 import com.microej.demo.smart_thermostat.model.SmartThermostatModel;
 import com.microej.demo.smart_thermostat.model.ThermostatObserver;
 import com.microej.demo.smart_thermostat.common.FlushVisualizer;
+import com.microej.demo.smart_thermostat.common.Layer;
+import com.microej.demo.smart_thermostat.common.LayerCache;
+import com.microej.demo.smart_thermostat.common.ResourceCache;
 import com.microej.demo.smart_thermostat.style.Fonts;
 import com.microej.demo.smart_thermostat.style.Images;
 import com.microej.demo.smart_thermostat.common.SliderListener;
@@ -21,7 +24,7 @@ import com.microej.demo.smart_thermostat.style.ThermoColors;
 import ej.annotation.Nullable;
 import ej.basictool.ArrayTools;
 import ej.bon.XMath;
-import ej.microui.display.BufferedImage;
+import ej.microui.display.Colors;
 import ej.microui.display.GraphicsContext;
 import ej.microui.display.Painter;
 import ej.microui.display.ResourceImage;
@@ -42,6 +45,8 @@ public class CircularSlider extends FadeInWidget implements ThermostatObserver {
 	private static final String TEMP_SIGN = "°F";
 	private static final int TEMP_THRESHOLD_FAHRENHEIT_MAX = 90;
 	private static final int TEMP_THRESHOLD_FAHRENHEIT_MIN = 60;
+	private static final int TEMP_THRESHOLD_FAHRENHEIT_RANGE = TEMP_THRESHOLD_FAHRENHEIT_MAX
+			- TEMP_THRESHOLD_FAHRENHEIT_MIN;
 
 	private static final int GRADIENT_MARGIN_LEFT = scale(51);
 	private static final int GRADIENT_MARGIN_TOP = scale(16);
@@ -69,15 +74,15 @@ public class CircularSlider extends FadeInWidget implements ThermostatObserver {
 	private static final int SLIDER_BUTTON_SPACING = scale(20);
 	private static final int BUTTON_VERTICAL_OFFSET = scale(5);
 
+	private static final String THRESHOLD_LAYER_KEY = "slider.threshold"; //$NON-NLS-1$
+
 	private final VectorImage sliderImage;
 	private final Matrix matrix;
 	private final int gradientsWidth;
 	/** Ratio between slider elapsed time and temperature threshold value */
-	private final double constantOfProportionality;
 	private final float sliderHeight;
-	private final float temperatureHeight;
-	private final float temperatureSignWidth;
-	private final float temperatureSignHeight;
+	private final int thresholdLayerWidth;
+	private final int thresholdLayerHeight;
 
 	private int elapsedTime;
 	private boolean pressed;
@@ -98,9 +103,7 @@ public class CircularSlider extends FadeInWidget implements ThermostatObserver {
 	private final Rectangle buttonMinusClickArea;
 	private final Rectangle sliderClickArea;
 	private int threshold;
-	private @Nullable BufferedImage bufferedThresholdImage;
 	private final float temperatureWidth;
-	private boolean temperatureDirty = true;
 	private SliderListener[] sliderListeners = new SliderListener[0];
 
 	/**
@@ -110,9 +113,9 @@ public class CircularSlider extends FadeInWidget implements ThermostatObserver {
 		super(true);
 
 		this.sliderImage = VectorImage.getImage("/vector-images/cursor-slide/slider.xml"); //$NON-NLS-1$
-		this.curveGradientUp = Images.getResourceImage(Images.CURVE_UP, ResourceImage.OutputFormat.ARGB8888);
-		this.gradientsWidth = this.curveGradientUp.getWidth();
-		this.curveGradientUp.close();
+		ResourceImage curve = ResourceCache.getInstance().getImage(Images.CURVE_UP, ResourceImage.OutputFormat.ARGB8888);
+		this.gradientsWidth = curve.getWidth();
+		ResourceCache.getInstance().release(curve);
 
 		this.matrix = new Matrix();
 		if (!LOW_RESOLUTION) {
@@ -120,8 +123,6 @@ public class CircularSlider extends FadeInWidget implements ThermostatObserver {
 		}
 		this.sliderHeight = scale((int) this.sliderImage.getHeight());
 
-		this.constantOfProportionality = getConstantOfProportionality();
-
 		setThreshold(SmartThermostatModel.getInstance().getTemperatureThreshold());
 
 		int xPositionClickButtonsArea = BUTTONS_CLICK_AREA_POSITION_X - CLICKING_OFFSET_ONE_SIDE;
@@ -139,10 +140,11 @@ public class CircularSlider extends FadeInWidget implements ThermostatObserver {
 
 		this.temperatureWidth = mainFont.measureStringWidth(String.valueOf(TEMP_THRESHOLD_FAHRENHEIT_MAX),
 				TEMP_FONT_SIZE);
-		this.temperatureHeight = mainFont.measureStringHeight(String.valueOf(TEMP_THRESHOLD_FAHRENHEIT_MAX),
-				TEMP_FONT_SIZE);
-		this.temperatureSignWidth = mainFont.measureStringWidth(TEMP_SIGN, SIGN_FONT_SIZE);
-		this.temperatureSignHeight = mainFont.measureStringHeight(TEMP_SIGN, SIGN_FONT_SIZE);
+		float temperatureSignWidth = mainFont.measureStringWidth(TEMP_SIGN, SIGN_FONT_SIZE);
+		this.thresholdLayerWidth = (int) XMath.ceil(
+				this.temperatureWidth + TEMP_SIGN_X_OFFSET - BUTTON_VERTICAL_OFFSET + temperatureSignWidth);
+		this.thresholdLayerHeight = (int) XMath.ceil(Math.max(mainFont.getHeight(TEMP_FONT_SIZE),
+				TEMP_SIGN_Y_OFFSET + mainFont.getHeight(SIGN_FONT_SIZE)));
 	}
 
 	@Override
@@ -175,56 +177,34 @@ public class CircularSlider extends FadeInWidget implements ThermostatObserver {
 		// BUTTON PLUS
 		Painter.drawImage(g, this.buttonPlusPressed ? this.buttonPlusOn : this.buttonPlusOff, BUTTONS_POSITION_X,
 				BUTTON_PLUS_POSITION_Y, alpha);
-		g.setColor(ThermoColors.INSIDE_LABELS_PRIMARY);
-		if (this.temperatureDirty || this.bufferedThresholdImage == null) {
-			if (this.bufferedThresholdImage == null) {
-				this.bufferedThresholdImage = new BufferedImage(
-						(int) (this.temperatureWidth + this.temperatureSignWidth),
-						(int) (this.temperatureHeight + this.temperatureSignHeight));
-			}
-
-			renderThresholdValue(g, alpha, mainFont);
-
-			if (alpha == MAX_ALPHA) {
-				takeScreenshot(this.bufferedThresholdImage);
-				this.temperatureDirty = false;
-			}
-		} else {
-			Painter.drawImage(g, this.bufferedThresholdImage, BUTTONS_POSITION_X + BUTTON_VERTICAL_OFFSET,
-					THRESHOLD_POSITION_Y + TEMP_SIGN_Y_OFFSET);
+		Layer layer = LayerCache.getInstance().getLayer(THRESHOLD_LAYER_KEY, this.thresholdLayerWidth,
+				this.thresholdLayerHeight);
+		if (!layer.isValid()) {
+			renderThresholdValue(layer.getImage().getGraphicsContext(), mainFont);
+			layer.validate();
 		}
+		// the value is rendered opaque in the layer, the fade in is applied when drawing the layer
+		Painter.drawImage(g, layer.getImage(), BUTTONS_POSITION_X + BUTTON_VERTICAL_OFFSET, THRESHOLD_POSITION_Y,
+				alpha);
 
 		// BUTTON MINUS
 		Painter.drawImage(g, this.buttonMinusPressed ? this.buttonMinusOn : this.buttonMinusOff, BUTTONS_POSITION_X,
 				BUTTON_MINUS_POSITION_Y, alpha);
 	}
 
-	private void renderThresholdValue(GraphicsContext g, int alpha, VectorFont mainFont) {
-		Matrix thresholdmatrix = new Matrix();
+	private void renderThresholdValue(GraphicsContext g, VectorFont mainFont) {
+		g.reset();
+		// the value is displayed over the white panel of the inside page
+		g.setColor(Colors.WHITE);
+		Painter.fillRectangle(g, 0, 0, this.thresholdLayerWidth, this.thresholdLayerHeight);
+
 		// THRESHOLD VALUE
-		thresholdmatrix.setTranslate(BUTTONS_POSITION_X + (float) BUTTON_VERTICAL_OFFSET, THRESHOLD_POSITION_Y);
 		g.setColor(ThermoColors.INSIDE_LABELS_SECONDARY);
-		VectorGraphicsPainter.drawString(g, String.valueOf(this.threshold), mainFont, TEMP_FONT_SIZE, thresholdmatrix,
-				alpha, BlendMode.MULTIPLY, 0);
+		VectorGraphicsPainter.drawString(g, String.valueOf(this.threshold), mainFont, TEMP_FONT_SIZE, 0, 0);
 
 		// THRESHOLD SIGN
-		thresholdmatrix.setTranslate(BUTTONS_POSITION_X + this.temperatureWidth + TEMP_SIGN_X_OFFSET,
-				THRESHOLD_POSITION_Y + (float) TEMP_SIGN_Y_OFFSET);
-		VectorGraphicsPainter.drawString(g, TEMP_SIGN, mainFont, SIGN_FONT_SIZE, thresholdmatrix, alpha,
-				BlendMode.MULTIPLY, 0);
-	}
-
-	private void takeScreenshot(BufferedImage buffImage) {
-		// Use screenshot context only
-		GraphicsContext buffImageGc = buffImage.getGraphicsContext();
-		buffImageGc.reset();
-		/*
-		 * Getting the style and rendering the background is not needed for now.
-		 */
-		// Fill screenshot context with current state.
-		Painter.drawDisplayRegion(buffImageGc, CIRCULAR_SLIDER_X + BUTTONS_POSITION_X + BUTTON_VERTICAL_OFFSET,
-				CIRCULAR_SLIDER_Y + THRESHOLD_POSITION_Y + TEMP_SIGN_Y_OFFSET, buffImage.getWidth(),
-				buffImage.getHeight(), 0, 0);
+		VectorGraphicsPainter.drawString(g, TEMP_SIGN, mainFont, SIGN_FONT_SIZE,
+				this.temperatureWidth + TEMP_SIGN_X_OFFSET - BUTTON_VERTICAL_OFFSET, TEMP_SIGN_Y_OFFSET);
 	}
 
 	@Override
@@ -340,11 +320,16 @@ public class CircularSlider extends FadeInWidget implements ThermostatObserver {
 	}
 
 	private int calculateElapsedTimeFromThreshold(int threshold) {
-		return (int) ((TEMP_THRESHOLD_FAHRENHEIT_MAX - threshold) / this.constantOfProportionality);
+		// the elapsed time is proportional to the distance to the maximum threshold
+		long duration = this.sliderImage.getDuration();
+		return (int) ((TEMP_THRESHOLD_FAHRENHEIT_MAX - threshold) * duration / TEMP_THRESHOLD_FAHRENHEIT_RANGE);
 	}
 
 	private int calculateThresholdFromElapsedTime(int elapsedTime) {
-		return (int) (TEMP_THRESHOLD_FAHRENHEIT_MAX - (elapsedTime * this.constantOfProportionality));
+		// rounded up like the cast of the floating-point formula
+		long duration = this.sliderImage.getDuration();
+		return TEMP_THRESHOLD_FAHRENHEIT_MAX
+				- (int) ((elapsedTime * (long) TEMP_THRESHOLD_FAHRENHEIT_RANGE + duration - 1) / duration);
 	}
 
 	/**
@@ -371,23 +356,7 @@ public class CircularSlider extends FadeInWidget implements ThermostatObserver {
 	private void setThreshold(int newValue) {
 		setElapsedTime(calculateElapsedTimeFromThreshold(newValue));
 		this.threshold = newValue;
-		this.temperatureDirty = true;
-	}
-
-	@Override
-	protected void onFadeInDone() {
-		super.onFadeInDone();
-		this.temperatureDirty = true;
-	}
-
-	/**
-	 * Calculates the constant ratio value between elapsed time range and temperature range.
-	 */
-	private double getConstantOfProportionality() {
-		double minSlider = 0;
-		double maxSlider = this.sliderImage.getDuration();
-
-		return (TEMP_THRESHOLD_FAHRENHEIT_MAX - TEMP_THRESHOLD_FAHRENHEIT_MIN) / (maxSlider - minSlider);
+		LayerCache.getInstance().invalidate(THRESHOLD_LAYER_KEY);
 	}
 
 	/**
@@ -415,66 +384,57 @@ public class CircularSlider extends FadeInWidget implements ThermostatObserver {
 	}
 
 	@Override
-	protected void onShown() {
-		this.curveGradientUp = Images.getResourceImage(Images.CURVE_UP, ResourceImage.OutputFormat.ARGB8888);
-		this.curveGradientDown = Images.getResourceImage(Images.CURVE_DOWN, ResourceImage.OutputFormat.ARGB8888);
-		this.curveGradientUpHighlighted = Images.getResourceImage(Images.CURVE_UP_HIGHLIGHT,
+	public void onActivated() {
+		ResourceCache resourceCache = ResourceCache.getInstance();
+		this.curveGradientUp = resourceCache.getImage(Images.CURVE_UP, ResourceImage.OutputFormat.ARGB8888);
+		this.curveGradientDown = resourceCache.getImage(Images.CURVE_DOWN, ResourceImage.OutputFormat.ARGB8888);
+		this.curveGradientUpHighlighted = resourceCache.getImage(Images.CURVE_UP_HIGHLIGHT,
 				ResourceImage.OutputFormat.ARGB8888);
-		this.curveGradientDownHighlighted = Images.getResourceImage(Images.CURVE_DOWN_HIGHLIGHT,
+		this.curveGradientDownHighlighted = resourceCache.getImage(Images.CURVE_DOWN_HIGHLIGHT,
 				ResourceImage.OutputFormat.ARGB8888);
-		this.buttonPlusOff = Images.getResourceImage(Images.BUTTON_PLUS_OFF, ResourceImage.OutputFormat.ARGB8888);
-		this.buttonPlusOn = Images.getResourceImage(Images.BUTTON_PLUS_ON, ResourceImage.OutputFormat.ARGB8888);
-		this.buttonMinusOff = Images.getResourceImage(Images.BUTTON_MINUS_OFF, ResourceImage.OutputFormat.ARGB8888);
-		this.buttonMinusOn = Images.getResourceImage(Images.BUTTON_MINUS_ON, ResourceImage.OutputFormat.ARGB8888);
-		super.onShown();
-
-		setThreshold(SmartThermostatModel.getInstance().getTemperatureThreshold());
+		this.buttonPlusOff = resourceCache.getImage(Images.BUTTON_PLUS_OFF, ResourceImage.OutputFormat.ARGB8888);
+		this.buttonPlusOn = resourceCache.getImage(Images.BUTTON_PLUS_ON, ResourceImage.OutputFormat.ARGB8888);
+		this.buttonMinusOff = resourceCache.getImage(Images.BUTTON_MINUS_OFF, ResourceImage.OutputFormat.ARGB8888);
+		this.buttonMinusOn = resourceCache.getImage(Images.BUTTON_MINUS_ON, ResourceImage.OutputFormat.ARGB8888);
+		super.onActivated();
+
+		// the threshold layer is kept while the page is left, redraw it only if the threshold has changed meanwhile
+		int temperatureThreshold = SmartThermostatModel.getInstance().getTemperatureThreshold();
+		if (temperatureThreshold != this.threshold) {
+			setThreshold(temperatureThreshold);
+		}
 
 		int temperatureThresholdType = SmartThermostatModel.getInstance().getTemperatureThresholdType();
 		SmartThermostatModel.getInstance().addObserver(this, temperatureThresholdType);
 	}
 
 	@Override
-	protected void onHidden() {
+	public void onDeactivated() {
 		int temperatureThresholdType = SmartThermostatModel.getInstance().getTemperatureThresholdType();
 		SmartThermostatModel.getInstance().removeObserver(this, temperatureThresholdType);
+		super.onDeactivated();
+
+		// the images stay resident in the cache for a while, in case the page is displayed again soon
+		this.curveGradientUp = release(this.curveGradientUp);
+		this.curveGradientDown = release(this.curveGradientDown);
+		this.curveGradientUpHighlighted = release(this.curveGradientUpHighlighted);
+		this.curveGradientDownHighlighted = release(this.curveGradientDownHighlighted);
+		this.buttonPlusOff = release(this.buttonPlusOff);
+		this.buttonPlusOn = release(this.buttonPlusOn);
+		this.buttonMinusOff = release(this.buttonMinusOff);
+		this.buttonMinusOn = release(this.buttonMinusOn);
+	}
 
-		if (this.bufferedThresholdImage != null) {
-			this.bufferedThresholdImage.close();
-			this.bufferedThresholdImage = null;
-		}
-		if (this.curveGradientUp != null) {
-			this.curveGradientUp.close();
-			this.curveGradientUp = null;
-		}
-		if (this.curveGradientDown != null) {
-			this.curveGradientDown.close();
-			this.curveGradientDown = null;
-		}
-		if (this.curveGradientUpHighlighted != null) {
-			this.curveGradientUpHighlighted.close();
-			this.curveGradientUpHighlighted = null;
-		}
-		if (this.curveGradientDownHighlighted != null) {
-			this.curveGradientDownHighlighted.close();
-			this.curveGradientDownHighlighted = null;
-		}
-		if (this.buttonPlusOff != null) {
-			this.buttonPlusOff.close();
-			this.buttonPlusOff = null;
-		}
-		if (this.buttonPlusOn != null) {
-			this.buttonPlusOn.close();
-			this.buttonPlusOn = null;
-		}
-		if (this.buttonMinusOff != null) {
-			this.buttonMinusOff.close();
-			this.buttonMinusOff = null;
-		}
-		if (this.buttonMinusOn != null) {
-			this.buttonMinusOn.close();
-			this.buttonMinusOn = null;
+	private static @Nullable ResourceImage release(@Nullable ResourceImage image) {
+		if (image != null) {
+			ResourceCache.getInstance().release(image);
 		}
+		return null;
+	}
+
+	@Override
+	protected void onHidden() {
+		LayerCache.getInstance().invalidate(THRESHOLD_LAYER_KEY);
 		super.onHidden();
 	}
 }
@@ -10,10 +10,13 @@ import static com.microej.demo.smart_thermostat.NavigationDesktop.scale;
 
 import java.util.logging.Logger;
 
+import com.microej.demo.smart_thermostat.common.Context;
 import com.microej.demo.smart_thermostat.common.FlushVisualizer;
+import com.microej.demo.smart_thermostat.common.Layer;
+import com.microej.demo.smart_thermostat.common.LayerCache;
 import com.microej.demo.smart_thermostat.style.Fonts;
+import com.microej.demo.smart_thermostat.style.ThermoColors;
 
-import ej.annotation.Nullable;
 import ej.bon.XMath;
 import ej.microui.display.*;
 import ej.microvg.VectorFont;
@@ -30,13 +33,14 @@ public class DateWidget extends Widget {
 	private static final int POWERED_BY_MARGIN_TOP = scale(15);
 	private static final int MARGIN_RIGHT = scale(40);
 	private static final int POWERED_BY_FONT_SIZE = scale(24);
-	private static final int DATE_HEIGHT = scale(45);
+	private static final String LAYER_KEY = "date"; //$NON-NLS-1$
 
 	private final int poweredXOffsetFromMiddle;
-	private @Nullable BufferedImage dateBufferedImage;
 
-	private final int halfWidth;
-	private boolean dirty = true;
+	private final int textWidth;
+	private final int textHeight;
+
+	private int layerBackgroundColor;
 
 	/**
 	 * Creates the DateWidget.
@@ -44,12 +48,12 @@ public class DateWidget extends Widget {
 	public DateWidget() {
 		super(true);
 		Display display = Display.getDisplay();
-		int width = display.getWidth();
-		this.halfWidth = width / 2;
+		int halfWidth = display.getWidth() / 2;
 
 		VectorFont font = Fonts.getBarlowLightItalic();
-		this.poweredXOffsetFromMiddle = this.halfWidth
-				- (int) XMath.ceil(font.measureStringWidth(POWERED_BY, POWERED_BY_FONT_SIZE));
+		this.textWidth = (int) XMath.ceil(font.measureStringWidth(POWERED_BY, POWERED_BY_FONT_SIZE));
+		this.textHeight = (int) XMath.ceil(font.getHeight(POWERED_BY_FONT_SIZE));
+		this.poweredXOffsetFromMiddle = halfWidth - this.textWidth;
 	}
 
 	@Override
@@ -59,44 +63,25 @@ public class DateWidget extends Widget {
 
 	@Override
 	protected void renderContent(GraphicsContext g, int contentWidth, int contentHeight) {
-		if (this.dirty || this.dateBufferedImage == null) {
-			if (this.dateBufferedImage == null) {
-				this.dateBufferedImage = new BufferedImage(this.halfWidth, DATE_HEIGHT);
-			}
+		// the text is displayed over the plain background of the page: draw it again when the page changes
+		int backgroundColor = Context.INSTANCE.getCurrentState() == Context.State.INSIDE ? ThermoColors.BG_INSIDE
+				: ThermoColors.BG_OUTSIDE;
+		Layer layer = LayerCache.getInstance().getLayer(LAYER_KEY, this.textWidth, this.textHeight);
+		if (!layer.isValid() || backgroundColor != this.layerBackgroundColor) {
 			LOGGER.finest("drawing unbuffered date image");
-			g.setColor(Colors.WHITE);
-
-			FlushVisualizer.drawVGArea(g, 0, 0, contentWidth, contentHeight);
-			VectorGraphicsPainter.drawString(g, POWERED_BY, Fonts.getBarlowLightItalic(), POWERED_BY_FONT_SIZE,
-					this.poweredXOffsetFromMiddle - (float) MARGIN_RIGHT, POWERED_BY_MARGIN_TOP);
-
-			takeDateScreenshot(this.dateBufferedImage);
-			this.dirty = false;
-		} else {
-			Painter.drawImage(g, this.dateBufferedImage, 0, 0);
-		}
-	}
-
-	private void takeDateScreenshot(BufferedImage buffImage) {
-		// Use screenshot context only
-		GraphicsContext buffImageGc = buffImage.getGraphicsContext();
-		buffImageGc.reset();
-		/*
-		 * Getting the style and rendering the background is not needed for now.
-		 */
-		// Fill screenshot context with current state.
-		Painter.drawDisplayRegion(buffImageGc, this.halfWidth, POWERED_BY_MARGIN_TOP, this.halfWidth, DATE_HEIGHT, 0,
-				0);
-	}
-
-	@Override
-	protected void onHidden() {
-		super.onHidden();
-		if (this.dateBufferedImage != null) {
-			this.dateBufferedImage.close();
-			this.dateBufferedImage = null;
+			GraphicsContext layerGc = layer.getImage().getGraphicsContext();
+			layerGc.reset();
+			layerGc.setColor(backgroundColor);
+			this.layerBackgroundColor = backgroundColor;
+			Painter.fillRectangle(layerGc, 0, 0, this.textWidth, this.textHeight);
+
+			layerGc.setColor(Colors.WHITE);
+			FlushVisualizer.drawVGArea(layerGc, 0, 0, this.textWidth, this.textHeight);
+			VectorGraphicsPainter.drawString(layerGc, POWERED_BY, Fonts.getBarlowLightItalic(), POWERED_BY_FONT_SIZE,
+					0, 0);
+			layer.validate();
 		}
-		this.dirty = true;
+		Painter.drawImage(g, layer.getImage(), this.poweredXOffsetFromMiddle - MARGIN_RIGHT, POWERED_BY_MARGIN_TOP);
 	}
 
 }
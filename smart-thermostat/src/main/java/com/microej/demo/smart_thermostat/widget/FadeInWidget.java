@@ -6,16 +6,20 @@
  */
 package com.microej.demo.smart_thermostat.widget;
 
+import com.microej.demo.smart_thermostat.common.Activatable;
+import com.microej.demo.smart_thermostat.common.FrameClock;
+import com.microej.demo.smart_thermostat.common.LookupTableFunction;
+import com.microej.demo.smart_thermostat.common.QualityGovernor;
+
 import ej.bon.Util;
 import ej.motion.Motion;
-import ej.motion.sine.SineEaseInFunction;
 import ej.mwt.Widget;
 import ej.mwt.animation.Animation;
 
 /**
- * A widget that starts an animation when shown and providing an alpha value to handle fade in.
+ * A widget that starts an animation when activated and providing an alpha value to handle fade in.
  */
-public abstract class FadeInWidget extends Widget {
+public abstract class FadeInWidget extends Widget implements Activatable {
 	protected static final int MAX_ALPHA = 255;
 	private static final long DEFAULT_ANIMATION_DURATION = 300;
 	private final Motion alphaMotion;
@@ -23,6 +27,7 @@ public abstract class FadeInWidget extends Widget {
 	private final Animation fadeInAnimation;
 	private long animationStartTime;
 	private long animationElapsedTime;
+	private int renderedAlpha;
 
 	/**
 	 * Creates a FadeInWidget.
@@ -71,15 +76,21 @@ public abstract class FadeInWidget extends Widget {
 	public FadeInWidget(long animationDuration, boolean enabled) {
 		super(enabled);
 		this.animationDuration = animationDuration;
-		this.alphaMotion = new Motion(SineEaseInFunction.INSTANCE, 0, MAX_ALPHA, animationDuration);
+		this.alphaMotion = new Motion(LookupTableFunction.SINE_EASE_IN, 0, MAX_ALPHA, animationDuration);
 
 		this.fadeInAnimation = new Animation() {
 			@Override
 			public boolean tick(long platformTimeMillis) {
 				long elapsedTime = platformTimeMillis - FadeInWidget.this.animationStartTime;
 				FadeInWidget.this.animationElapsedTime = elapsedTime;
-				requestRender();
-				if (elapsedTime >= FadeInWidget.this.animationDuration) {
+				boolean done = elapsedTime >= FadeInWidget.this.animationDuration;
+				// with coarse fade steps, the frames which would render the same alpha are skipped
+				int alpha = getAlpha(elapsedTime);
+				if (alpha != FadeInWidget.this.renderedAlpha || done) {
+					FadeInWidget.this.renderedAlpha = alpha;
+					FrameClock.INSTANCE.requestRender(FadeInWidget.this);
+				}
+				if (done) {
 					onFadeInDone();
 					return false;
 				}
@@ -120,25 +131,27 @@ public abstract class FadeInWidget extends Widget {
 	}
 
 	/**
-	 * Gets the alpha value for the given elapsed time.
+	 * Gets the alpha value for the given elapsed time, rounded to the fade steps of the current
+	 * {@link QualityGovernor} tier.
 	 *
 	 * @param elapsedTime
 	 *            the elapsed time to get the alpha value for.
 	 * @return the alpha value for the given time.
 	 */
 	protected int getAlpha(long elapsedTime) {
-		return this.alphaMotion.getValue(elapsedTime);
+		return QualityGovernor.INSTANCE.roundAlpha(this.alphaMotion.getValue(elapsedTime));
 	}
 
 	@Override
-	protected void onShown() {
+	public void onActivated() {
 		this.animationElapsedTime = 0;
+		this.renderedAlpha = -1;
 		this.animationStartTime = Util.platformTimeMillis();
-		getDesktop().getAnimator().startAnimation(this.fadeInAnimation);
+		FrameClock.INSTANCE.start(this.fadeInAnimation);
 	}
 
 	@Override
-	protected void onHidden() {
-		getDesktop().getAnimator().stopAnimation(this.fadeInAnimation);
+	public void onDeactivated() {
+		FrameClock.INSTANCE.stop(this.fadeInAnimation);
 	}
 }
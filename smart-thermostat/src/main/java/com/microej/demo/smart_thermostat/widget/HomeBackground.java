@@ -0,0 +1,95 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.widget;
+
+import static com.microej.demo.smart_thermostat.NavigationDesktop.LOW_RESOLUTION;
+import static com.microej.demo.smart_thermostat.NavigationDesktop.SCALE;
+
+import java.util.logging.Logger;
+
+import com.microej.demo.smart_thermostat.common.DrawCounter;
+import com.microej.demo.smart_thermostat.common.FlushVisualizer;
+import com.microej.demo.smart_thermostat.common.Layer;
+import com.microej.demo.smart_thermostat.common.LayerCache;
+import com.microej.demo.smart_thermostat.style.ThermoColors;
+import com.microej.demo.smart_thermostat.style.VectorImages;
+
+import ej.microui.display.Display;
+import ej.microui.display.GraphicsContext;
+import ej.microui.display.Painter;
+import ej.microvg.Matrix;
+import ej.microvg.VectorGraphicsPainter;
+import ej.microvg.VectorImage;
+import ej.mwt.Widget;
+import ej.mwt.util.Size;
+
+/**
+ * Static background of the home page above the parallax: the split sky colors of {@link SkyColor} and the part of the
+ * {@link StaticOverlay} covering them, composited once in a layer.
+ * <p>
+ * The layer is drawn again only when the {@link LayerCache} has evicted it. The part of the static overlay covering the
+ * parallax is still drawn over the parallax on each frame by a {@link StaticOverlay} laid out on the parallax.
+ * </p>
+ */
+public class HomeBackground extends Widget {
+
+	private static final Logger LOGGER = Logger.getLogger(HomeBackground.class.getName());
+	private static final String LAYER_KEY = "home.background"; //$NON-NLS-1$
+
+	private final int displayWidth;
+	private final int displayHalfWidth;
+	private final int staticBackgroundsHeight;
+	private final VectorImage staticOverlayImage;
+	private final Matrix overlayMatrix;
+
+	/**
+	 * Creates the home background.
+	 */
+	public HomeBackground() {
+		Display display = Display.getDisplay();
+		this.displayWidth = display.getWidth();
+		this.displayHalfWidth = this.displayWidth / 2;
+		this.staticBackgroundsHeight = display.getHeight() - SkyColor.PARALLAX_HEIGHT;
+		this.staticOverlayImage = VectorImage.getImage(VectorImages.STATIC_HOME_OVERLAY);
+
+		this.overlayMatrix = new Matrix();
+		if (!LOW_RESOLUTION) {
+			this.overlayMatrix.setScale(SCALE, StaticOverlay.STATIC_OVERLAY_SCALE_Y);
+		}
+	}
+
+	@Override
+	protected void computeContentOptimalSize(Size size) {
+		size.setSize(this.displayWidth, this.staticBackgroundsHeight);
+	}
+
+	@Override
+	protected void renderContent(GraphicsContext g, int contentWidth, int contentHeight) {
+		int width = this.displayWidth;
+		int height = this.staticBackgroundsHeight;
+		DrawCounter counter = DrawCounter.INSTANCE;
+		Layer layer = LayerCache.getInstance().getLayer(LAYER_KEY, width, height);
+		if (!layer.isValid()) {
+			LOGGER.finest("drawing home background layer"); //$NON-NLS-1$
+			GraphicsContext layerGc = layer.getImage().getGraphicsContext();
+			layerGc.reset();
+			int halfWidth = this.displayHalfWidth;
+			layerGc.setColor(ThermoColors.BG_INSIDE);
+			Painter.fillRectangle(layerGc, 0, 0, halfWidth, height);
+			layerGc.setColor(ThermoColors.BG_OUTSIDE);
+			Painter.fillRectangle(layerGc, halfWidth, 0, width - halfWidth, height);
+			FlushVisualizer.drawVGArea(layerGc, 0, 0, width, height);
+			VectorGraphicsPainter.drawImage(layerGc, this.staticOverlayImage, this.overlayMatrix);
+			counter.countFill();
+			counter.countFill();
+			counter.countVectorImage();
+			layer.validate();
+		}
+		Painter.drawImage(g, layer.getImage(), 0, 0);
+		counter.countImage();
+	}
+}
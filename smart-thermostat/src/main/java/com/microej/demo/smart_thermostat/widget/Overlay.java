@@ -10,18 +10,23 @@ import static com.microej.demo.smart_thermostat.NavigationDesktop.LOW_RESOLUTION
 import static com.microej.demo.smart_thermostat.NavigationDesktop.SCALE;
 
 import com.microej.demo.smart_thermostat.common.AnimationValue;
+import com.microej.demo.smart_thermostat.common.Context;
 import com.microej.demo.smart_thermostat.common.FlushVisualizer;
+import com.microej.demo.smart_thermostat.common.KeyframeCache;
 import com.microej.demo.smart_thermostat.style.VectorImages;
 
+import ej.microui.display.Display;
 import ej.microui.display.GraphicsContext;
 import ej.microvg.Matrix;
-import ej.microvg.VectorGraphicsPainter;
 import ej.microvg.VectorImage;
 import ej.mwt.Widget;
 import ej.mwt.util.Size;
 
 /**
  * Overlay widget which displays an animated overlay vector image.
+ * <p>
+ * During the transitions, the overlay is drawn from its rasterized keyframes, see {@link KeyframeCache}.
+ * </p>
  */
 public class Overlay extends Widget {
 
@@ -30,6 +35,7 @@ public class Overlay extends Widget {
 	private final VectorImage imageOverlay;
 	private final Matrix overlayMatrix;
 	private final AnimationValue animationValue;
+	private final KeyframeCache keyframes;
 
 	/**
 	 * Creates the animated overlay.
@@ -45,6 +51,16 @@ public class Overlay extends Widget {
 		if (!LOW_RESOLUTION) {
 			this.overlayMatrix.setScale(SCALE, OVERLAY_SCALE_Y);
 		}
+		Display display = Display.getDisplay();
+		this.keyframes = new KeyframeCache(this.imageOverlay, this.overlayMatrix, display.getWidth(),
+				display.getHeight());
+	}
+
+	/**
+	 * Logs the statistics of the keyframes, at the {@code FINE} level.
+	 */
+	public void logKeyframeStatistics() {
+		this.keyframes.logStatistics();
 	}
 
 	@Override
@@ -55,7 +71,7 @@ public class Overlay extends Widget {
 	@Override
 	protected void renderContent(GraphicsContext g, int contentWidth, int contentHeight) {
 		FlushVisualizer.drawVGArea(g, 0, 0, contentWidth, contentHeight);
-		VectorGraphicsPainter.drawAnimatedImage(g, this.imageOverlay, this.overlayMatrix,
-				this.animationValue.getValue());
+		// the rest positions are always drawn from the vector image
+		this.keyframes.draw(g, this.animationValue.getValue(), Context.INSTANCE.inTransition());
 	}
 }
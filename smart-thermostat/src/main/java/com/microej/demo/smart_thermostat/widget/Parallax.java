@@ -9,6 +9,7 @@ package com.microej.demo.smart_thermostat.widget;
 import static com.microej.demo.smart_thermostat.NavigationDesktop.scale;
 
 import com.microej.demo.smart_thermostat.common.AnimationValue;
+import com.microej.demo.smart_thermostat.common.DrawCounter;
 import com.microej.demo.smart_thermostat.style.Images;
 
 import ej.microui.display.Display;
@@ -121,5 +122,7 @@ public class Parallax extends Widget {
 		Painter.drawImage(g, this.parallaxOutsideImage, this.parallaxOutsideImageX + PARALLAX_OUTSIDE_IMAGE_X_OFFSET,
 				0);
 		g.resetClip();
+		DrawCounter.INSTANCE.countImage();
+		DrawCounter.INSTANCE.countImage();
 	}
 }
@@ -11,6 +11,8 @@ import static com.microej.demo.smart_thermostat.NavigationDesktop.SCALE;
 import static com.microej.demo.smart_thermostat.NavigationDesktop.scale;
 
 import com.microej.demo.smart_thermostat.common.FlushVisualizer;
+import com.microej.demo.smart_thermostat.common.FrameClock;
+import com.microej.demo.smart_thermostat.common.ResourceCache;
 import com.microej.demo.smart_thermostat.style.Fonts;
 import com.microej.demo.smart_thermostat.common.SliderListener;
 
@@ -119,20 +121,27 @@ public abstract class SecondaryInfo extends FadeInWidget implements SliderListen
 	protected abstract String getValueString();
 
 	@Override
-	protected void onShown() {
-		this.animatedIcon = ResourceVectorImage.loadImage(this.animatedIconPath);
-		super.onShown();
+	public void onActivated() {
+		this.animatedIcon = ResourceCache.getInstance().getVectorImage(this.animatedIconPath);
+		super.onActivated();
 	}
 
 	@Override
-	protected void onHidden() {
+	public void onDeactivated() {
 		stopAnimationNow();
-		super.onHidden();
+		super.onDeactivated();
 
-		if (this.animatedIcon != null) {
-			this.animatedIcon.close();
+		ResourceVectorImage animatedIcon = this.animatedIcon;
+		if (animatedIcon != null) {
+			ResourceCache.getInstance().release(animatedIcon);
 			this.animatedIcon = null;
 		}
+	}
+
+	@Override
+	protected void onHidden() {
+		super.onHidden();
+
 		if (this.vBackground != null) {
 			this.vBackground.close();
 			this.vBackground = null;
@@ -143,7 +152,7 @@ public abstract class SecondaryInfo extends FadeInWidget implements SliderListen
 		this.animationTime = ANIMATION_ON_START;
 		this.animationOff = false;
 		this.startTime = Util.platformTimeMillis();
-		getDesktop().getAnimator().startAnimation(this.iconAnimation);
+		FrameClock.INSTANCE.start(this.iconAnimation);
 	}
 
 	protected void stopAnimation() {
@@ -151,7 +160,7 @@ public abstract class SecondaryInfo extends FadeInWidget implements SliderListen
 	}
 
 	protected void stopAnimationNow() {
-		getDesktop().getAnimator().stopAnimation(this.iconAnimation);
+		FrameClock.INSTANCE.stop(this.iconAnimation);
 	}
 
 	private boolean doAnimationTick(long platformTimeMillis) {
@@ -161,7 +170,7 @@ public abstract class SecondaryInfo extends FadeInWidget implements SliderListen
 			elapsed = ANIMATION_LOOP_START;
 		}
 		this.animationTime = elapsed;
-		requestRender();
+		FrameClock.INSTANCE.requestRender(this);
 		return elapsed < ANIMATION_OFF_END;
 	}
 
@@ -231,7 +240,10 @@ public abstract class SecondaryInfo extends FadeInWidget implements SliderListen
 
 	private void renderAnimatedImage(GraphicsContext g, int contentHeight) {
 		// Render big image left
-		ResourceVectorImage icon = ResourceVectorImage.loadImage(this.animatedIconPath);
+		ResourceVectorImage icon = this.animatedIcon;
+		if (icon == null) {
+			return;
+		}
 
 		int iconPosY = Alignment.computeTopY(scale((int) icon.getHeight()), 0, contentHeight, Alignment.VCENTER);
 		int iconPosX = Alignment.computeLeftX(scale((int) icon.getWidth()), 0, CONTENT_LEFT_OFFSET, Alignment.HCENTER);
@@ -9,6 +9,9 @@ package com.microej.demo.smart_thermostat.widget;
 import static com.microej.demo.smart_thermostat.NavigationDesktop.LOW_RESOLUTION;
 import static com.microej.demo.smart_thermostat.NavigationDesktop.scale;
 
+import com.microej.demo.smart_thermostat.common.FrameClock;
+import com.microej.demo.smart_thermostat.common.ResourceCache;
+import com.microej.demo.smart_thermostat.model.SettingsJournal;
 import com.microej.demo.smart_thermostat.style.Images;
 import com.microej.demo.smart_thermostat.style.VectorImages;
 
@@ -50,14 +53,15 @@ public class SecondaryInfoFan extends SecondaryInfo implements Animation {
 	 */
 	public SecondaryInfoFan() {
 		super(new String[] { "Fan" }, VectorImages.FAN, VectorImages.FAN_BIG, true);
-		this.fanState = false;
+		this.fanState = SettingsJournal.getInstance().isFanOn();
 	}
 
 	@Override
-	protected void onShown() {
-		this.toggleBackground = Images.getResourceImage(Images.TOGGLE_BACKGROUND, ResourceImage.OutputFormat.A8);
-		this.toggleBullet = Images.getResourceImage(Images.TOGGLE_BULLET, ResourceImage.OutputFormat.ARGB4444);
-		super.onShown();
+	public void onActivated() {
+		ResourceCache resourceCache = ResourceCache.getInstance();
+		this.toggleBackground = resourceCache.getImage(Images.TOGGLE_BACKGROUND, ResourceImage.OutputFormat.A8);
+		this.toggleBullet = resourceCache.getImage(Images.TOGGLE_BULLET, ResourceImage.OutputFormat.ARGB4444);
+		super.onActivated();
 	}
 
 	@Override
@@ -69,15 +73,18 @@ public class SecondaryInfoFan extends SecondaryInfo implements Animation {
 	}
 
 	@Override
-	protected void onHidden() {
-		super.onHidden();
-		getDesktop().getAnimator().stopAnimation(this);
-		if (this.toggleBackground != null) {
-			this.toggleBackground.close();
+	public void onDeactivated() {
+		super.onDeactivated();
+		FrameClock.INSTANCE.stop(this);
+
+		ResourceImage toggleBackground = this.toggleBackground;
+		if (toggleBackground != null) {
+			ResourceCache.getInstance().release(toggleBackground);
 			this.toggleBackground = null;
 		}
-		if (this.toggleBullet != null) {
-			this.toggleBullet.close();
+		ResourceImage toggleBullet = this.toggleBullet;
+		if (toggleBullet != null) {
+			ResourceCache.getInstance().release(toggleBullet);
 			this.toggleBullet = null;
 		}
 	}
@@ -109,13 +116,14 @@ public class SecondaryInfoFan extends SecondaryInfo implements Animation {
 
 	private void onClick() {
 		this.setFanState(!this.fanState);
+		SettingsJournal.getInstance().setFanOn(this.fanState);
 		this.animationEndTime = Util.platformTimeMillis() + TOGGLE_DURATION;
-		getDesktop().getAnimator().startAnimation(this);
+		FrameClock.INSTANCE.start(this);
 	}
 
 	@Override
 	public boolean tick(long platformTimeMillis) {
-		requestRender();
+		FrameClock.INSTANCE.requestRender(this);
 		return platformTimeMillis < this.animationEndTime;
 	}
 
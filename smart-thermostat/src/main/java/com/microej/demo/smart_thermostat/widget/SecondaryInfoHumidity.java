@@ -8,6 +8,7 @@ package com.microej.demo.smart_thermostat.widget;
 
 import static com.microej.demo.smart_thermostat.NavigationDesktop.LOW_RESOLUTION;
 
+import com.microej.demo.smart_thermostat.common.FrameClock;
 import com.microej.demo.smart_thermostat.model.SmartThermostatModel;
 import com.microej.demo.smart_thermostat.model.ThermostatObserver;
 import com.microej.demo.smart_thermostat.style.VectorImages;
@@ -94,7 +95,7 @@ public class SecondaryInfoHumidity extends SecondaryInfo implements ThermostatOb
 
 				// If the animation was not already running we need to start it.
 				if (LOW_RESOLUTION && (force || !oldIsLoop || !super.animationIsFrozen)) {
-					getDesktop().getAnimator().startAnimation(this.humidityAnimation);
+					FrameClock.INSTANCE.start(this.humidityAnimation);
 				}
 			}
 		}
@@ -111,11 +112,11 @@ public class SecondaryInfoHumidity extends SecondaryInfo implements ThermostatOb
 
 		if (this.animationInLoop) {
 			this.animationTime = elapsedTime % HUMIDITY_ANIM_HIGH_HUMIDITY_END;
-			requestRender();
+			FrameClock.INSTANCE.requestRender(this);
 		} else {
 			Motion motion = this.humidityMotion;
 			this.animationTime = motion.getValue(elapsedTime);
-			requestRender();
+			FrameClock.INSTANCE.requestRender(this);
 			if (elapsedTime >= motion.getDuration()) {
 				// If we returned to a high humidity value we need to continue to loop after the end.
 				this.animationInLoop = this.humidityPercent >= HUMIDITY_ANIM_LOOP_BOUND;
@@ -132,8 +133,8 @@ public class SecondaryInfoHumidity extends SecondaryInfo implements ThermostatOb
 	}
 
 	@Override
-	protected void onShown() {
-		super.onShown();
+	public void onActivated() {
+		super.onActivated();
 		// Initially set percentage to have correct string value.
 		this.humidityPercent = SmartThermostatModel.getInstance().getHumidity();
 	}
@@ -148,11 +149,11 @@ public class SecondaryInfoHumidity extends SecondaryInfo implements ThermostatOb
 	}
 
 	@Override
-	protected void onHidden() {
+	public void onDeactivated() {
 		SmartThermostatModel model = SmartThermostatModel.getInstance();
 		model.removeObserver(this, model.getHumidityType());
-		getDesktop().getAnimator().stopAnimation(this.humidityAnimation);
-		super.onHidden();
+		FrameClock.INSTANCE.stop(this.humidityAnimation);
+		super.onDeactivated();
 	}
 
 	@Override
@@ -165,7 +166,7 @@ public class SecondaryInfoHumidity extends SecondaryInfo implements ThermostatOb
 	@Override
 	public void onSliderDragged() {
 		if (!super.animationIsFrozen) {
-			getDesktop().getAnimator().stopAnimation(this.humidityAnimation);
+			FrameClock.INSTANCE.stop(this.humidityAnimation);
 			super.animationIsFrozen = true;
 		}
 	}
@@ -173,7 +174,7 @@ public class SecondaryInfoHumidity extends SecondaryInfo implements ThermostatOb
 	@Override
 	public void onSliderReleased() {
 		if (LOW_RESOLUTION) {
-			getDesktop().getAnimator().startAnimation(this.humidityAnimation);
+			FrameClock.INSTANCE.start(this.humidityAnimation);
 		}
 		super.animationIsFrozen = false;
 	}
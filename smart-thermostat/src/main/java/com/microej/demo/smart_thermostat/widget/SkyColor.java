@@ -8,6 +8,7 @@ package com.microej.demo.smart_thermostat.widget;
 
 import static com.microej.demo.smart_thermostat.NavigationDesktop.LOW_RESOLUTION;
 
+import com.microej.demo.smart_thermostat.common.DrawCounter;
 import com.microej.demo.smart_thermostat.style.ThermoColors;
 
 import ej.microui.display.Display;
@@ -21,7 +22,8 @@ import ej.mwt.util.Size;
  */
 public class SkyColor extends Widget {
 
-	private static final int PARALLAX_HEIGHT = LOW_RESOLUTION ? 460 : 690;
+	/** Height of the parallax, below the static backgrounds of the home page. */
+	static final int PARALLAX_HEIGHT = LOW_RESOLUTION ? 460 : 690;
 
 	private final int displayWidth;
 	private final int displayHalfWidth;
@@ -52,5 +54,7 @@ public class SkyColor extends Widget {
 
 		g.setColor(ThermoColors.BG_OUTSIDE);
 		Painter.fillRectangle(g, halfWidth, 0, halfWidth, staticBGHeight);
+		DrawCounter.INSTANCE.countFill();
+		DrawCounter.INSTANCE.countFill();
 	}
 }
@@ -0,0 +1,118 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.widget;
+
+import com.microej.demo.smart_thermostat.common.Context;
+import com.microej.demo.smart_thermostat.common.Progress;
+import com.microej.demo.smart_thermostat.common.QualityGovernor;
+import com.microej.demo.smart_thermostat.style.ThermoColors;
+
+import ej.annotation.Nullable;
+import ej.drawing.TransformPainter;
+import ej.microui.display.BufferedImage;
+import ej.microui.display.Display;
+import ej.microui.display.GraphicsContext;
+import ej.microui.display.Painter;
+import ej.mwt.Widget;
+import ej.mwt.util.Size;
+
+/**
+ * Transition from home to in or outside and back to home, animating two snapshots rendered at the start of the
+ * navigation instead of the widgets themselves.
+ * <p>
+ * The home snapshot slides horizontally, while the page snapshot grows from the bottom corner of the display until it
+ * covers it, following the same progress as {@link Transition}. The cost of a frame does not depend on the content of
+ * the pages.
+ * </p>
+ */
+public class SnapshotTransition extends Widget {
+
+	private final int displayWidth;
+	private final int displayHeight;
+	private final int displayHalfWidth;
+	private final Progress transitionProgress;
+
+	private @Nullable BufferedImage homeSnapshot;
+	private @Nullable BufferedImage pageSnapshot;
+
+	/**
+	 * Creates the snapshot transition.
+	 *
+	 * @param transitionProgress
+	 *            to communicate the transition progress.
+	 */
+	public SnapshotTransition(Progress transitionProgress) {
+		Display display = Display.getDisplay();
+		this.displayWidth = display.getWidth();
+		this.displayHeight = display.getHeight();
+		this.displayHalfWidth = this.displayWidth / 2;
+		this.transitionProgress = transitionProgress;
+	}
+
+	/**
+	 * Sets the snapshots to animate. The previous snapshots are closed.
+	 *
+	 * @param homeSnapshot
+	 *            the snapshot of the home page, of the size of the display.
+	 * @param pageSnapshot
+	 *            the snapshot of the inside or outside page, of the size of the display.
+	 */
+	public void setSnapshots(BufferedImage homeSnapshot, BufferedImage pageSnapshot) {
+		releaseSnapshots();
+		this.homeSnapshot = homeSnapshot;
+		this.pageSnapshot = pageSnapshot;
+	}
+
+	/**
+	 * Closes the snapshots.
+	 */
+	public void releaseSnapshots() {
+		BufferedImage homeSnapshot = this.homeSnapshot;
+		if (homeSnapshot != null) {
+			homeSnapshot.close();
+			this.homeSnapshot = null;
+		}
+		BufferedImage pageSnapshot = this.pageSnapshot;
+		if (pageSnapshot != null) {
+			pageSnapshot.close();
+			this.pageSnapshot = null;
+		}
+	}
+
+	@Override
+	protected void computeContentOptimalSize(Size size) {
+		size.setSize(this.displayWidth, this.displayHeight);
+	}
+
+	@Override
+	protected void renderContent(GraphicsContext g, int contentWidth, int contentHeight) {
+		BufferedImage homeSnapshot = this.homeSnapshot;
+		BufferedImage pageSnapshot = this.pageSnapshot;
+		if (homeSnapshot == null || pageSnapshot == null) {
+			return;
+		}
+		int width = this.displayWidth;
+		int height = this.displayHeight;
+
+		int transitionWidth = Transition.clampTransitionWidth(this.transitionProgress, this.displayHalfWidth);
+		boolean inside = Context.INSTANCE.isComingToOrGoingFromInside();
+		int currentSize = inside ? this.displayHalfWidth + transitionWidth : this.displayHalfWidth - transitionWidth;
+		float scaleFactor = currentSize / (float) width;
+		int pageX = inside ? 0 : width - currentSize;
+		int pageY = height - (int) (height * scaleFactor);
+
+		Painter.drawImage(g, homeSnapshot, transitionWidth, 0);
+		// the background of the page fills the area above the growing snapshot
+		g.setColor(inside ? ThermoColors.BG_INSIDE : ThermoColors.BG_OUTSIDE);
+		Painter.fillRectangle(g, pageX, 0, currentSize, pageY);
+		if (QualityGovernor.INSTANCE.isBilinearScaling()) {
+			TransformPainter.drawScaledImageBilinear(g, pageSnapshot, pageX, pageY, scaleFactor, scaleFactor);
+		} else {
+			TransformPainter.drawScaledImageNearestNeighbor(g, pageSnapshot, pageX, pageY, scaleFactor, scaleFactor);
+		}
+	}
+}
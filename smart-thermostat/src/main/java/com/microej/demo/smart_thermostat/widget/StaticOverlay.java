@@ -9,6 +9,7 @@ package com.microej.demo.smart_thermostat.widget;
 import static com.microej.demo.smart_thermostat.NavigationDesktop.LOW_RESOLUTION;
 import static com.microej.demo.smart_thermostat.NavigationDesktop.SCALE;
 
+import com.microej.demo.smart_thermostat.common.DrawCounter;
 import com.microej.demo.smart_thermostat.common.FlushVisualizer;
 import com.microej.demo.smart_thermostat.style.VectorImages;
 
@@ -22,10 +23,15 @@ import ej.mwt.util.Size;
 
 /**
  * Static Overlay vector image used only while showing home page.
+ * <p>
+ * The image is positioned relatively to the display: the widget can be laid out on a part of the display only, to draw
+ * the part of the image covering it.
+ * </p>
  */
 public class StaticOverlay extends Widget {
 
-	private static final float STATIC_OVERLAY_SCALE_Y = 1.4296f;
+	/** Vertical scale of the static overlay image on the high resolution displays. */
+	static final float STATIC_OVERLAY_SCALE_Y = 1.4296f;
 
 	private final Matrix overlayMatrix;
 	private final VectorImage staticOverlayImage;
@@ -37,8 +43,14 @@ public class StaticOverlay extends Widget {
 		this.staticOverlayImage = getStaticOverlay(isHome);
 
 		this.overlayMatrix = new Matrix();
+	}
+
+	@Override
+	protected void onLaidOut() {
+		Matrix matrix = this.overlayMatrix;
+		matrix.setTranslate(0, -getY());
 		if (!LOW_RESOLUTION) {
-			this.overlayMatrix.setScale(SCALE, STATIC_OVERLAY_SCALE_Y);
+			matrix.preScale(SCALE, STATIC_OVERLAY_SCALE_Y);
 		}
 	}
 
@@ -51,6 +63,7 @@ public class StaticOverlay extends Widget {
 	protected void renderContent(GraphicsContext g, int contentWidth, int contentHeight) {
 		FlushVisualizer.drawVGArea(g, 0, 0, contentWidth, contentHeight);
 		VectorGraphicsPainter.drawImage(g, this.staticOverlayImage, this.overlayMatrix);
+		DrawCounter.INSTANCE.countVectorImage();
 	}
 
 	private VectorImage getStaticOverlay(boolean isHome) {
@@ -8,29 +8,29 @@ package com.microej.demo.smart_thermostat.widget;
 
 import static com.microej.demo.smart_thermostat.NavigationDesktop.scale;
 
-import com.microej.demo.smart_thermostat.MainCanvas;
+import com.microej.demo.smart_thermostat.common.Activatable;
+import com.microej.demo.smart_thermostat.common.FrameClock;
+import com.microej.demo.smart_thermostat.common.Layer;
+import com.microej.demo.smart_thermostat.common.LayerCache;
 import com.microej.demo.smart_thermostat.model.SmartThermostatModel;
 import com.microej.demo.smart_thermostat.model.ThermostatObserver;
 import com.microej.demo.smart_thermostat.style.ThermoColors;
 import com.microej.demo.smart_thermostat.style.Fonts;
 import com.microej.demo.smart_thermostat.style.VectorImages;
 
-import ej.annotation.Nullable;
-import ej.bon.Timer;
-import ej.bon.TimerTask;
-import ej.microui.display.BufferedImage;
+import ej.bon.Util;
 import ej.microui.display.GraphicsContext;
 import ej.microui.display.Painter;
 import ej.microvg.VectorGraphicsPainter;
 import ej.microvg.VectorImage;
 import ej.mwt.Widget;
+import ej.mwt.animation.Animation;
 import ej.mwt.util.Size;
-import ej.service.ServiceFactory;
 
 /**
  * Popup displaying an external change of the Temperature Threshold.
  */
-public class TempThresholdPopup extends Widget implements ThermostatObserver {
+public class TempThresholdPopup extends Widget implements ThermostatObserver, Activatable {
 	private static final String TEMP_SIGN = "°F";
 	private static final int ICON_X = scale(246);
 	private static final int ICON_Y = scale(36);
@@ -40,11 +40,10 @@ public class TempThresholdPopup extends Widget implements ThermostatObserver {
 	private static final int SIGN_X = scale(178);
 	private static final int SIGN_Y = scale(36);
 	private static final int SIGN_SIZE = scale(16);
-	private static final int TICK_TIME = 50;
 	private static final long DELAY = 5000;
 	private static final int POPUP_IN_END = 360;
 	private static final int POPUP_OUT_END = 600;
-	private static final int DIRTY_TICKS_COUNT = 5;
+	private static final String LAYER_KEY = "popup"; //$NON-NLS-1$
 	private final VectorImage thresholdPopupImage;
 	private final VectorImage thresholdUpImage;
 	private final VectorImage thresholdDownImage;
@@ -54,12 +53,14 @@ public class TempThresholdPopup extends Widget implements ThermostatObserver {
 	private boolean scheduledAnimateOut;
 	private boolean poppingIn;
 	private boolean thresholdUp;
-	private final BufferedImage bufferedImage;
+	private final int layerWidth;
+	private final int layerHeight;
 	private boolean dirty = true;
-	private int dirtyTicks = 0;
 	private boolean parallaxRunning = false;
-
-	private @Nullable TimerTask animateOutTask;
+	private long animateOutTime;
+	private long lastFrameTime;
+	private long pauseTime;
+	private final Animation popupAnimation;
 
 	/**
 	 * Creates the TempThresholdPopup.
@@ -68,8 +69,15 @@ public class TempThresholdPopup extends Widget implements ThermostatObserver {
 		this.thresholdPopupImage = VectorImage.getImage(VectorImages.THRESHOLD_POPUP); // $NON-NLS-1$
 		this.thresholdUpImage = VectorImage.getImage(VectorImages.THRESHOLD_POPUP_UP); // $NON-NLS-1$
 		this.thresholdDownImage = VectorImage.getImage(VectorImages.THRESHOLD_POPUP_DOWN); // $NON-NLS-1$
-		this.bufferedImage = new BufferedImage((int) this.thresholdPopupImage.getWidth(),
-				(int) this.thresholdPopupImage.getHeight());
+		this.layerWidth = (int) this.thresholdPopupImage.getWidth();
+		this.layerHeight = (int) this.thresholdPopupImage.getHeight();
+
+		this.popupAnimation = new Animation() {
+			@Override
+			public boolean tick(long platformTimeMillis) {
+				return onFrame(platformTimeMillis);
+			}
+		};
 	}
 
 	@Override
@@ -87,10 +95,28 @@ public class TempThresholdPopup extends Widget implements ThermostatObserver {
 
 	@Override
 	protected void renderContent(GraphicsContext g, int contentWidth, int contentHeight) {
-		if (!this.dirty) {
-			Painter.drawImage(g, this.bufferedImage, 0, 0);
+		if (!this.scheduledAnimateOut) {
+			// popping in or out: the vector image is animated
+			renderPopup(g);
 			return;
 		}
+
+		// Finished popping up: the content does not change until the popup pops out.
+		Layer layer = LayerCache.getInstance().getLayer(LAYER_KEY, this.layerWidth, this.layerHeight);
+		if (this.dirty || !layer.isValid()) {
+			GraphicsContext layerGc = layer.getImage().getGraphicsContext();
+			layerGc.reset();
+			// the popup is displayed over the sky of the home page
+			layerGc.setColor(ThermoColors.BG_INSIDE);
+			Painter.fillRectangle(layerGc, 0, 0, this.layerWidth, this.layerHeight);
+			renderPopup(layerGc);
+			layer.validate();
+			this.dirty = false;
+		}
+		Painter.drawImage(g, layer.getImage(), 0, 0);
+	}
+
+	private void renderPopup(GraphicsContext g) {
 		VectorGraphicsPainter.drawAnimatedImage(g, this.thresholdPopupImage, 0, 0, this.elapsedTime);
 		if (this.scheduledAnimateOut) {
 			g.setColor(ThermoColors.POPUP_LABELS_PRIMARY);
@@ -99,45 +125,55 @@ public class TempThresholdPopup extends Widget implements ThermostatObserver {
 			VectorGraphicsPainter.drawString(g, TEMP_SIGN, Fonts.getBarlowLightItalic(), SIGN_SIZE, SIGN_X, SIGN_Y);
 			VectorGraphicsPainter.drawAnimatedImage(g,
 					this.thresholdUp ? this.thresholdUpImage : this.thresholdDownImage, ICON_X, ICON_Y, 0);
-			if (this.poppingIn) {
-				this.dirtyTicks++;
-				if (this.dirtyTicks > DIRTY_TICKS_COUNT) {
-					takeScreenshot(this.bufferedImage);
-					this.dirty = false;
-				}
-			}
 		}
 	}
 
-	private void takeScreenshot(BufferedImage buffImage) {
-		// Use screenshot context only
-		GraphicsContext buffImageGc = buffImage.getGraphicsContext();
-		buffImageGc.reset();
-		/*
-		 * Getting the style and rendering the background is not needed for now.
-		 */
-		// Fill screenshot context with current state.
-		Painter.drawDisplayRegion(buffImageGc, MainCanvas.TEMP_THRESHOLD_MARGIN_LEFT,
-				MainCanvas.TEMP_THRESHOLD_MARGIN_TOP, buffImage.getWidth(), buffImage.getHeight(), 0, 0);
+	/**
+	 * Gets whether the popup is currently shown and animated.
+	 *
+	 * @return {@code true}, if the popup is active.
+	 */
+	public boolean isActive() {
+		return this.active;
+	}
+
+	private boolean onFrame(long platformTimeMillis) {
+		if (!this.parallaxRunning) {
+			// the popup does not advance: the animation is started again with the parallax
+			return false;
+		}
+		if (this.scheduledAnimateOut && platformTimeMillis >= this.animateOutTime) {
+			this.poppingIn = false;
+			this.scheduledAnimateOut = false;
+			this.dirty = true;
+		}
+		boolean popupActive = this.active;
+		tick(platformTimeMillis - this.lastFrameTime);
+		this.lastFrameTime = platformTimeMillis;
+		if (popupActive) {
+			// Also render the last frame, to clear the popup when it has just been closed.
+			FrameClock.INSTANCE.requestRender(this);
+		}
+		return this.active;
 	}
 
 	/**
-	 * Continues the animation of the popup.
-	 * <p>
-	 * A tick is {@value TICK_TIME}ms
-	 * </p>
+	 * Continues the animation of the popup by the time elapsed since the previous frame, so that the speed of the
+	 * animation does not depend on the frame rate.
+	 *
+	 * @param frameDuration
+	 *            the time elapsed since the previous frame, in milliseconds.
 	 */
-	public void tick() {
+	private void tick(long frameDuration) {
 		// Only advance pop-up animation, or schedule popping out when parallax has started
 		if (!this.active || !this.parallaxRunning) {
 			return;
 		}
-		this.elapsedTime += TICK_TIME;
+		this.elapsedTime += (int) frameDuration;
 		if (this.poppingIn) {
 			if (this.elapsedTime >= POPUP_IN_END) { // Finished popping up, keeps showing
 				if (!this.scheduledAnimateOut) { // Only schedule once
 					scheduleAnimateOut();
-					this.dirtyTicks = 0;
 				}
 				this.elapsedTime = POPUP_IN_END;
 				this.scheduledAnimateOut = true;
@@ -153,21 +189,20 @@ public class TempThresholdPopup extends Widget implements ThermostatObserver {
 	}
 
 	@Override
-	protected void onShown() {
+	public void onActivated() {
 		this.elapsedTime = 0;
 		this.dirty = true;
-		this.dirtyTicks = 0;
 		SmartThermostatModel model = SmartThermostatModel.getInstance();
 		this.thresholdTemp = model.getTemperatureThreshold();
 		model.addObserver(this, model.getTemperatureThresholdType());
 	}
 
 	@Override
-	protected void onHidden() {
+	public void onDeactivated() {
 		SmartThermostatModel model = SmartThermostatModel.getInstance();
 		model.removeObserver(this, model.getTemperatureThresholdType());
 		this.active = false;
-		stopTimerTask();
+		FrameClock.INSTANCE.stop(this.popupAnimation);
 	}
 
 	@Override
@@ -179,39 +214,35 @@ public class TempThresholdPopup extends Widget implements ThermostatObserver {
 			this.poppingIn = true;
 			this.scheduledAnimateOut = false;
 			this.dirty = true;
+			this.lastFrameTime = Util.platformTimeMillis();
+			if (this.parallaxRunning) {
+				FrameClock.INSTANCE.start(this.popupAnimation);
+			}
 		}
 	}
 
 	private void scheduleAnimateOut() {
-		stopTimerTask();
-		TimerTask task = new TimerTask() {
-			@Override
-			public void run() {
-				TempThresholdPopup.this.poppingIn = false;
-				TempThresholdPopup.this.scheduledAnimateOut = false;
-				TempThresholdPopup.this.dirty = true;
-				TempThresholdPopup.this.dirtyTicks = 0;
-			}
-		};
-		this.animateOutTask = task;
-		ServiceFactory.getService(Timer.class, Timer.class).schedule(task, DELAY);
-	}
-
-	private void stopTimerTask() {
-		TimerTask task = this.animateOutTask;
-		if (task != null) {
-			task.cancel();
-			this.animateOutTask = null;
-		}
+		this.animateOutTime = Util.platformTimeMillis() + DELAY;
 	}
 
 	/**
 	 * Tells the threshold pop-up whether the parallax is running, or not. The pop-up should not start or continue
-	 * advancing, if the parallax is not running.
+	 * advancing, if the parallax is not running: its animation stops until the parallax starts again.
 	 *
 	 * @param running {@code true}, if the parallax is currently running.
 	 */
 	public void parallaxRunning(boolean running) {
+		if (running == this.parallaxRunning) {
+			return;
+		}
 		this.parallaxRunning = running;
+		long now = Util.platformTimeMillis();
+		if (!running) {
+			this.pauseTime = now;
+		} else if (this.active) {
+			// the time spent waiting for the parallax does not advance the popup
+			this.lastFrameTime += now - Math.max(this.pauseTime, this.lastFrameTime);
+			FrameClock.INSTANCE.start(this.popupAnimation);
+		}
 	}
 }
@@ -9,12 +9,12 @@ package com.microej.demo.smart_thermostat.widget;
 import static com.microej.demo.smart_thermostat.NavigationDesktop.LOW_RESOLUTION;
 
 import com.microej.demo.smart_thermostat.common.Context;
+import com.microej.demo.smart_thermostat.common.FixedPoint;
+import com.microej.demo.smart_thermostat.common.MipmapLadder;
 import com.microej.demo.smart_thermostat.common.Progress;
 import com.microej.demo.smart_thermostat.style.Images;
 import com.microej.demo.smart_thermostat.style.ThermoColors;
 
-import ej.bon.XMath;
-import ej.drawing.TransformPainter;
 import ej.microui.display.*;
 import ej.mwt.Widget;
 import ej.mwt.util.Size;
@@ -74,6 +74,8 @@ public class Transition extends Widget {
 	private final ResourceImage scaleInsideImage;
 	private final ResourceImage scaleInsideImageRoundedRectangle;
 	private final ResourceImage scaleOutsideImage;
+	private final MipmapLadder scaleInsideLadder;
+	private final MipmapLadder scaleOutsideLadder;
 	private final ResourceImage parallaxInsideImage;
 	private final ResourceImage topRightInsideImageCorner;
 	private final ResourceImage topLeftInsideImageCorner;
@@ -118,6 +120,8 @@ public class Transition extends Widget {
 		this.parallaxHeight = this.parallaxInsideImage.getHeight();
 		this.maxImageSize = this.scaleInsideImage.getWidth();
 		this.minImageSize = this.parallaxInsideImage.getWidth();
+		this.scaleInsideLadder = new MipmapLadder(this.scaleInsideImage, this.minImageSize);
+		this.scaleOutsideLadder = new MipmapLadder(this.scaleOutsideImage, this.minImageSize);
 	}
 
 	@Override
@@ -139,14 +143,13 @@ public class Transition extends Widget {
 		int offsetParallaxOutsideImgX = parallaxOutsideImgX + Parallax.PARALLAX_OUTSIDE_IMAGE_X_OFFSET;
 		int parallaxInsideImgX = parallax.getInsideImageX();
 
-		int transitionWidth = clampTransitionWidth();
+		int transitionWidth = clampTransitionWidth(this.transitionProgress, halfWidth);
 		int centerX = halfWidth + transitionWidth;
 		Context context = Context.INSTANCE;
 		if (context.isComingToOrGoingFromInside()) {
 			int negativeWidth = transitionWidth - halfWidth;
 			int currentSize = width + negativeWidth;
 			int currentY = height - currentSize;
-			float scaleFactor = currentSize / (float) maxImgSize;
 
 			g.setColor(ThermoColors.BG_OUTSIDE);
 			Painter.fillRectangle(g, halfWidth, 0, centerX, parallaxYPos);
@@ -164,8 +167,7 @@ public class Transition extends Widget {
 				g.setClip(0, currentY, currentSize, currentSize);
 				if (context.inTransition()) {
 					// scale the image until the container doesn't fit the min width
-					TransformPainter.drawScaledImageBilinear(g, this.scaleInsideImage, 0, currentY, scaleFactor,
-							scaleFactor);
+					this.scaleInsideLadder.draw(g, 0, currentY, currentSize);
 				} else {
 					g.setColor(Colors.WHITE);
 					g.resetClip();
@@ -222,7 +224,6 @@ public class Transition extends Widget {
 		} else {
 			int currentSize = width - centerX;
 			int currentY = height - currentSize;
-			float scaleFactor = currentSize / (float) maxImgSize;
 			g.setColor(ThermoColors.BG_INSIDE);
 			Painter.fillRectangle(g, 0, 0, centerX, parallaxYPos);
 			g.setColor(ThermoColors.BG_OUTSIDE);
@@ -240,8 +241,7 @@ public class Transition extends Widget {
 				g.setClip(centerX, currentY, clipSize, clipSize);
 				if (context.inTransition()) {
 					// scale the image until the container doesn't fit the min width
-					TransformPainter.drawScaledImageBilinear(g, this.scaleOutsideImage, centerX, currentY, scaleFactor,
-							scaleFactor);
+					this.scaleOutsideLadder.draw(g, centerX, currentY, currentSize);
 				} else {
 					Painter.drawImage(g, this.scaleOutsideImage, centerX, currentY);
 
@@ -252,12 +252,22 @@ public class Transition extends Widget {
 	}
 
 	private int calcCurrentParallaxX(int currentX) {
-		return (int) XMath.floor(currentX * this.transitionProgress.getPercent() / Progress.HUNDRED);
+		return FixedPoint.floor(FixedPoint.mulDiv(FixedPoint.fromInt(currentX), this.transitionProgress.getPercent(),
+				FixedPoint.fromInt(Progress.HUNDRED)));
 	}
 
-	private int clampTransitionWidth() {
-		int currentWidth = (int) (this.transitionProgress.getValue() * PROGRESS_CENTER_MULTIPLIER);
-		int halfWidth = this.displayHalfWidth;
+	/**
+	 * Gets the horizontal offset of the transition for the given progress, between minus and plus half of the display
+	 * width.
+	 *
+	 * @param transitionProgress
+	 *            the progress of the transition.
+	 * @param halfWidth
+	 *            half of the display width.
+	 * @return the offset of the transition.
+	 */
+	static int clampTransitionWidth(Progress transitionProgress, int halfWidth) {
+		int currentWidth = FixedPoint.toInt(transitionProgress.getValue() * PROGRESS_CENTER_MULTIPLIER);
 		if (currentWidth > 0) {
 			if (currentWidth > halfWidth) {
 				currentWidth = halfWidth;
@@ -11,16 +11,18 @@ import static com.microej.demo.smart_thermostat.NavigationDesktop.scale;
 import java.util.Arrays;
 import java.util.Calendar;
 
+import com.microej.demo.smart_thermostat.common.Layer;
+import com.microej.demo.smart_thermostat.common.LayerCache;
+import com.microej.demo.smart_thermostat.common.LookupTableFunction;
+import com.microej.demo.smart_thermostat.common.ResourceCache;
 import com.microej.demo.smart_thermostat.model.WeatherCondition;
 import com.microej.demo.smart_thermostat.style.Fonts;
 import com.microej.demo.smart_thermostat.style.Images;
 
-import ej.annotation.Nullable;
 import ej.microui.display.*;
 import ej.microvg.VectorFont;
 import ej.microvg.VectorGraphicsPainter;
 import ej.motion.Motion;
-import ej.motion.sine.SineEaseInFunction;
 import ej.mwt.style.Style;
 import ej.mwt.util.Alignment;
 import ej.mwt.util.Size;
@@ -55,6 +57,7 @@ public class WeatherWidget extends FadeInWidget {
 
 	private static final String TODAY = "Today";
 	private static final String FORECAST = "Forecast";
+	private static final String LAYER_KEY = "weather"; //$NON-NLS-1$
 
 	private final Motion textPosMotion;
 
@@ -62,19 +65,15 @@ public class WeatherWidget extends FadeInWidget {
 	private WeatherCondition[] weekOfWeatherData;
 	private String[] daysOfWeek;
 
-	private boolean requestRedraw;
-	private @Nullable BufferedImage screenshot;
-
 	/**
 	 * Creates the WeatherWidget.
 	 */
 	public WeatherWidget() {
-		this.requestRedraw = true;
 		this.currentDayOfWeek = -1;
 		this.daysOfWeek = new String[DAYS_IN_WEEK];
 		this.weekOfWeatherData = new WeatherCondition[DAYS_IN_WEEK];
 
-		this.textPosMotion = new Motion(SineEaseInFunction.INSTANCE, ANIMATION_EASE_IN_DISTANCE, 0,
+		this.textPosMotion = new Motion(LookupTableFunction.SINE_EASE_IN, ANIMATION_EASE_IN_DISTANCE, 0,
 				getFadeInDuration());
 	}
 
@@ -95,7 +94,7 @@ public class WeatherWidget extends FadeInWidget {
 		if (!Arrays.equals(this.weekOfWeatherData, weekOfWeatherData)) {
 			createWeekDayArray();
 			this.weekOfWeatherData = weekOfWeatherData.clone();
-			this.requestRedraw = true;
+			LayerCache.getInstance().invalidate(LAYER_KEY);
 		}
 	}
 
@@ -113,7 +112,7 @@ public class WeatherWidget extends FadeInWidget {
 
 			this.daysOfWeek = daysOfWeek;
 			this.currentDayOfWeek = currentDay;
-			this.requestRedraw = true;
+			LayerCache.getInstance().invalidate(LAYER_KEY);
 		}
 	}
 
@@ -137,21 +136,6 @@ public class WeatherWidget extends FadeInWidget {
 		}
 	}
 
-	@Override
-	protected void onShown() {
-		this.requestRedraw = true;
-		super.onShown();
-	}
-
-	@Override
-	protected void onHidden() {
-		super.onHidden();
-		if (this.screenshot != null) {
-			this.screenshot.close();
-			this.screenshot = null;
-		}
-	}
-
 	@Override
 	protected void computeContentOptimalSize(Size size) {
 		// Nothing to compute, given by outside fixed size.
@@ -163,16 +147,14 @@ public class WeatherWidget extends FadeInWidget {
 		int yPos = this.textPosMotion.getValue(elapsed);
 		int alpha = getAlpha(elapsed);
 
-		if (this.requestRedraw || this.screenshot == null) {
-			if (this.screenshot == null) {
-				this.screenshot = new BufferedImage(contentWidth, contentHeight - ANIMATION_EASE_IN_DISTANCE);
-			}
-			renderWeatherContent(this.screenshot.getGraphicsContext(), contentWidth,
-					contentHeight - ANIMATION_EASE_IN_DISTANCE);
-			this.requestRedraw = false;
+		int layerHeight = contentHeight - ANIMATION_EASE_IN_DISTANCE;
+		Layer layer = LayerCache.getInstance().getLayer(LAYER_KEY, contentWidth, layerHeight);
+		if (!layer.isValid()) {
+			renderWeatherContent(layer.getImage().getGraphicsContext(), contentWidth, layerHeight);
+			layer.validate();
 		}
 
-		Painter.drawImage(g, this.screenshot, 0, yPos, alpha);
+		Painter.drawImage(g, layer.getImage(), 0, yPos, alpha);
 	}
 
 	private void renderWeatherContent(GraphicsContext g, int contentWidth, int contentHeight) {
@@ -191,10 +173,11 @@ public class WeatherWidget extends FadeInWidget {
 
 		// Draw Icon
 		WeatherCondition[] weather = this.weekOfWeatherData;
-		ResourceImage mainIcon = Images.getWeatherImage(weather[0], true);
+		ResourceCache resourceCache = ResourceCache.getInstance();
+		ResourceImage mainIcon = resourceCache.getImage(Images.getWeatherImagePath(weather[0], true));
 		int xMainIcon = Alignment.computeLeftX(mainIcon.getWidth(), 0, contentWidth, Alignment.RIGHT);
 		Painter.drawImage(g, mainIcon, xMainIcon, 0);
-		mainIcon.close();
+		resourceCache.release(mainIcon);
 
 		int yPos = contentHeight - SMALL_ICONS_IN_COLUMN * OTHER_ICON_SIZE;
 		int xIconColumnTwo = contentWidth - ICON_COL_TWO_RIGHT_DISTANCE;
@@ -211,10 +194,10 @@ public class WeatherWidget extends FadeInWidget {
 			VectorGraphicsPainter.drawString(g, days[i], font, OTHER_FONT_SIZE, xTextPos,
 					yPos + (float) WEEKDAY_TOP_OFFSET);
 			// Draw Icon
-			ResourceImage icon = Images.getWeatherImage(weather[i], false);
+			ResourceImage icon = resourceCache.getImage(Images.getWeatherImagePath(weather[i], false));
 			int xIconPos = isSecond ? ICON_COL_ONE_LEFT_DISTANCE : xIconColumnTwo;
 			Painter.drawImage(g, icon, xIconPos, yPos);
-			icon.close();
+			resourceCache.release(icon);
 
 			if (isSecond) {
 				yPos += OTHER_ICON_SIZE;
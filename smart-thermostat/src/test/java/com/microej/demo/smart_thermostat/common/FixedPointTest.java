@@ -0,0 +1,125 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.microej.demo.smart_thermostat.common.Progress.Direction;
+
+/**
+ * Tests the integer computations of {@link FixedPoint}, {@link WeatherValueConverter} and {@link Progress} against the
+ * floating-point formulas they replace, including the negative values.
+ */
+public class FixedPointTest {
+
+	private static final int MAX_HUNDREDTHS_CELSIUS = 100000;
+	private static final int MAX_FAHRENHEIT = 2000;
+	private static final int MAX_HUNDREDTHS_OF_PERCENT = 10000;
+	private static final int MAX_NUMERATOR = 100000;
+	private static final int[] DENOMINATORS = { 1, 2, 3, 7, 9, 100, 500 };
+	private static final int[][] RANGES = { { 0, 100 }, { -15, 31 }, { -1000, -10 }, { 50, 50 }, { -3, 2 } };
+
+	/**
+	 * The conversions between hundredths of Celsius and Fahrenheit give the rounded results of the float formulas.
+	 */
+	@Test
+	public void testTemperatureConversions() {
+		for (int hundredths = -MAX_HUNDREDTHS_CELSIUS; hundredths <= MAX_HUNDREDTHS_CELSIUS; hundredths++) {
+			float celsius = (float) hundredths / 100;
+			assertEquals("hundredths " + hundredths, Math.round(celsiusToFahrenheit(celsius)), //$NON-NLS-1$
+					WeatherValueConverter.hundredthsCelsiusToFahrenheit(hundredths));
+		}
+		for (int fahrenheit = -MAX_FAHRENHEIT; fahrenheit <= MAX_FAHRENHEIT; fahrenheit++) {
+			assertEquals("fahrenheit " + fahrenheit, Math.round(fahrenheitToCelsius(fahrenheit) * 100), //$NON-NLS-1$
+					WeatherValueConverter.fahrenheitToHundredthsCelsius(fahrenheit));
+		}
+	}
+
+	/**
+	 * The conversion from hundredths of percent gives the rounded result of the float formula.
+	 */
+	@Test
+	public void testPercentConversion() {
+		for (int hundredths = -MAX_HUNDREDTHS_OF_PERCENT; hundredths <= MAX_HUNDREDTHS_OF_PERCENT; hundredths++) {
+			assertEquals("hundredths " + hundredths, Math.round((float) hundredths / 100), //$NON-NLS-1$
+					WeatherValueConverter.hundredthsOfPercentToPercent(hundredths));
+		}
+	}
+
+	/**
+	 * The rounding divisions match the rounding of the floating-point quotient.
+	 */
+	@Test
+	public void testDivisions() {
+		for (int denominator : DENOMINATORS) {
+			for (int numerator = -MAX_NUMERATOR; numerator <= MAX_NUMERATOR; numerator++) {
+				double quotient = (double) numerator / denominator;
+				String message = numerator + "/" + denominator; //$NON-NLS-1$
+				assertEquals(message, (int) Math.floor(quotient), FixedPoint.floorDiv(numerator, denominator));
+				assertEquals(message, (int) Math.floor(quotient + 0.5), FixedPoint.roundDiv(numerator, denominator));
+			}
+		}
+	}
+
+	/**
+	 * The fixed-point conversions match the floating-point ones.
+	 */
+	@Test
+	public void testConversions() {
+		for (int fixed = -10 * FixedPoint.ONE; fixed <= 10 * FixedPoint.ONE; fixed += 97) {
+			double value = (double) fixed / FixedPoint.ONE;
+			String message = Double.toString(value);
+			assertEquals(message, (int) value, FixedPoint.toInt(fixed));
+			assertEquals(message, (int) Math.floor(value), FixedPoint.floor(fixed));
+			assertEquals(message, (int) Math.floor(value + 0.5), FixedPoint.round(fixed));
+			assertEquals(message, value, FixedPoint.toFloat(fixed), 1e-6);
+		}
+	}
+
+	/**
+	 * The fixed-point progress matches the double formulas, forward and backward, on ranges with negative bounds, within
+	 * the precision of the fixed-point values.
+	 */
+	@Test
+	public void testProgress() {
+		for (int[] range : RANGES) {
+			int min = range[0];
+			int max = range[1];
+			for (Direction direction : Direction.values()) {
+				Progress progress = new Progress();
+				progress.configure(min, max, direction);
+				for (int value = min - 5; value <= max + 5; value++) {
+					progress.setValue(value);
+
+					double limited = Math.max(min, Math.min(max, value));
+					double relative = direction == Direction.BACKWARD ? max - limited : limited - min;
+					double percent = max == min ? 0 : relative / (max - min) * Progress.HUNDRED;
+					double expectedValue = percent * (max - min) / Progress.HUNDRED;
+					expectedValue = direction == Direction.BACKWARD ? max - expectedValue : expectedValue + min;
+
+					String message = direction + " " + min + ".." + max + " value " + value; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					double percentError = Math.abs(FixedPoint.toFloat(progress.getPercent()) - percent);
+					assertTrue(message, percentError < 1.0 / FixedPoint.ONE + 1e-4);
+					double valueError = Math.abs((double) progress.getValue() / FixedPoint.ONE - expectedValue);
+					assertTrue(message, valueError < (2.0 + (max - min) / 100.0) / FixedPoint.ONE);
+				}
+			}
+		}
+	}
+
+	// the floating-point formulas replaced by the integer conversions
+	private static float celsiusToFahrenheit(float celsius) {
+		return ((celsius * 9) / 5) + 32;
+	}
+
+	private static float fahrenheitToCelsius(float fahrenheit) {
+		return ((fahrenheit - 32) * 5) / 9;
+	}
+}
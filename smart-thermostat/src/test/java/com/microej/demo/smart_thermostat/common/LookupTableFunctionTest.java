@@ -0,0 +1,117 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import ej.motion.Function;
+import ej.motion.sine.SineEaseInFunction;
+import ej.motion.sine.SineEaseInOutFunction;
+
+/**
+ * Tests the accuracy of the {@link LookupTableFunction} tables at the default size, and compares their speed with the
+ * functions they approximate.
+ */
+public class LookupTableFunctionTest {
+
+	// one alpha level, the finest visible step of the eased properties
+	private static final float MAX_ERROR = 1f / 255;
+	private static final int SAMPLES = 10000;
+	private static final int BENCHMARK_VALUES = 2000000;
+	private static final int BENCHMARK_ROUNDS = 3;
+
+	/**
+	 * At the default table size, the error of the tables stays below one alpha level, measured in the middle of the
+	 * intervals and on a finer sampling.
+	 */
+	@Test
+	public void testMaxError() {
+		checkMaxError(LookupTableFunction.SINE_EASE_IN, SineEaseInFunction.INSTANCE);
+		checkMaxError(LookupTableFunction.SINE_EASE_IN_OUT, SineEaseInOutFunction.INSTANCE);
+	}
+
+	/**
+	 * The bounds of the range are exact and the values outside the range are clamped.
+	 */
+	@Test
+	public void testBounds() {
+		LookupTableFunction function = LookupTableFunction.SINE_EASE_IN_OUT;
+		assertEquals(SineEaseInOutFunction.INSTANCE.computeValue(0), function.computeValue(0), 0);
+		assertEquals(SineEaseInOutFunction.INSTANCE.computeValue(1), function.computeValue(1), 0);
+		assertEquals(function.computeValue(0), function.computeValue(-1), 0);
+		assertEquals(function.computeValue(1), function.computeValue(2), 0);
+	}
+
+	/**
+	 * A table without interval is rejected.
+	 */
+	@Test
+	public void testInvalidIntervals() {
+		try {
+			new LookupTableFunction(SineEaseInFunction.INSTANCE, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Measures the time to compute a value with the tables and with the functions they approximate.
+	 */
+	@Test
+	public void testBenchmark() {
+		benchmark(LookupTableFunction.SINE_EASE_IN, SineEaseInFunction.INSTANCE);
+		benchmark(LookupTableFunction.SINE_EASE_IN_OUT, SineEaseInOutFunction.INSTANCE);
+	}
+
+	private static void checkMaxError(LookupTableFunction table, Function function) {
+		String name = function.getClass().getSimpleName();
+		float maxError = table.getMaxError();
+		assertTrue(name + " max error " + maxError, maxError < MAX_ERROR); //$NON-NLS-1$
+		// measured once
+		assertEquals(maxError, table.getMaxError(), 0);
+
+		float sampledError = 0;
+		for (int i = 0; i <= SAMPLES; i++) {
+			float t = (float) i / SAMPLES;
+			sampledError = Math.max(sampledError, Math.abs(function.computeValue(t) - table.computeValue(t)));
+		}
+		assertTrue(name + " sampled error " + sampledError, sampledError < MAX_ERROR); //$NON-NLS-1$
+	}
+
+	private static void benchmark(LookupTableFunction table, Function function) {
+		long tableDuration = Long.MAX_VALUE;
+		long functionDuration = Long.MAX_VALUE;
+		float sum = 0;
+		// keep the best round, once the code is warmed up
+		for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+			long start = System.nanoTime();
+			sum += computeAll(table);
+			tableDuration = Math.min(tableDuration, System.nanoTime() - start);
+			start = System.nanoTime();
+			sum += computeAll(function);
+			functionDuration = Math.min(functionDuration, System.nanoTime() - start);
+		}
+		assertTrue(sum > 0);
+		System.out.println(function.getClass().getSimpleName() + ": " + BENCHMARK_VALUES + " values, table " //$NON-NLS-1$ //$NON-NLS-2$
+				+ tableDuration / BENCHMARK_VALUES + "." + tableDuration * 10 / BENCHMARK_VALUES % 10 //$NON-NLS-1$
+				+ " ns per value, function " + functionDuration / BENCHMARK_VALUES + "." //$NON-NLS-1$ //$NON-NLS-2$
+				+ functionDuration * 10 / BENCHMARK_VALUES % 10 + " ns per value"); //$NON-NLS-1$
+	}
+
+	private static float computeAll(Function function) {
+		float sum = 0;
+		for (int i = 0; i < BENCHMARK_VALUES; i++) {
+			sum += function.computeValue((float) i / BENCHMARK_VALUES);
+		}
+		return sum;
+	}
+}
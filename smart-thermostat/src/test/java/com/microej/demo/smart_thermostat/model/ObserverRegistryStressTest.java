@@ -0,0 +1,341 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ej.microui.MicroUI;
+
+/**
+ * Stresses the {@link ObserverRegistry} with observers registering and unregistering during notification storms
+ * dispatched by the {@link SmartThermostatModel}.
+ */
+public class ObserverRegistryStressTest {
+
+	private static final int MAX_TYPE = 4;
+	private static final int[] INPUT_TYPES = { SmartThermostatModel.TEMPERATURE_TYPE,
+			SmartThermostatModel.HUMIDITY_TYPE, SmartThermostatModel.PRESSURE_TYPE,
+			SmartThermostatModel.TEMPERATURE_THRESHOLD_TYPE };
+	private static final int WRITER_THREADS = 4;
+	private static final int WRITES = 5000;
+	private static final int CHURN_THREADS = 4;
+	private static final int CHURN_OBSERVERS = 8;
+
+	/**
+	 * Starts MicroUI, whose event queue dispatches the notifications of the model.
+	 */
+	@BeforeClass
+	public static void startMicroUI() {
+		MicroUI.start();
+	}
+
+	/**
+	 * Several threads set the values of the model while other threads add and remove observers. Once the UI event
+	 * queue is drained, the observers registered for the whole test have received the latest value of each type, in
+	 * fewer notifications than the changes, and the observers removed by the churn are not notified anymore.
+	 *
+	 * @throws InterruptedException
+	 *             if the test is interrupted.
+	 */
+	@Test
+	public void testChurnDuringNotificationStorm() throws InterruptedException {
+		final SmartThermostatModel model = SmartThermostatModel.getInstance();
+		LastValueObserver permanent = new LastValueObserver();
+		LastValueObserver batch = new BatchObserver();
+		model.addObserver(permanent, INPUT_TYPES);
+		model.addObserver(batch, INPUT_TYPES);
+		final CountingObserver[][] churnObservers = new CountingObserver[CHURN_THREADS][];
+		try {
+			final boolean[] stop = new boolean[1];
+			final Throwable[] failure = new Throwable[1];
+			Thread[] writers = new Thread[WRITER_THREADS];
+			for (int i = 0; i < WRITER_THREADS; i++) {
+				final int writer = i;
+				writers[i] = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							write(model, writer);
+						} catch (Throwable e) {
+							setFailure(failure, e);
+						}
+					}
+				});
+			}
+			Thread[] churners = new Thread[CHURN_THREADS];
+			for (int i = 0; i < CHURN_THREADS; i++) {
+				final CountingObserver[] observers = new CountingObserver[CHURN_OBSERVERS];
+				for (int j = 0; j < CHURN_OBSERVERS; j++) {
+					observers[j] = new CountingObserver();
+				}
+				churnObservers[i] = observers;
+				churners[i] = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							churn(model, observers, stop);
+						} catch (Throwable e) {
+							setFailure(failure, e);
+						}
+					}
+				});
+			}
+			for (Thread churner : churners) {
+				churner.start();
+			}
+			for (Thread writer : writers) {
+				writer.start();
+			}
+			for (Thread writer : writers) {
+				writer.join();
+			}
+			synchronized (stop) {
+				stop[0] = true;
+			}
+			for (Thread churner : churners) {
+				churner.join();
+			}
+			drainEventQueue();
+
+			synchronized (failure) {
+				assertNull("storm failed: " + failure[0], failure[0]); //$NON-NLS-1$
+			}
+			ThermostatSnapshot snapshot = model.getSnapshot();
+			for (int type : INPUT_TYPES) {
+				assertEquals(snapshot.getValue(type), permanent.getValue(type));
+			}
+			int changes = WRITER_THREADS * WRITES;
+			assertTrue(permanent.getCount() > 0);
+			assertTrue("notifications not coalesced", permanent.getCount() < changes * INPUT_TYPES.length); //$NON-NLS-1$
+			assertTrue(batch.getCount() > 0);
+			assertTrue("batches not coalesced", batch.getCount() < changes); //$NON-NLS-1$
+
+			// the churn observers are all unregistered
+			int[] counts = new int[CHURN_THREADS * CHURN_OBSERVERS];
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = churnObservers[i / CHURN_OBSERVERS][i % CHURN_OBSERVERS].getCount();
+			}
+			int temperature = snapshot.getTemperature() + 1;
+			model.setTemperature(temperature);
+			drainEventQueue();
+			assertEquals(temperature, permanent.getValue(SmartThermostatModel.TEMPERATURE_TYPE));
+			for (int i = 0; i < counts.length; i++) {
+				assertEquals(counts[i], churnObservers[i / CHURN_OBSERVERS][i % CHURN_OBSERVERS].getCount());
+			}
+		} finally {
+			model.removeObserver(permanent, INPUT_TYPES);
+			model.removeObserver(batch, INPUT_TYPES);
+		}
+	}
+
+	/**
+	 * An observer removing itself while it is notified does not prevent the other observers of the same notification
+	 * from being notified, and is not notified anymore afterwards.
+	 */
+	@Test
+	public void testRemoveWhileNotified() {
+		final ObserverRegistry registry = new ObserverRegistry(MAX_TYPE);
+		final int type = 1;
+		CountingObserver selfRemoving = new CountingObserver() {
+			@Override
+			public void update(int valueType, int newValue) {
+				super.update(valueType, newValue);
+				registry.remove(this, valueType);
+			}
+		};
+		CountingObserver other = new CountingObserver();
+		registry.add(selfRemoving, type);
+		registry.add(other, type);
+
+		for (int i = 0; i < 2; i++) {
+			for (ThermostatObserver observer : registry.get(type)) {
+				observer.update(type, i);
+			}
+		}
+
+		assertEquals(1, selfRemoving.getCount());
+		assertEquals(2, other.getCount());
+	}
+
+	/**
+	 * Adding an observer twice for a type registers it once, and types beyond the initial maximum grow the registry.
+	 */
+	@Test
+	public void testAddOnceAndGrow() {
+		ObserverRegistry registry = new ObserverRegistry(MAX_TYPE);
+		CountingObserver observer = new CountingObserver();
+		registry.add(observer, 1);
+		registry.add(observer, 1);
+		assertEquals(1, registry.get(1).length);
+
+		int newType = MAX_TYPE + 2;
+		assertEquals(0, registry.get(newType).length);
+		registry.add(observer, newType);
+		assertEquals(1, registry.get(newType).length);
+		assertEquals(0, registry.get(MAX_TYPE + 1).length);
+		assertEquals(1, registry.get(1).length);
+
+		registry.remove(observer, newType);
+		assertFalse(registry.get(newType).length > 0);
+	}
+
+	/**
+	 * The types outside of 1 to {@value ObserverRegistry#MAX_OBSERVABLE_TYPE} are rejected, without growing the
+	 * registry.
+	 */
+	@Test
+	public void testTypeOutOfRange() {
+		ObserverRegistry registry = new ObserverRegistry(MAX_TYPE);
+		CountingObserver observer = new CountingObserver();
+		int[] invalidTypes = { -1, 0, ObserverRegistry.MAX_OBSERVABLE_TYPE + 1, Integer.MAX_VALUE };
+		for (int type : invalidTypes) {
+			try {
+				registry.add(observer, type);
+				fail("type " + type + " added"); //$NON-NLS-1$ //$NON-NLS-2$
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+			try {
+				registry.remove(observer, type);
+				fail("type " + type + " removed"); //$NON-NLS-1$ //$NON-NLS-2$
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+			assertEquals(0, registry.get(type).length);
+		}
+
+		registry.add(observer, ObserverRegistry.MAX_OBSERVABLE_TYPE);
+		assertEquals(1, registry.get(ObserverRegistry.MAX_OBSERVABLE_TYPE).length);
+	}
+
+	private static void write(SmartThermostatModel model, int writer) {
+		int[] values = new int[SmartThermostatModel.MAX_TYPE + 1];
+		int allTypes = 0;
+		for (int type : INPUT_TYPES) {
+			allTypes |= SmartThermostatModel.getTypeMask(type);
+		}
+		for (int i = 0; i < WRITES; i++) {
+			// the writers set the same types with different values
+			int value = writer * WRITES + i;
+			switch (i % 4) {
+			case 0:
+				model.setTemperature(value);
+				model.setTemperatureThreshold(value);
+				break;
+			case 1:
+				model.setHumidity(value);
+				model.setPressure(value);
+				break;
+			case 2:
+				model.applyReading(value, value, value);
+				break;
+			default:
+				for (int type : INPUT_TYPES) {
+					values[type] = value;
+				}
+				model.applyValues(values, allTypes);
+				break;
+			}
+		}
+	}
+
+	private static void churn(SmartThermostatModel model, CountingObserver[] observers, boolean[] stop) {
+		int round = 0;
+		while (true) {
+			synchronized (stop) {
+				if (stop[0]) {
+					break;
+				}
+			}
+			CountingObserver observer = observers[round % observers.length];
+			int type = INPUT_TYPES[round % INPUT_TYPES.length];
+			model.addObserver(observer, type);
+			model.removeObserver(observer, type);
+			round++;
+		}
+	}
+
+	private static void setFailure(Throwable[] failure, Throwable e) {
+		synchronized (failure) {
+			failure[0] = e;
+		}
+	}
+
+	private static void drainEventQueue() throws InterruptedException {
+		// the events are handled in order: the notifications queued before are dispatched once this one is handled
+		final boolean[] drained = new boolean[1];
+		MicroUI.callSerially(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (drained) {
+					drained[0] = true;
+					drained.notifyAll();
+				}
+			}
+		});
+		synchronized (drained) {
+			while (!drained[0]) {
+				drained.wait();
+			}
+		}
+	}
+
+	private static class LastValueObserver implements ThermostatObserver {
+
+		private final int[] values = new int[SmartThermostatModel.MAX_TYPE + 1];
+		private int count;
+
+		@Override
+		public synchronized void update(int valueType, int newValue) {
+			this.values[valueType] = newValue;
+			this.count++;
+		}
+
+		synchronized int getValue(int valueType) {
+			return this.values[valueType];
+		}
+
+		synchronized int getCount() {
+			return this.count;
+		}
+	}
+
+	private static class BatchObserver extends LastValueObserver implements ThermostatBatchObserver {
+
+		@Override
+		public void updateAll(int changedTypes) {
+			// the values are read from the model, as the batch observers do
+			ThermostatSnapshot snapshot = SmartThermostatModel.getInstance().getSnapshot();
+			for (int type : INPUT_TYPES) {
+				if ((changedTypes & SmartThermostatModel.getTypeMask(type)) != 0) {
+					update(type, snapshot.getValue(type));
+				}
+			}
+		}
+	}
+
+	private static class CountingObserver implements ThermostatObserver {
+
+		private int count;
+
+		@Override
+		public synchronized void update(int valueType, int newValue) {
+			this.count++;
+		}
+
+		synchronized int getCount() {
+			return this.count;
+		}
+	}
+}
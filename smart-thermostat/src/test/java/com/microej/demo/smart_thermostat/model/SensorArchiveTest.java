@@ -0,0 +1,304 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link SensorArchive}: size of the readings, range queries, recovery of the interrupted writes and
+ * handling of the clock regressions.
+ */
+public class SensorArchiveTest {
+
+	private static final String PATH = "sensorArchiveTest"; //$NON-NLS-1$
+	private static final String[] EXTENSIONS = { ".dat", ".idx", ".tail" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	private static final long START_TIME = 1000000;
+	private static final long PERIOD = 60000;
+	private static final int SERIES_SIZE = 3000;
+	private static final int MAX_BYTES_PER_READING = 7;
+	private static final int RANGE_QUERIES = 200;
+	private static final long SEED = 42;
+
+	/**
+	 * The readings flushed before a reset are restored when the archive is opened again, the readings appended after
+	 * the flush are lost.
+	 *
+	 * @throws IOException
+	 *             if the archive cannot be written.
+	 */
+	@Test
+	public void testFlushedTailRestored() throws IOException {
+		deleteFiles();
+		try {
+			SensorArchive archive = new SensorArchive(PATH);
+			archive.open();
+			for (int i = 0; i < 5; i++) {
+				archive.append(START_TIME + i * PERIOD, 200 + i, 50, 1000);
+			}
+			archive.flush();
+			archive.append(START_TIME + 5 * PERIOD, 205, 50, 1000);
+
+			// reset without closing
+			archive = new SensorArchive(PATH);
+			archive.open();
+			assertEquals(0, archive.getArchivedReadingsCount());
+			archive.close();
+			assertEquals(5, archive.getArchivedReadingsCount());
+
+			SensorArchiveReader reader = archive.read(0, Long.MAX_VALUE);
+			try {
+				assertTrue(reader.nextBlock());
+				assertEquals(5, reader.getCount());
+				assertFalse(reader.isTimeEstimated());
+				for (int i = 0; i < 5; i++) {
+					assertEquals(START_TIME + i * PERIOD, reader.getTime(i));
+					assertEquals(200 + i, reader.getTemperature(i));
+				}
+				assertFalse(reader.nextBlock());
+			} finally {
+				reader.close();
+			}
+		} finally {
+			deleteFiles();
+		}
+	}
+
+	/**
+	 * After a regression of the clock, the times are shifted after the previous reading, keeping their spacing, and
+	 * are marked as estimated until the clock catches up.
+	 *
+	 * @throws IOException
+	 *             if the archive cannot be written.
+	 */
+	@Test
+	public void testClockRegressionMarked() throws IOException {
+		deleteFiles();
+		try {
+			SensorArchive archive = new SensorArchive(PATH);
+			archive.open();
+			archive.append(START_TIME, 200, 50, 1000);
+			archive.append(START_TIME + PERIOD, 201, 50, 1000);
+			// the clock restarts from 0
+			archive.append(10, 300, 51, 1001);
+			archive.append(10 + PERIOD, 301, 51, 1001);
+			// the clock is set again
+			archive.append(START_TIME + 10 * PERIOD, 400, 52, 1002);
+			archive.close();
+
+			SensorArchiveReader reader = archive.read(0, Long.MAX_VALUE);
+			try {
+				assertTrue(reader.nextBlock());
+				assertFalse(reader.isTimeEstimated());
+				assertEquals(2, reader.getCount());
+
+				assertTrue(reader.nextBlock());
+				assertTrue(reader.isTimeEstimated());
+				assertEquals(2, reader.getCount());
+				assertEquals(START_TIME + PERIOD, reader.getTime(0));
+				assertEquals(START_TIME + 2 * PERIOD, reader.getTime(1));
+				assertEquals(301, reader.getTemperature(1));
+
+				assertTrue(reader.nextBlock());
+				assertFalse(reader.isTimeEstimated());
+				assertEquals(1, reader.getCount());
+				assertEquals(START_TIME + 10 * PERIOD, reader.getTime(0));
+				assertFalse(reader.nextBlock());
+			} finally {
+				reader.close();
+			}
+		} finally {
+			deleteFiles();
+		}
+	}
+
+	/**
+	 * A series of readings taken every minute, with the small variations of real sensors, takes less than
+	 * {@value #MAX_BYTES_PER_READING} bytes per reading.
+	 *
+	 * @throws IOException
+	 *             if the archive cannot be written.
+	 */
+	@Test
+	public void testBytesPerReading() throws IOException {
+		deleteFiles();
+		try {
+			SensorArchive archive = new SensorArchive(PATH);
+			archive.open();
+			long[] times = new long[SERIES_SIZE];
+			int[][] series = generateSeries(times);
+			appendSeries(archive, times, series);
+			archive.close();
+
+			long readings = archive.getArchivedReadingsCount();
+			long size = archive.getDataSize();
+			assertEquals(SERIES_SIZE, readings);
+			assertTrue("data size", size == new File(PATH + EXTENSIONS[0]).length()); //$NON-NLS-1$
+			System.out.println("sensor archive: " + readings + " readings in " + size + " bytes, " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ (size * 100 / readings) / 100f + " bytes per reading"); //$NON-NLS-1$
+			assertTrue("bytes per reading", size < readings * MAX_BYTES_PER_READING); //$NON-NLS-1$
+		} finally {
+			deleteFiles();
+		}
+	}
+
+	/**
+	 * The range queries return exactly the readings of the range, in order, whatever the position of the range bounds
+	 * relatively to the blocks.
+	 *
+	 * @throws IOException
+	 *             if the archive cannot be read or written.
+	 */
+	@Test
+	public void testRangeQueries() throws IOException {
+		deleteFiles();
+		try {
+			SensorArchive archive = new SensorArchive(PATH);
+			archive.open();
+			long[] times = new long[SERIES_SIZE];
+			int[][] series = generateSeries(times);
+			appendSeries(archive, times, series);
+			archive.close();
+
+			long lastTime = times[SERIES_SIZE - 1];
+			checkRange(archive, times, series, 0, Long.MAX_VALUE);
+			checkRange(archive, times, series, 0, START_TIME - 1);
+			checkRange(archive, times, series, lastTime + 1, Long.MAX_VALUE);
+			checkRange(archive, times, series, START_TIME, START_TIME);
+			checkRange(archive, times, series, lastTime, lastTime);
+			checkRange(archive, times, series, times[100] + 1, times[101] - 1);
+			Random random = new Random(SEED);
+			for (int i = 0; i < RANGE_QUERIES; i++) {
+				long from = START_TIME + (long) (random.nextDouble() * (lastTime - START_TIME));
+				long to = from + (long) (random.nextDouble() * (lastTime - from + PERIOD));
+				checkRange(archive, times, series, from, to);
+			}
+		} finally {
+			deleteFiles();
+		}
+	}
+
+	/**
+	 * An index entry interrupted while written is dropped when opening the archive, so that the next entries are
+	 * read back at their position.
+	 *
+	 * @throws IOException
+	 *             if the archive cannot be read or written.
+	 */
+	@Test
+	public void testTornIndexEntryDropped() throws IOException {
+		deleteFiles();
+		try {
+			SensorArchive archive = new SensorArchive(PATH);
+			archive.open();
+			long[] times = new long[SERIES_SIZE];
+			int[][] series = generateSeries(times);
+			int half = SERIES_SIZE / 2;
+			for (int i = 0; i < half; i++) {
+				archive.append(times[i], series[0][i], series[1][i], series[2][i]);
+			}
+			archive.close();
+			long archived = archive.getArchivedReadingsCount();
+
+			// a power loss while writing the next index entry
+			OutputStream output = new FileOutputStream(PATH + EXTENSIONS[1], true);
+			try {
+				output.write(new byte[] { 0x12, 0x34, 0x56, 0x78, 0x00, 0x01, 0x7F });
+			} finally {
+				output.close();
+			}
+
+			archive = new SensorArchive(PATH);
+			archive.open();
+			assertEquals(archived, archive.getArchivedReadingsCount());
+			for (int i = half; i < SERIES_SIZE; i++) {
+				archive.append(times[i], series[0][i], series[1][i], series[2][i]);
+			}
+			archive.close();
+
+			archive = new SensorArchive(PATH);
+			archive.open();
+			assertEquals(SERIES_SIZE, archive.getArchivedReadingsCount());
+			checkRange(archive, times, series, 0, Long.MAX_VALUE);
+		} finally {
+			deleteFiles();
+		}
+	}
+
+	private static int[][] generateSeries(long[] times) {
+		Random random = new Random(SEED);
+		int count = times.length;
+		int[][] series = new int[3][count];
+		int temperature = 2150;
+		int humidity = 45;
+		int pressure = 1013;
+		for (int i = 0; i < count; i++) {
+			times[i] = START_TIME + i * PERIOD;
+			temperature += random.nextInt(7) - 3;
+			if (random.nextInt(10) == 0) {
+				humidity += random.nextInt(3) - 1;
+			}
+			if (random.nextInt(30) == 0) {
+				pressure += random.nextInt(3) - 1;
+			}
+			series[0][i] = temperature;
+			series[1][i] = humidity;
+			series[2][i] = pressure;
+		}
+		return series;
+	}
+
+	private static void appendSeries(SensorArchive archive, long[] times, int[][] series) throws IOException {
+		for (int i = 0; i < times.length; i++) {
+			archive.append(times[i], series[0][i], series[1][i], series[2][i]);
+		}
+	}
+
+	private static void checkRange(SensorArchive archive, long[] times, int[][] series, long from, long to)
+			throws IOException {
+		// first reading of the range
+		int index = 0;
+		while (index < times.length && times[index] < from) {
+			index++;
+		}
+		String message = "range " + from + "-" + to; //$NON-NLS-1$ //$NON-NLS-2$
+		SensorArchiveReader reader = archive.read(from, to);
+		try {
+			while (reader.nextBlock()) {
+				for (int i = 0; i < reader.getCount(); i++) {
+					assertTrue(message, index < times.length && times[index] <= to);
+					assertEquals(message, times[index], reader.getTime(i));
+					assertEquals(message, series[0][index], reader.getTemperature(i));
+					assertEquals(message, series[1][index], reader.getHumidity(i));
+					assertEquals(message, series[2][index], reader.getPressure(i));
+					index++;
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		assertTrue(message, index == times.length || times[index] > to);
+	}
+
+	private static void deleteFiles() {
+		for (String extension : EXTENSIONS) {
+			File file = new File(PATH + extension);
+			if (file.exists()) {
+				file.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.microej.demo.smart_thermostat.common.Crc8;
+
+import ej.microui.MicroUI;
+
+/**
+ * Tests the {@link SensorHubDecoder} against local streams standing for the sensor hub.
+ */
+public class SensorHubDecoderTest {
+
+	private static final int UNKNOWN_TYPE = SmartThermostatModel.MAX_TYPE + 2;
+	private static final int HUMIDITY = 55;
+	private static final int[] READ_SIZES = { 1, 2, 3, 5, 7, 64, Integer.MAX_VALUE };
+	private static final int BENCHMARK_FRAMES = 200000;
+
+	/**
+	 * Starts MicroUI, whose event queue dispatches the notifications of the model.
+	 */
+	@BeforeClass
+	public static void startMicroUI() {
+		MicroUI.start();
+	}
+
+	/**
+	 * The valid frames are applied whatever the split of the stream in reads, the latest value of a type winning. The
+	 * corrupted frames are counted as errors and their bytes are skipped, as the bytes found between frames.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be read.
+	 */
+	@Test
+	public void testCorruptedFramesSkipped() throws IOException {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		int skippedBytes = 0;
+		writeFrame(stream, SmartThermostatModel.TEMPERATURE_TYPE, 2150);
+		// noise between frames
+		stream.write(0x00);
+		stream.write(0x42);
+		stream.write(SensorHubProtocol.SYNC_SECOND);
+		skippedBytes += 3;
+		// wrong CRC
+		byte[] frame = encode(SmartThermostatModel.HUMIDITY_TYPE, 40);
+		frame[frame.length - 1] ^= 0x01;
+		stream.write(frame, 0, frame.length);
+		skippedBytes += frame.length;
+		// unknown type
+		frame = encode(UNKNOWN_TYPE, 1);
+		stream.write(frame, 0, frame.length);
+		skippedBytes += frame.length;
+		// varint longer than the maximum
+		frame = new byte[4 + SensorHubProtocol.MAX_VARINT_SIZE];
+		frame[0] = (byte) SensorHubProtocol.SYNC_FIRST;
+		frame[1] = (byte) SensorHubProtocol.SYNC_SECOND;
+		frame[2] = (byte) SmartThermostatModel.PRESSURE_TYPE;
+		for (int i = 3; i < frame.length - 1; i++) {
+			frame[i] = (byte) 0x81;
+		}
+		frame[frame.length - 1] = (byte) Crc8.compute(frame, 2, frame.length - 3);
+		stream.write(frame, 0, frame.length);
+		skippedBytes += frame.length;
+		writeFrame(stream, SmartThermostatModel.PRESSURE_TYPE, 1013);
+		writeFrame(stream, SmartThermostatModel.TEMPERATURE_THRESHOLD_TYPE, 72);
+		writeFrame(stream, SmartThermostatModel.TEMPERATURE_TYPE, -5);
+		byte[] bytes = stream.toByteArray();
+
+		SmartThermostatModel model = SmartThermostatModel.getInstance();
+		for (int readSize : READ_SIZES) {
+			model.applyReading(0, HUMIDITY, 0);
+			model.setTemperatureThreshold(0);
+			SensorHubDecoder decoder = decodeAll(new SplitInputStream(bytes, readSize), model);
+
+			String message = "read size " + readSize; //$NON-NLS-1$
+			assertEquals(message, 4, decoder.getFramesCount());
+			assertEquals(message, 3, decoder.getErrorsCount());
+			assertEquals(message, skippedBytes, decoder.getSkippedBytesCount());
+			ThermostatSnapshot snapshot = model.getSnapshot();
+			assertEquals(message, -5, snapshot.getTemperature());
+			assertEquals(message, HUMIDITY, snapshot.getHumidity());
+			assertEquals(message, 1013, snapshot.getPressure());
+			assertEquals(message, 72, snapshot.getTemperatureThreshold());
+		}
+	}
+
+	/**
+	 * The values are decoded back whatever their size, from one to {@value SensorHubProtocol#MAX_VARINT_SIZE} bytes.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be read.
+	 */
+	@Test
+	public void testValuesRoundTrip() throws IOException {
+		int[] values = { 0, 1, -1, 63, -64, 64, 8191, -8192, 1 << 20, Integer.MAX_VALUE, Integer.MIN_VALUE };
+		SmartThermostatModel model = SmartThermostatModel.getInstance();
+		for (int value : values) {
+			byte[] frame = encode(SmartThermostatModel.PRESSURE_TYPE, value);
+			SensorHubDecoder decoder = decodeAll(new SplitInputStream(frame, 1), model);
+			assertEquals(1, decoder.getFramesCount());
+			assertEquals(0, decoder.getErrorsCount());
+			assertEquals(value, model.getPressure());
+		}
+	}
+
+	/**
+	 * Measures the throughput of the decoder, applying the values to the model, in frames per second.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be read.
+	 */
+	@Test
+	public void testThroughput() throws IOException {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream(BENCHMARK_FRAMES * SensorHubProtocol.MAX_FRAME_SIZE);
+		for (int i = 0; i < BENCHMARK_FRAMES; i++) {
+			int type = i % SmartThermostatModel.MAX_INPUT_TYPE + 1;
+			writeFrame(stream, type, 1000 + i % 2000);
+		}
+		byte[] bytes = stream.toByteArray();
+
+		long start = System.currentTimeMillis();
+		SensorHubDecoder decoder = decodeAll(new ByteArrayInputStream(bytes), SmartThermostatModel.getInstance());
+		long duration = Math.max(1, System.currentTimeMillis() - start);
+
+		assertEquals(BENCHMARK_FRAMES, decoder.getFramesCount());
+		assertEquals(0, decoder.getErrorsCount());
+		assertTrue(decoder.getBatchesCount() < BENCHMARK_FRAMES);
+		System.out.println("sensor hub decoder: " + BENCHMARK_FRAMES + " frames (" + bytes.length + " bytes) in " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ duration + " ms, " + BENCHMARK_FRAMES * 1000L / duration + " frames/s, " //$NON-NLS-1$ //$NON-NLS-2$
+				+ decoder.getBatchesCount() + " batches"); //$NON-NLS-1$
+	}
+
+	private static SensorHubDecoder decodeAll(InputStream input, SmartThermostatModel model) throws IOException {
+		SensorHubDecoder decoder = new SensorHubDecoder();
+		while (decoder.decode(input, model)) {
+			// decode until the end of the stream
+		}
+		return decoder;
+	}
+
+	private static byte[] encode(int valueType, int value) {
+		byte[] buffer = new byte[SensorHubProtocol.MAX_FRAME_SIZE];
+		int size = SensorHubProtocol.encode(valueType, value, buffer, 0);
+		byte[] frame = new byte[size];
+		System.arraycopy(buffer, 0, frame, 0, size);
+		return frame;
+	}
+
+	private static void writeFrame(ByteArrayOutputStream stream, int valueType, int value) {
+		byte[] frame = encode(valueType, value);
+		stream.write(frame, 0, frame.length);
+	}
+
+	/**
+	 * Stream returning at most a given number of bytes per read, as a serial link would.
+	 */
+	private static class SplitInputStream extends ByteArrayInputStream {
+
+		private final int readSize;
+
+		SplitInputStream(byte[] bytes, int readSize) {
+			super(bytes);
+			this.readSize = readSize;
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) {
+			return super.read(b, off, Math.min(len, this.readSize));
+		}
+	}
+}
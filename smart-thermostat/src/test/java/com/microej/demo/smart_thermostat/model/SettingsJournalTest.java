@@ -0,0 +1,180 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link SettingsJournal} recovery of the interrupted writes and compactions.
+ */
+public class SettingsJournalTest {
+
+	private static final String PATH = "settingsJournalTest"; //$NON-NLS-1$
+	private static final String OTHER_PATH = "settingsJournalTestOther"; //$NON-NLS-1$
+	private static final String COMPACTION_EXTENSION = ".tmp"; //$NON-NLS-1$
+	private static final long FLUSH_DELAY = 60000;
+	private static final int RECORD_SIZE = 12;
+	private static final byte[] TORN_RECORD = { 0x5E, 0x00, 0x00, 0x01, 0x02 };
+
+	/**
+	 * A journal whose first record has been interrupted is emptied, so that the next records are aligned.
+	 *
+	 * @throws IOException
+	 *             if the journal cannot be written.
+	 */
+	@Test
+	public void testTornFirstRecordDropped() throws IOException {
+		deleteFiles();
+		try {
+			appendBytes(PATH, TORN_RECORD);
+
+			SettingsJournal journal = new SettingsJournal(PATH, FLUSH_DELAY);
+			assertEquals(SmartThermostatDefaultValues.DEFAULT_TEMPERATURE_THRESHOLD, journal.getTemperatureThreshold());
+			assertEquals(0, new File(PATH).length());
+			save(journal, 70, true);
+			save(journal, 71, false);
+			assertEquals(2 * RECORD_SIZE, new File(PATH).length());
+
+			checkRestored(71, false);
+		} finally {
+			deleteFiles();
+		}
+	}
+
+	/**
+	 * The settings are restored from the last whole record when the tail of the journal has been interrupted, and the
+	 * next records are aligned.
+	 *
+	 * @throws IOException
+	 *             if the journal cannot be written.
+	 */
+	@Test
+	public void testTornTailDropped() throws IOException {
+		deleteFiles();
+		try {
+			SettingsJournal journal = new SettingsJournal(PATH, FLUSH_DELAY);
+			save(journal, 70, false);
+			save(journal, 72, true);
+			appendBytes(PATH, TORN_RECORD);
+
+			journal = new SettingsJournal(PATH, FLUSH_DELAY);
+			assertEquals(72, journal.getTemperatureThreshold());
+			assertTrue(journal.isFanOn());
+			assertEquals(RECORD_SIZE, new File(PATH).length());
+			save(journal, 74, true);
+			assertEquals(2 * RECORD_SIZE, new File(PATH).length());
+
+			checkRestored(74, true);
+		} finally {
+			deleteFiles();
+		}
+	}
+
+	/**
+	 * When the compaction has been interrupted before replacing the old journal, the old journal is kept and the new
+	 * one is deleted.
+	 *
+	 * @throws IOException
+	 *             if the journal cannot be written.
+	 */
+	@Test
+	public void testCompactionInterruptedBeforeReplace() throws IOException {
+		deleteFiles();
+		try {
+			save(new SettingsJournal(PATH, FLUSH_DELAY), 70, true);
+			// the new journal may be partially written
+			appendBytes(PATH + COMPACTION_EXTENSION, TORN_RECORD);
+
+			checkRestored(70, true);
+			assertFalse(new File(PATH + COMPACTION_EXTENSION).exists());
+		} finally {
+			deleteFiles();
+		}
+	}
+
+	/**
+	 * When the compaction has been interrupted after deleting the old journal, the new journal replaces it.
+	 *
+	 * @throws IOException
+	 *             if the journal cannot be written.
+	 */
+	@Test
+	public void testCompactionInterruptedAfterDelete() throws IOException {
+		deleteFiles();
+		try {
+			save(new SettingsJournal(OTHER_PATH, FLUSH_DELAY), 73, true);
+			assertTrue(new File(OTHER_PATH).renameTo(new File(PATH + COMPACTION_EXTENSION)));
+
+			checkRestored(73, true);
+			assertTrue(new File(PATH).exists());
+			assertFalse(new File(PATH + COMPACTION_EXTENSION).exists());
+		} finally {
+			deleteFiles();
+		}
+	}
+
+	/**
+	 * The journal is compacted once full, keeping the last settings.
+	 */
+	@Test
+	public void testCompaction() {
+		deleteFiles();
+		try {
+			SettingsJournal journal = new SettingsJournal(PATH, FLUSH_DELAY);
+			for (int i = 0; i < 100; i++) {
+				save(journal, 60 + i, i % 2 == 0);
+				assertTrue(new File(PATH).length() % RECORD_SIZE == 0);
+			}
+			assertTrue(new File(PATH).length() < 100 * RECORD_SIZE);
+			assertFalse(new File(PATH + COMPACTION_EXTENSION).exists());
+
+			checkRestored(159, false);
+		} finally {
+			deleteFiles();
+		}
+	}
+
+	private static void save(SettingsJournal journal, int temperatureThreshold, boolean fanOn) {
+		journal.setTemperatureThreshold(temperatureThreshold);
+		journal.setFanOn(fanOn);
+		journal.flush();
+	}
+
+	private static void checkRestored(int temperatureThreshold, boolean fanOn) {
+		SettingsJournal journal = new SettingsJournal(PATH, FLUSH_DELAY);
+		assertEquals(temperatureThreshold, journal.getTemperatureThreshold());
+		assertEquals(Boolean.valueOf(fanOn), Boolean.valueOf(journal.isFanOn()));
+	}
+
+	private static void appendBytes(String path, byte[] bytes) throws IOException {
+		OutputStream output = new FileOutputStream(path, true);
+		try {
+			output.write(bytes);
+		} finally {
+			output.close();
+		}
+	}
+
+	private static void deleteFiles() {
+		String[] paths = { PATH, PATH + COMPACTION_EXTENSION, OTHER_PATH, OTHER_PATH + COMPACTION_EXTENSION };
+		for (String path : paths) {
+			File file = new File(path);
+			if (file.exists()) {
+				file.delete();
+			}
+		}
+	}
+}
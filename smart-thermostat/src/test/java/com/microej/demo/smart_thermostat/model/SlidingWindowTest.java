@@ -0,0 +1,226 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link SlidingWindow} statistics against a recomputation from all the values added.
+ */
+public class SlidingWindowTest {
+
+	private static final long RESOLUTION = 1000;
+	private static final int CAPACITY = 10;
+	private static final long DURATION = CAPACITY * RESOLUTION;
+	private static final long HOUR = 3600000;
+	private static final long MAX_RELATIVE_PERIOD = 1 << 20;
+	private static final int VALUES_COUNT = 2000;
+	private static final long SEED = 42;
+
+	/**
+	 * The statistics match the recomputation while the slots wrap around the ring buffer many times, with several
+	 * values per slot, empty slots and gaps longer than the window.
+	 */
+	@Test
+	public void testRingWrap() {
+		SlidingWindow window = new SlidingWindow(DURATION, RESOLUTION);
+		BruteForceWindow expected = new BruteForceWindow();
+		Random random = new Random(SEED);
+		long time = 0;
+		for (int i = 0; i < VALUES_COUNT; i++) {
+			int jump = random.nextInt(20);
+			if (jump < 10) {
+				time += random.nextInt((int) RESOLUTION / 2);
+			} else if (jump < 19) {
+				time += random.nextInt((int) RESOLUTION * 3);
+			} else {
+				time += DURATION * (1 + random.nextInt(2));
+			}
+			int value = random.nextInt(2001) - 1000;
+			add(window, expected, time, value);
+		}
+	}
+
+	/**
+	 * The statistics match the recomputation when the base of the times is moved.
+	 */
+	@Test
+	public void testRebase() {
+		SlidingWindow window = new SlidingWindow(DURATION, RESOLUTION);
+		BruteForceWindow expected = new BruteForceWindow();
+		Random random = new Random(SEED);
+		// cross the rebase threshold several times
+		long time = (MAX_RELATIVE_PERIOD - 50) * RESOLUTION;
+		for (int i = 0; i < VALUES_COUNT; i++) {
+			time += random.nextInt((int) RESOLUTION * 2);
+			if (i % 500 == 499) {
+				time += MAX_RELATIVE_PERIOD * RESOLUTION;
+			}
+			add(window, expected, time, 20000 + random.nextInt(100));
+		}
+	}
+
+	/**
+	 * The trend is positive for increasing values, negative for decreasing values and null for constant values, and is
+	 * given in hundredths per hour.
+	 */
+	@Test
+	public void testTrendSign() {
+		long slotsPerHour = HOUR / RESOLUTION;
+		SlidingWindow increasing = new SlidingWindow(DURATION, RESOLUTION);
+		SlidingWindow decreasing = new SlidingWindow(DURATION, RESOLUTION);
+		SlidingWindow constant = new SlidingWindow(DURATION, RESOLUTION);
+		assertEquals(0, increasing.getTrend());
+		for (int i = 0; i < 3 * CAPACITY; i++) {
+			long time = i * RESOLUTION;
+			increasing.add(time, 100 + i);
+			decreasing.add(time, 100 - 2 * i);
+			constant.add(time, 100);
+			if (i > 0) {
+				assertEquals(slotsPerHour * 100, increasing.getTrend());
+				assertEquals(-2 * slotsPerHour * 100, decreasing.getTrend());
+				assertEquals(0, constant.getTrend());
+			}
+		}
+		assertTrue(increasing.getTrend() > 0);
+		assertTrue(decreasing.getTrend() < 0);
+	}
+
+	private static void add(SlidingWindow window, BruteForceWindow expected, long time, int value) {
+		window.add(time, value);
+		expected.add(time, value);
+		String message = "value " + value + " at " + time; //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(message, expected.getCount(), window.getCount());
+		assertEquals(message, expected.getMin(), window.getMin());
+		assertEquals(message, expected.getMax(), window.getMax());
+		assertEquals(message, expected.getMean(), window.getMean());
+		assertEquals(message, expected.getVariance(), window.getVariance());
+		assertEquals(message, expected.getTrend(), window.getTrend());
+	}
+
+	/**
+	 * Recomputes the statistics from all the values added, averaging them in slots.
+	 */
+	private static class BruteForceWindow {
+
+		private final List<long[]> values = new ArrayList<>();
+		private long lastPeriod;
+
+		void add(long time, int value) {
+			this.values.add(new long[] { time / RESOLUTION, value });
+			this.lastPeriod = time / RESOLUTION;
+		}
+
+		// periods and averaged values of the slots of the window
+		private long[][] getSlots() {
+			List<long[]> slots = new ArrayList<>();
+			long period = -1;
+			long sum = 0;
+			int count = 0;
+			for (long[] value : this.values) {
+				if (value[0] <= this.lastPeriod - CAPACITY) {
+					continue;
+				}
+				if (value[0] != period && count > 0) {
+					slots.add(new long[] { period, sum / count });
+					sum = 0;
+					count = 0;
+				}
+				period = value[0];
+				sum += value[1];
+				count++;
+			}
+			if (count > 0) {
+				slots.add(new long[] { period, sum / count });
+			}
+			return slots.toArray(new long[slots.size()][]);
+		}
+
+		int getCount() {
+			return getSlots().length;
+		}
+
+		int getMin() {
+			long[][] slots = getSlots();
+			long min = slots.length == 0 ? 0 : Long.MAX_VALUE;
+			for (long[] slot : slots) {
+				min = Math.min(min, slot[1]);
+			}
+			return (int) min;
+		}
+
+		int getMax() {
+			long[][] slots = getSlots();
+			long max = slots.length == 0 ? 0 : Long.MIN_VALUE;
+			for (long[] slot : slots) {
+				max = Math.max(max, slot[1]);
+			}
+			return (int) max;
+		}
+
+		int getMean() {
+			long[][] slots = getSlots();
+			if (slots.length == 0) {
+				return 0;
+			}
+			long sum = 0;
+			for (long[] slot : slots) {
+				sum += slot[1];
+			}
+			return (int) (sum * 100 / slots.length);
+		}
+
+		int getVariance() {
+			long[][] slots = getSlots();
+			long count = slots.length;
+			if (count == 0) {
+				return 0;
+			}
+			long sum = 0;
+			long sumSquares = 0;
+			for (long[] slot : slots) {
+				sum += slot[1];
+				sumSquares += slot[1] * slot[1];
+			}
+			return (int) ((count * sumSquares - sum * sum) * 100 / (count * count));
+		}
+
+		int getTrend() {
+			long[][] slots = getSlots();
+			long count = slots.length;
+			if (count < 2) {
+				return 0;
+			}
+			// the times are relative to the first slot
+			long base = slots[0][0];
+			long sumValues = 0;
+			long sumTimes = 0;
+			long sumSquaredTimes = 0;
+			long sumTimesValues = 0;
+			for (long[] slot : slots) {
+				long time = slot[0] - base;
+				sumValues += slot[1];
+				sumTimes += time;
+				sumSquaredTimes += time * time;
+				sumTimesValues += time * slot[1];
+			}
+			long denominator = count * sumSquaredTimes - sumTimes * sumTimes;
+			if (denominator == 0) {
+				return 0;
+			}
+			long numerator = count * sumTimesValues - sumTimes * sumValues;
+			return (int) (numerator * (HOUR / RESOLUTION) * 100 / denominator);
+		}
+	}
+}
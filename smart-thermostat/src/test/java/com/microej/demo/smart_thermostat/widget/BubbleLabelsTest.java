@@ -0,0 +1,139 @@
+/*
+ * Java
+ *
+ * Copyright 2024 MicroEJ Corp. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be found with this software.
+ */
+package com.microej.demo.smart_thermostat.widget;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.microej.demo.smart_thermostat.common.ActionListener;
+import com.microej.demo.smart_thermostat.model.SmartThermostatModel;
+
+import ej.microui.MicroUI;
+
+/**
+ * Tests when the {@link BubbleLabels} are rendered again after a change of the model.
+ */
+public class BubbleLabelsTest {
+
+	/**
+	 * Starts MicroUI, whose event queue dispatches the notifications of the model.
+	 */
+	@BeforeClass
+	public static void startMicroUI() {
+		MicroUI.start();
+	}
+
+	/**
+	 * At home, the labels wait for the end of the parallax motion while it runs, and are rendered at once while it is
+	 * frozen.
+	 *
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the notifications.
+	 */
+	@Test
+	public void testRenderedWhileFrozen() throws InterruptedException {
+		SmartThermostatModel model = SmartThermostatModel.getInstance();
+		TestActionListener actionListener = new TestActionListener();
+		CountingBubbleLabels labels = new CountingBubbleLabels(actionListener);
+		labels.onActivated();
+		try {
+			model.setTemperature(2000);
+			waitNotifications();
+			actionListener.atHome = true;
+			actionListener.parallaxRunning = true;
+			int rendersCount = labels.rendersCount;
+
+			model.setTemperature(2100);
+			waitNotifications();
+			assertEquals(rendersCount, labels.rendersCount);
+
+			// frozen
+			actionListener.parallaxRunning = false;
+			model.setTemperature(2200);
+			waitNotifications();
+			assertEquals(rendersCount + 1, labels.rendersCount);
+
+			// left home
+			actionListener.atHome = false;
+			model.setTemperature(2300);
+			waitNotifications();
+			assertEquals(rendersCount + 2, labels.rendersCount);
+		} finally {
+			labels.onDeactivated();
+		}
+	}
+
+	private static void waitNotifications() throws InterruptedException {
+		final boolean[] done = new boolean[1];
+		MicroUI.callSerially(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (done) {
+					done[0] = true;
+					done.notifyAll();
+				}
+			}
+		});
+		synchronized (done) {
+			while (!done[0]) {
+				done.wait();
+			}
+		}
+	}
+
+	private static class CountingBubbleLabels extends BubbleLabels {
+
+		private int rendersCount;
+
+		CountingBubbleLabels(ActionListener actionListener) {
+			super(actionListener, true);
+		}
+
+		@Override
+		public void requestRender() {
+			this.rendersCount++;
+		}
+	}
+
+	private static class TestActionListener implements ActionListener {
+
+		private boolean atHome;
+		private boolean parallaxRunning;
+
+		@Override
+		public boolean atHome() {
+			return this.atHome;
+		}
+
+		@Override
+		public boolean isParallaxRunning() {
+			return this.parallaxRunning;
+		}
+
+		@Override
+		public boolean navigateInside() {
+			return false;
+		}
+
+		@Override
+		public boolean navigateOutside() {
+			return false;
+		}
+
+		@Override
+		public boolean navigateHome() {
+			return false;
+		}
+
+		@Override
+		public void onUserInput() {
+			// nothing to do
+		}
+	}
+}